@@ -0,0 +1,270 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Load test comparing the read path of the MDD API on platform and on virtual threads.
+ * 
+ * Each command is started in turn. Once the application answers, the test registers
+ * a new user, subscribes it to every topic and collects the IDs of the posts of its
+ * feed. It then runs the given number of concurrent clients for the given duration,
+ * each sending GET /feed and GET /post/{id} requests in a loop, without think time.
+ * During the run, the resident set size (RSS) and the thread count of the process
+ * are sampled from /proc/[pid]/status, so the test only runs on Linux and the
+ * commands must start the application process directly (no wrapper script).
+ * 
+ * The throughput, latency percentiles, failed and shed (503) requests, peak RSS and
+ * peak thread count of both commands are printed as a Markdown table. The adaptive
+ * concurrency limit sheds requests under high concurrency; to compare the thread
+ * models alone, disable it with --concurrency-limit.enabled=false.
+ * 
+ * Usage, from the back directory, with the database environment variables set:
+ * java scripts/LoadTest.java [clients] [seconds] -- <platform threads command> -- <virtual threads command>
+ * 
+ * Example:
+ * java scripts/LoadTest.java 1000 60 -- java -jar target/mdd-api-0.0.1-SNAPSHOT.jar --spring.profiles.active=prod,async-log
+ *      -- java -jar target/mdd-api-0.0.1-SNAPSHOT.jar --spring.profiles.active=prod,async-log,virtual-threads
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class LoadTest {
+
+    private static final String BASE_URL = "http://localhost:8080/api";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+    private static final Duration WARM_UP = Duration.ofSeconds(10);
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    record Result(long requests, long failed, long shed, double seconds, long p50Micros, long p99Micros,
+                  long peakRssKb, long peakThreads) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = Arrays.asList(args);
+        int first = arguments.indexOf("--");
+        int second = first < 0 ? -1 : arguments.subList(first + 1, arguments.size()).indexOf("--") + first + 1;
+        if (first < 0 || second <= first + 1 || second == arguments.size() - 1) {
+            System.err.println("Usage: java LoadTest.java [clients] [seconds] -- <platform threads command> "
+                    + "-- <virtual threads command>");
+            System.exit(1);
+        }
+        int clients = first > 0 ? Integer.parseInt(args[0]) : 500;
+        int seconds = first > 1 ? Integer.parseInt(args[1]) : 30;
+
+        Result platform = measure("platform threads", arguments.subList(first + 1, second), clients, seconds);
+        Result virtual = measure("virtual threads", arguments.subList(second + 1, arguments.size()), clients, seconds);
+
+        System.out.println();
+        System.out.println("| Threads  | Requests/s | p50 (ms) | p99 (ms) | Failed | Shed (503) | Peak RSS | Peak threads |");
+        System.out.println("|----------|------------|----------|----------|--------|------------|----------|--------------|");
+        printRow("platform", platform);
+        printRow("virtual", virtual);
+        System.out.printf("%n%d concurrent clients during %d s.%n", clients, seconds);
+    }
+
+    private static Result measure(String name, List<String> command, int clients, int seconds) throws Exception {
+        System.out.printf("%s: starting the application%n", name);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("load-test.log")))
+                .start();
+        try {
+            // One HTTP/1.1 connection per client, rather than every request multiplexed on one HTTP/2 connection.
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .cookieHandler(new CookieManager())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            awaitStartup(process, client);
+            List<String> postIds = prepare(client);
+            System.out.printf("%s: %d posts in the feed, warming up%n", name, postIds.size());
+            run(client, postIds, clients, WARM_UP, null);
+
+            Sampler sampler = new Sampler(process.pid());
+            Thread sampling = Thread.ofPlatform().daemon().start(sampler);
+            Result result = run(client, postIds, clients, Duration.ofSeconds(seconds), sampler);
+            sampling.interrupt();
+            System.out.printf("%s: %.0f requests/s, peak RSS %d MB, peak %d threads%n", name,
+                    result.requests() / result.seconds(), result.peakRssKb() / 1024, result.peakThreads());
+            return result;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void awaitStartup(Process process, HttpClient client) throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(BASE_URL + "/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue()
+                        + ", see load-test.log");
+            }
+            try {
+                client.send(health, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException notListeningYet) {
+                Thread.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Application did not answer within " + STARTUP_TIMEOUT.toSeconds() + " s");
+    }
+
+    /**
+     * Registers and logs in a new user subscribed to every topic.
+     * 
+     * @return the IDs of the posts of the first feed page
+     */
+    private static List<String> prepare(HttpClient client) throws Exception {
+        String username = "load" + System.currentTimeMillis();
+        String password = "Load!1234";
+        send(client, "POST", "/auth/register",
+                "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\",\"password\":\"" + password + "\"}");
+        send(client, "POST", "/auth/login", "{\"login\":\"" + username + "\",\"password\":\"" + password + "\"}");
+
+        List<String> topicIds = ids(send(client, "GET", "/topic", null));
+        send(client, "POST", "/topic/subscriptions",
+                "{\"subscribe\":[" + String.join(",", topicIds) + "],\"unsubscribe\":[]}");
+        List<String> postIds = ids(send(client, "GET", "/feed?size=50", null));
+        if (postIds.isEmpty()) {
+            throw new IllegalStateException("The feed is empty, the post details cannot be loaded");
+        }
+        return postIds;
+    }
+
+    private static Result run(HttpClient client, List<String> postIds, int clients, Duration duration,
+                              Sampler sampler) throws Exception {
+        HttpRequest feed = HttpRequest.newBuilder(URI.create(BASE_URL + "/feed")).timeout(Duration.ofSeconds(30)).build();
+        List<HttpRequest> posts = postIds.stream()
+                .map(id -> HttpRequest.newBuilder(URI.create(BASE_URL + "/post/" + id)).timeout(Duration.ofSeconds(30)).build())
+                .toList();
+
+        AtomicLong failed = new AtomicLong();
+        AtomicLong shed = new AtomicLong();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        boolean readFeed = ThreadLocalRandom.current().nextInt(4) == 0;
+                        HttpRequest request = readFeed ? feed : posts.get(ThreadLocalRandom.current().nextInt(posts.size()));
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 503) {
+                                shed.incrementAndGet();
+                                continue;
+                            }
+                            if (status / 100 != 2) failed.incrementAndGet();
+                        } catch (IOException e) {
+                            failed.incrementAndGet();
+                            continue;
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+                        samples[count++] = (System.nanoTime() - sent) / 1000;
+                    }
+                    latencies.add(Arrays.copyOf(samples, count));
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        long p50 = all.length == 0 ? 0 : all[all.length / 2];
+        long p99 = all.length == 0 ? 0 : all[(int) (all.length * 0.99)];
+        return new Result(all.length + failed.get(), failed.get(), shed.get(), seconds, p50, p99,
+                sampler == null ? 0 : sampler.peakRssKb, sampler == null ? 0 : sampler.peakThreads);
+    }
+
+    private static String send(HttpClient client, String method, String path, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(BASE_URL + path)).timeout(Duration.ofSeconds(30));
+        if (json != null) {
+            request.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(json));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(method + " " + path + " returned " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private static List<String> ids(String json) {
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(json);
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        return ids.stream().distinct().collect(Collectors.toList());
+    }
+
+    private static void printRow(String name, Result result) {
+        System.out.printf("| %-8s | %10.0f | %8.1f | %8.1f | %6d | %10d | %5d MB | %12d |%n", name,
+                result.requests() / result.seconds(), result.p50Micros() / 1000.0, result.p99Micros() / 1000.0,
+                result.failed(), result.shed(), result.peakRssKb() / 1024, result.peakThreads());
+    }
+
+    /**
+     * Samples the RSS and thread count of the application process every 200 ms.
+     */
+    private static final class Sampler implements Runnable {
+
+        private final Path status;
+        private volatile long peakRssKb;
+        private volatile long peakThreads;
+
+        Sampler(long pid) {
+            this.status = Path.of("/proc/" + pid + "/status");
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    for (String line : Files.readAllLines(status)) {
+                        if (line.startsWith("VmRSS:")) {
+                            peakRssKb = Math.max(peakRssKb, Long.parseLong(line.replaceAll("\\D", "")));
+                        } else if (line.startsWith("Threads:")) {
+                            peakThreads = Math.max(peakThreads, Long.parseLong(line.replaceAll("\\D", "")));
+                        }
+                    }
+                    Thread.sleep(200);
+                }
+            } catch (IOException | InterruptedException stopped) {
+                // The run is over, or the process exited.
+            }
+        }
+    }
+}
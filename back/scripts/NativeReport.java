@@ -0,0 +1,139 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report comparing the startup time and memory footprint of the JVM and native
+ * builds of the MDD API.
+ * 
+ * Each command is started several times. For each run, the report measures:
+ * - the time-to-first-request, from the process launch to the first HTTP response
+ * - the resident set size (RSS) once the application answers
+ * - the RSS after a warm-up of a few hundred requests
+ * 
+ * The RSS is read from /proc/[pid]/status, so the report only runs on Linux, and
+ * the commands must start the application process directly (no wrapper script).
+ * The medians of both builds are printed as a Markdown table.
+ * 
+ * Usage, from the back directory:
+ * java scripts/NativeReport.java [runs] -- <JVM command> -- <native command>
+ * 
+ * Example:
+ * java scripts/NativeReport.java 5 -- java -Dspring.profiles.active=prod -jar target/mdd-api-0.0.1-SNAPSHOT.jar
+ *      -- ./target/mdd-api
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class NativeReport {
+
+    private static final String URL = "http://localhost:8080/api/actuator/health";
+    private static final int WARM_UP_REQUESTS = 500;
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private static final HttpRequest REQUEST = HttpRequest.newBuilder(URI.create(URL)).timeout(Duration.ofSeconds(5)).build();
+
+    record Run(long startupMillis, long idleRssKb, long warmRssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = Arrays.asList(args);
+        int first = arguments.indexOf("--");
+        int second = first < 0 ? -1 : arguments.subList(first + 1, arguments.size()).indexOf("--") + first + 1;
+        if (first < 0 || second <= first + 1 || second == arguments.size() - 1) {
+            System.err.println("Usage: java NativeReport.java [runs] -- <JVM command> -- <native command>");
+            System.exit(1);
+        }
+        int runs = first > 0 ? Integer.parseInt(args[0]) : 5;
+
+        List<Run> jvm = measureAll("JVM", arguments.subList(first + 1, second), runs);
+        List<Run> nativeImage = measureAll("native", arguments.subList(second + 1, arguments.size()), runs);
+
+        System.out.println();
+        System.out.printf("| Build  | Time-to-first-request | RSS at startup | RSS after %d requests |%n", WARM_UP_REQUESTS);
+        System.out.println("|--------|-----------------------|----------------|------------------------|");
+        printRow("JVM", jvm);
+        printRow("native", nativeImage);
+        System.out.printf("%nMedians over %d runs.%n", runs);
+    }
+
+    private static List<Run> measureAll(String name, List<String> command, int runs) throws Exception {
+        List<Run> results = new ArrayList<>();
+        for (int i = 1; i <= runs; i++) {
+            Run run = measure(command);
+            System.out.printf("%s run %d: first response after %d ms, RSS %d MB at startup, %d MB after warm-up%n",
+                    name, i, run.startupMillis(), run.idleRssKb() / 1024, run.warmRssKb() / 1024);
+            results.add(run);
+        }
+        return results;
+    }
+
+    private static Run measure(List<String> command) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("native-report.log")))
+                .start();
+        try {
+            long startupMillis = awaitFirstResponse(process, start);
+            long idleRss = rssKb(process.pid());
+            for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+                CLIENT.send(REQUEST, HttpResponse.BodyHandlers.discarding());
+            }
+            return new Run(startupMillis, idleRss, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static long awaitFirstResponse(Process process, long start) throws InterruptedException {
+        while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue()
+                        + ", see native-report.log");
+            }
+            try {
+                CLIENT.send(REQUEST, HttpResponse.BodyHandlers.discarding());
+                return (System.nanoTime() - start) / 1_000_000;
+            } catch (IOException notListeningYet) {
+                Thread.sleep(10);
+            }
+        }
+        throw new IllegalStateException("No response within " + TIMEOUT.toSeconds() + " s");
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc/" + pid + "/status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        throw new IllegalStateException("No VmRSS entry for process " + pid);
+    }
+
+    private static void printRow(String name, List<Run> runs) {
+        System.out.printf("| %-6s | %18d ms | %11d MB | %19d MB |%n", name,
+                median(runs.stream().mapToLong(Run::startupMillis).toArray()),
+                median(runs.stream().mapToLong(Run::idleRssKb).toArray()) / 1024,
+                median(runs.stream().mapToLong(Run::warmRssKb).toArray()) / 1024);
+    }
+
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+}
@@ -0,0 +1,134 @@
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Smoke test suite of a running MDD API, meant for the native executable.
+ * 
+ * The native image only works for the code paths whose reflection metadata was
+ * registered at build time, so this suite goes through each of them once against
+ * a running instance: JSON binding of the DTOs, JWT creation and parsing,
+ * Hibernate reads and writes of every main entity, and the feed query.
+ * 
+ * It registers a new user on each run, so it needs an instance connected to a
+ * database that can be written to, with at least one topic.
+ * 
+ * Usage, against an instance started with ./target/mdd-api:
+ * java scripts/NativeSmokeTest.java [baseUrl]
+ * 
+ * The default base URL is http://localhost:8080/api. The exit code is 1 if any
+ * check fails.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class NativeSmokeTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final List<String> failures = new ArrayList<>();
+    private int checks;
+
+    NativeSmokeTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        NativeSmokeTest test = new NativeSmokeTest(args.length > 0 ? args[0] : "http://localhost:8080/api");
+        test.run();
+
+        System.out.printf("%d checks, %d failed%n", test.checks, test.failures.size());
+        test.failures.forEach(failure -> System.out.println("FAILED " + failure));
+        System.exit(test.failures.isEmpty() ? 0 : 1);
+    }
+
+    void run() throws Exception {
+        String username = "smoke" + System.currentTimeMillis();
+        String password = "Smoke!1234";
+
+        check("register", "POST", "/auth/register",
+                "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\",\"password\":\"" + password + "\"}");
+        check("login", "POST", "/auth/login", "{\"login\":\"" + username + "\",\"password\":\"" + password + "\"}");
+        String me = check("current user (JWT parsing)", "GET", "/user/me", null);
+        if (me != null && !me.contains(username)) {
+            failures.add("current user: response does not contain " + username);
+        }
+        check("health", "GET", "/actuator/health", null);
+
+        String topics = check("topics", "GET", "/topic", null);
+        String topicId = firstId(topics);
+        if (topicId == null) {
+            failures.add("topics: no topic found, post checks skipped");
+        } else {
+            check("subscribe", "POST", "/topic/" + topicId + "/subscription", null);
+            check("subscribed topics", "GET", "/topic/my", null);
+
+            String post = check("create post", "POST", "/post",
+                    "{\"title\":\"Smoke test\",\"content\":\"Native image smoke test\",\"topicId\":" + topicId + "}");
+            String postId = firstId(post);
+            if (postId != null) {
+                check("post details", "GET", "/post/" + postId, null);
+                check("add comment", "POST", "/post/" + postId + "/comments", "{\"content\":\"Smoke comment\"}");
+                check("comments", "GET", "/post/" + postId + "/comments", null);
+            }
+
+            for (String sort : List.of("new", "old", "hot", "top", "discussed")) {
+                check("feed sorted by " + sort, "GET", "/feed?sort=" + sort, null);
+            }
+            check("unsubscribe", "DELETE", "/topic/" + topicId + "/subscription", null);
+        }
+
+        check("refresh", "POST", "/auth/refresh", null);
+        check("logout", "POST", "/auth/logout", null);
+    }
+
+    /**
+     * Sends a request and records a failure unless the response status is 2xx.
+     * 
+     * @return the response body, or null if the check failed
+     */
+    private String check(String name, String method, String path, String json) {
+        checks++;
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30));
+            if (json != null) {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofString(json));
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                failures.add(name + ": " + method + " " + path + " returned " + response.statusCode()
+                        + " " + response.body());
+                return null;
+            }
+            System.out.printf("ok     %s (%d)%n", name, response.statusCode());
+            return response.body();
+        } catch (Exception e) {
+            failures.add(name + ": " + method + " " + path + " threw " + e);
+            return null;
+        }
+    }
+
+    private static String firstId(String json) {
+        if (json == null) return null;
+        Matcher matcher = ID.matcher(json);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
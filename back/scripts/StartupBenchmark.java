@@ -0,0 +1,89 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup-time benchmark of the MDD API.
+ * 
+ * Starts the application several times and measures the time-to-first-request:
+ * the time between the launch of the JVM process and the first HTTP response
+ * received from the application, whatever its status. The application is stopped
+ * after each run, and the minimum, median and maximum times are reported.
+ * 
+ * Usage, from the back directory, after "mvn -Pfast-startup package":
+ * java scripts/StartupBenchmark.java [runs] [url] -- <java command>
+ * 
+ * Examples:
+ * java scripts/StartupBenchmark.java 5 -- java -jar target/mdd-api-0.0.1-SNAPSHOT.jar
+ * java scripts/StartupBenchmark.java 5 -- java -XX:SharedArchiveFile=target/cds/application.jsa
+ *      -Dspring.aot.enabled=true -Dspring.profiles.active=prod -jar target/cds/mdd-api-0.0.1-SNAPSHOT.jar
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class StartupBenchmark {
+
+    private static final String DEFAULT_URL = "http://localhost:8080/api/actuator/health";
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            System.err.println("Usage: java StartupBenchmark.java [runs] [url] -- <java command>");
+            System.exit(1);
+        }
+        int runs = separator > 0 ? Integer.parseInt(args[0]) : 5;
+        String url = separator > 1 ? args[1] : DEFAULT_URL;
+        List<String> command = Arrays.asList(args).subList(separator + 1, args.length);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).build();
+
+        List<Long> times = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long millis = measure(command, client, request);
+            times.add(millis);
+            System.out.printf("run %d: first response after %d ms%n", run, millis);
+        }
+
+        times.sort(null);
+        System.out.printf("time-to-first-request over %d runs: min %d ms, median %d ms, max %d ms%n",
+                runs, times.get(0), times.get(times.size() / 2), times.get(times.size() - 1));
+    }
+
+    private static long measure(List<String> command, HttpClient client, HttpRequest request)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("startup-benchmark.log")))
+                .start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue()
+                            + ", see startup-benchmark.log");
+                }
+                try {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                    return (System.nanoTime() - start) / 1_000_000;
+                } catch (IOException notListeningYet) {
+                    Thread.sleep(10);
+                }
+            }
+            throw new IllegalStateException("No response within " + TIMEOUT.toSeconds() + " s");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, java.util.concurrent.TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
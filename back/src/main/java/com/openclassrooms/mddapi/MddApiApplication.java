@@ -2,6 +2,8 @@ package com.openclassrooms.mddapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
@@ -17,24 +19,32 @@ import io.github.cdimascio.dotenv.Dotenv;
  * - Database connection settings (URL, username, password)
  * - JWT authentication configuration (secret key, token expiration)
  * 
+ * The .env file is optional: in containers the same variables are read from the
+ * process environment, and values already passed as system properties win.
+ * 
  * The @SpringBootApplication annotation enables auto-configuration, component scanning,
  * and configuration properties, making this a complete Spring Boot application ready
- * to serve HTTP requests.
+ * to serve HTTP requests. @EnableScheduling activates the background jobs, such as
+ * the outbox relay. @ImportRuntimeHints declares the reflection metadata needed by
+ * the native image build.
  * 
  * @author Cécile UMECKER
  
  */
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(MddApiRuntimeHints.class)
 public class MddApiApplication {
 
 	/**
 	 * Main entry point for the MDD API application.
 	 * 
 	 * This method performs the following initialization steps:
-	 * 1. Loads environment variables from the .env file using Dotenv library
+	 * 1. Loads environment variables from the .env file, if present, using Dotenv library
 	 * 2. Sets system properties for database configuration (URL, user, password)
 	 * 3. Sets system properties for JWT configuration (secret key, expiration time)
+	 *    and for the list of administrator user IDs (ADMIN_USER_IDS)
 	 * 4. Launches the Spring Boot application context
 	 * 
 	 * Environment variables are converted to system properties to make them accessible
@@ -43,14 +53,31 @@ public class MddApiApplication {
 	 * @param args command-line arguments passed to the application
 	 */
 	public static void main(String[] args) {
-		Dotenv dotenv = Dotenv.load();
-			System.setProperty("DB_URL", dotenv.get("DB_URL"));
-			System.setProperty("DB_USER", dotenv.get("DB_USER"));
-			System.setProperty("DB_PASSWORD", dotenv.get("DB_PASSWORD"));
-			System.setProperty("JWT_SECRET", dotenv.get("JWT_SECRET"));
-			System.setProperty("JWT_EXPIRATION", dotenv.get("JWT_EXPIRATION"));		
+		Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+			setPropertyFromEnv(dotenv, "DB_URL", null);
+			setPropertyFromEnv(dotenv, "DB_USER", null);
+			setPropertyFromEnv(dotenv, "DB_PASSWORD", null);
+			setPropertyFromEnv(dotenv, "JWT_SECRET", null);
+			setPropertyFromEnv(dotenv, "JWT_EXPIRATION", null);
+			setPropertyFromEnv(dotenv, "ADMIN_USER_IDS", "");
 		
 		SpringApplication.run(MddApiApplication.class, args);
 	}
 
+	/**
+	 * Copies an environment variable to a system property, unless the system
+	 * property is already set or the variable is missing.
+	 * 
+	 * @param dotenv the loaded .env file and process environment
+	 * @param key the name of the variable and of the system property
+	 * @param defaultValue the value used when the variable is missing, may be null
+	 */
+	private static void setPropertyFromEnv(Dotenv dotenv, String key, String defaultValue) {
+		if (System.getProperty(key) != null) return;
+		String value = dotenv.get(key, defaultValue);
+		if (value != null) {
+			System.setProperty(key, value);
+		}
+	}
+
 }
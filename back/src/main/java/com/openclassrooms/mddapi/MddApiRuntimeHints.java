@@ -0,0 +1,91 @@
+package com.openclassrooms.mddapi;
+
+import java.util.List;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.web.PagedModel;
+
+import com.openclassrooms.mddapi.dto.*;
+import com.openclassrooms.mddapi.logging.AsyncLogAppender;
+import com.openclassrooms.mddapi.logging.SamplingFilter;
+import com.openclassrooms.mddapi.models.*;
+
+/**
+ * Runtime hints needed to run the MDD API as a GraalVM native image.
+ * 
+ * A native image only keeps the reflection metadata and resources it is told
+ * about at build time. Spring AOT infers most of them from the application context,
+ * and this registrar declares the remaining ones:
+ * - the JPA entities in the models package, instantiated and populated reflectively by Hibernate
+ * - the Lombok-generated DTOs, bound by Jackson, including those that do not appear
+ *   in controller signatures (bulk records, feed pages)
+ * - the JJWT implementation classes, which jjwt-api instantiates by name, and the
+ *   service files through which jjwt-jackson and the compression codecs are discovered
+ * - the custom Logback components of the "async-log" profile, created by Logback's
+ *   XML configurator
+ * 
+ * New entities and DTOs must be added to the lists below.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class MddApiRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final List<Class<?>> ENTITIES = List.of(
+            User.class, Topic.class, Post.class, PostBody.class, Comment.class,
+            OutboxEvent.class, CacheInvalidation.class, ScheduledJobRun.class, TopicReadState.class, TopicReadState.Key.class,
+            IdempotencyRecord.class, IdempotencyRecord.Key.class, PostArchive.class, CommentArchive.class);
+
+    static final List<Class<?>> DTOS = List.of(
+            AvailabilityDTO.class, BatchItemDTO.class, BulkRecordDTO.class, BulkReportDTO.class, CommentRequestDTO.class, CommentResponseDTO.class, CursorPageDTO.class,
+            FeedPostDTO.class, LoginDTO.class, MarkReadRequestDTO.class, MessageDTO.class, PostRequestDTO.class, PostResponseDTO.class,
+            RegisterDTO.class, SubscriptionChangesDTO.class, TopicWithSubscriptionDTO.class, UserResponseDTO.class, UserSummaryDTO.class, UserUpdateRequestDTO.class,
+            PageImpl.class, PagedModel.class);
+
+    static final List<String> JJWT_CLASSES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    static final List<String> JJWT_SERVICES = List.of(
+            "META-INF/services/io.jsonwebtoken.io.Serializer",
+            "META-INF/services/io.jsonwebtoken.io.Deserializer",
+            "META-INF/services/io.jsonwebtoken.CompressionCodec");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), DTOS.toArray(Class<?>[]::new));
+
+        for (String className : JJWT_CLASSES) {
+            hints.reflection().registerTypeIfPresent(classLoader, className,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        JJWT_SERVICES.forEach(hints.resources()::registerPattern);
+
+        for (Class<?> component : List.of(AsyncLogAppender.class, SamplingFilter.class, CompressedTextConverter.class)) {
+            hints.reflection().registerType(component,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
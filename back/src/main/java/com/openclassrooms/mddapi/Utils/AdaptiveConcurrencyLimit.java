@@ -0,0 +1,123 @@
+package com.openclassrooms.mddapi.Utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe concurrency limit adapting to the latency of the requests it admits.
+ * 
+ * The limit follows the gradient algorithm of Netflix's concurrency-limits
+ * library (Gradient2). Two averages of the request latency are maintained: a
+ * short-term one, reacting within a few requests, and a long-term one, standing
+ * for the latency of the system when it is not overloaded. Their ratio is the
+ * gradient: while requests take about as long as usual it stays at 1 and the
+ * limit grows by a small allowance of queued requests; when they slow down, for
+ * example because MySQL is waiting on locks and requests queue for a connection,
+ * the gradient falls below 1 and the limit shrinks in proportion. A tolerance
+ * lets the short-term latency exceed the long-term one by half before the limit
+ * shrinks, and each change is smoothed so a single slow request has no effect.
+ * 
+ * The limit only grows while at least half of it is in use, so an idle limiter
+ * does not drift up to its maximum. When the short-term latency stays well below
+ * the long-term one, the long-term average is pulled down faster, so the limiter
+ * recovers after a sustained slowdown.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+public class AdaptiveConcurrencyLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    /**
+     * Creates a limit.
+     * 
+     * @param initialLimit the limit until latencies have been measured
+     * @param minLimit the lowest the limit can fall to, at least 1
+     * @param maxLimit the highest the limit can rise to
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admits a request if fewer requests than the limit are in flight.
+     * 
+     * An admitted request must be followed by a call to release.
+     * 
+     * @return true if the request is admitted, false if it must be rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) return false;
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Records the completion of an admitted request and updates the limit.
+     * 
+     * @param rttNanos the time the request took, in nanoseconds
+     */
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(Math.max(1, rttNanos), inFlightBefore);
+    }
+
+    /**
+     * Returns the current limit.
+     * 
+     * @return the maximum number of requests in flight
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     * 
+     * @return the number of admitted requests not released yet
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(double rtt, int inFlightBefore) {
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt += (shortRtt - longRtt) / LONG_WINDOW;
+        if (longRtt / shortRtt > 2) {
+            // Latency dropped for good: forget the former baseline faster.
+            longRtt *= 0.95;
+        }
+
+        double current = limit;
+        if (inFlightBefore < current / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
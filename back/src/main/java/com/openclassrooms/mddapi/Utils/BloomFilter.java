@@ -0,0 +1,124 @@
+package com.openclassrooms.mddapi.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings.
+ * 
+ * A Bloom filter answers "is this value in the set?" with either "definitely not"
+ * or "maybe". It never returns a false negative, and returns a false positive with
+ * a probability chosen at construction, for a memory cost of about 10 bits per value
+ * at 1%. Values cannot be removed.
+ * 
+ * The bits are stored in an AtomicLongArray, so values can be added and tested
+ * concurrently without locking. Each value is hashed once into two 64-bit hashes,
+ * combined to derive the positions of its bits (Kirsch-Mitzenmacher double hashing).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a Bloom filter sized for the expected number of values.
+     * 
+     * @param expectedInsertions the number of values the filter is expected to hold
+     * @param falsePositiveRate the false positive probability once the filter holds
+     *                          the expected number of values, between 0 and 1 exclusive
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds a value to the filter.
+     * 
+     * @param value the value to add
+     */
+    public void put(String value) {
+        long[] hashes = hash(value);
+        for (int i = 0; i < hashCount; i++) {
+            long index = position(hashes, i);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) break;
+            }
+        }
+    }
+
+    /**
+     * Tests whether a value may have been added to the filter.
+     * 
+     * @param value the value to test
+     * @return false if the value was definitely never added, true if it may have been
+     */
+    public boolean mightContain(String value) {
+        long[] hashes = hash(value);
+        for (int i = 0; i < hashCount; i++) {
+            long index = position(hashes, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bits of the filter.
+     * 
+     * @return the size of the filter in bits
+     */
+    public long bitSize() {
+        return bitCount;
+    }
+
+    /**
+     * Returns the number of bits set per value.
+     * 
+     * @return the number of hash functions
+     */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private long position(long[] hashes, int i) {
+        return Long.remainderUnsigned(hashes[0] + i * hashes[1], bitCount);
+    }
+
+    /**
+     * Hashes a value into two independent 64-bit hashes, using FNV-1a over the
+     * UTF-8 bytes followed by two different finalizers.
+     */
+    private static long[] hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return new long[] { mix(h), mix(h ^ 0x9e3779b97f4a7c15L) | 1 };
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb93fe1a85ec9L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,366 @@
+package com.openclassrooms.mddapi.Utils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compressed bitmap of non-negative long values, in the style of Roaring bitmaps.
+ * 
+ * Each value is split into a high part, selecting a container, and a 16-bit low
+ * part stored in that container. Containers holding at most 4096 values are sorted
+ * char arrays, using 2 bytes per value; denser containers switch to a plain
+ * 65536-bit bitmap of 8 KB. Sparse and dense sets of IDs therefore both stay
+ * compact, and rank queries only visit the containers below the value.
+ * 
+ * The bitmap can be serialized to bytes for storage. Instances are not thread-safe.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+public class CompressedBitmap {
+
+    private static final int ARRAY_MAX_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final byte ARRAY_CONTAINER = 0;
+    private static final byte BITMAP_CONTAINER = 1;
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+    private long cardinality;
+
+    /**
+     * Adds a value to the bitmap.
+     * 
+     * @param value the value to add, non-negative
+     * @return true if the value was added, false if it was already present
+     */
+    public boolean add(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        boolean added = containers.computeIfAbsent(value >>> 16, key -> new Container()).add((char) value);
+        if (added) cardinality++;
+        return added;
+    }
+
+    /**
+     * Tests whether a value is in the bitmap.
+     * 
+     * @param value the value to test
+     * @return true if the value is present
+     */
+    public boolean contains(long value) {
+        if (value < 0) return false;
+        Container container = containers.get(value >>> 16);
+        return container != null && container.contains((char) value);
+    }
+
+    /**
+     * Returns the number of values in the bitmap.
+     * 
+     * @return the cardinality of the bitmap
+     */
+    public long cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Tells whether the bitmap holds no value.
+     * 
+     * @return true if the bitmap is empty
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Counts the values lower than or equal to a value.
+     * 
+     * @param value the upper bound, inclusive
+     * @return the number of values in the bitmap up to the bound
+     */
+    public long rank(long value) {
+        if (value < 0) return 0;
+        long high = value >>> 16;
+        long rank = 0;
+        for (Map.Entry<Long, Container> entry : containers.headMap(high, true).entrySet()) {
+            Container container = entry.getValue();
+            rank += entry.getKey() < high ? container.size : container.rank((char) value);
+        }
+        return rank;
+    }
+
+    /**
+     * Counts the values greater than a value.
+     * 
+     * @param value the lower bound, exclusive
+     * @return the number of values in the bitmap above the bound
+     */
+    public long countAbove(long value) {
+        return cardinality - rank(value);
+    }
+
+    /**
+     * Returns the smallest value greater than or equal to a value.
+     * 
+     * @param from the lower bound, inclusive
+     * @return the next value in the bitmap, or -1 if there is none
+     */
+    public long nextValue(long from) {
+        long start = Math.max(0, from);
+        long high = start >>> 16;
+        for (Map.Entry<Long, Container> entry : containers.tailMap(high, true).entrySet()) {
+            int low = entry.getKey() == high ? entry.getValue().next((char) start) : entry.getValue().next(0);
+            if (low >= 0) {
+                return (entry.getKey() << 16) | low;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the largest value of the bitmap.
+     * 
+     * @return the largest value, or -1 if the bitmap is empty
+     */
+    public long last() {
+        Map.Entry<Long, Container> entry = containers.lastEntry();
+        return entry == null ? -1 : (entry.getKey() << 16) | entry.getValue().last();
+    }
+
+    /**
+     * Removes every value lower than or equal to a value.
+     * 
+     * @param value the upper bound, inclusive
+     */
+    public void removeUpTo(long value) {
+        if (value < 0) return;
+        long high = value >>> 16;
+        var iterator = containers.headMap(high, true).entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Container> entry = iterator.next();
+            Container container = entry.getValue();
+            int before = container.size;
+            if (entry.getKey() < high) {
+                iterator.remove();
+            } else {
+                container.removeUpTo((char) value);
+                if (container.size == 0) iterator.remove();
+            }
+            cardinality -= before - (entry.getKey() < high ? 0 : container.size);
+        }
+    }
+
+    /**
+     * Returns an independent copy of the bitmap.
+     * 
+     * @return the copy
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        containers.forEach((key, container) -> copy.containers.put(key, container.copy()));
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    /**
+     * Serializes the bitmap.
+     * 
+     * @return the serialized bitmap, readable by fromBytes
+     */
+    public byte[] toBytes() {
+        int length = Integer.BYTES;
+        for (Container container : containers.values()) {
+            length += Long.BYTES + 1 + Integer.BYTES
+                    + (container.words != null ? BITMAP_WORDS * Long.BYTES : container.size * Character.BYTES);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(containers.size());
+        containers.forEach((key, container) -> {
+            buffer.putLong(key);
+            buffer.put(container.words != null ? BITMAP_CONTAINER : ARRAY_CONTAINER);
+            buffer.putInt(container.size);
+            if (container.words != null) {
+                buffer.asLongBuffer().put(container.words);
+                buffer.position(buffer.position() + BITMAP_WORDS * Long.BYTES);
+            } else {
+                for (int i = 0; i < container.size; i++) {
+                    buffer.putChar(container.values[i]);
+                }
+            }
+        });
+        return buffer.array();
+    }
+
+    /**
+     * Deserializes a bitmap written by toBytes.
+     * 
+     * @param data the serialized bitmap, or null for an empty bitmap
+     * @return the bitmap
+     * @throws IllegalArgumentException if the data is not a serialized bitmap
+     */
+    public static CompressedBitmap fromBytes(byte[] data) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        if (data == null || data.length == 0) return bitmap;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                long key = buffer.getLong();
+                byte type = buffer.get();
+                Container container = new Container();
+                container.size = buffer.getInt();
+                if (type == BITMAP_CONTAINER) {
+                    container.values = null;
+                    container.words = new long[BITMAP_WORDS];
+                    buffer.asLongBuffer().get(container.words);
+                    buffer.position(buffer.position() + BITMAP_WORDS * Long.BYTES);
+                } else if (type == ARRAY_CONTAINER && container.size <= ARRAY_MAX_SIZE) {
+                    container.values = new char[container.size];
+                    for (int j = 0; j < container.size; j++) {
+                        container.values[j] = buffer.getChar();
+                    }
+                } else {
+                    throw new IllegalArgumentException("Invalid bitmap container");
+                }
+                bitmap.containers.put(key, container);
+                bitmap.cardinality += container.size;
+            }
+            return bitmap;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated bitmap", e);
+        }
+    }
+
+    /**
+     * Container of the low 16 bits of the values sharing the same high part, either
+     * as a sorted array (values) or as a bitmap (words).
+     */
+    private static final class Container {
+
+        private char[] values = new char[4];
+        private long[] words;
+        private int size;
+
+        boolean add(char low) {
+            if (words != null) {
+                long mask = 1L << low;
+                if ((words[low >>> 6] & mask) != 0) return false;
+                words[low >>> 6] |= mask;
+                size++;
+                return true;
+            }
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) return false;
+            if (size == ARRAY_MAX_SIZE) {
+                toBitmap();
+                return add(low);
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, Math.max(4, size * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = low;
+            size++;
+            return true;
+        }
+
+        boolean contains(char low) {
+            if (words != null) {
+                return (words[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        int rank(char low) {
+            if (words != null) {
+                int word = low >>> 6;
+                int rank = 0;
+                for (int i = 0; i < word; i++) {
+                    rank += Long.bitCount(words[i]);
+                }
+                return rank + Long.bitCount(words[word] & (-1L >>> (63 - (low & 63))));
+            }
+            int index = Arrays.binarySearch(values, 0, size, low);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        int next(int from) {
+            if (words != null) {
+                int word = from >>> 6;
+                long bits = words[word] & (-1L << (from & 63));
+                while (bits == 0) {
+                    if (++word == BITMAP_WORDS) return -1;
+                    bits = words[word];
+                }
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            int index = Arrays.binarySearch(values, 0, size, (char) from);
+            if (index < 0) index = -index - 1;
+            return index < size ? values[index] : -1;
+        }
+
+        int last() {
+            if (words != null) {
+                for (int word = BITMAP_WORDS - 1; word >= 0; word--) {
+                    if (words[word] != 0) {
+                        return word * 64 + 63 - Long.numberOfLeadingZeros(words[word]);
+                    }
+                }
+                return -1;
+            }
+            return size == 0 ? -1 : values[size - 1];
+        }
+
+        void removeUpTo(char low) {
+            if (words != null) {
+                int word = low >>> 6;
+                Arrays.fill(words, 0, word, 0L);
+                words[word] &= low % 64 == 63 ? 0L : -1L << ((low & 63) + 1);
+                size = 0;
+                for (long bits : words) {
+                    size += Long.bitCount(bits);
+                }
+                if (size <= ARRAY_MAX_SIZE) toArray();
+                return;
+            }
+            int removed = rank(low);
+            System.arraycopy(values, removed, values, 0, size - removed);
+            size -= removed;
+        }
+
+        Container copy() {
+            Container copy = new Container();
+            copy.values = values == null ? null : Arrays.copyOf(values, Math.max(size, 1));
+            copy.words = words == null ? null : words.clone();
+            copy.size = size;
+            return copy;
+        }
+
+        private void toBitmap() {
+            words = new long[BITMAP_WORDS];
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        private void toArray() {
+            char[] array = new char[Math.max(size, 4)];
+            int index = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    array[index++] = (char) (word * 64 + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+            values = array;
+            words = null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.openclassrooms.mddapi.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Utility class for Deflate and gzip compression of byte arrays.
+ * 
+ * The data is compressed in the zlib or gzip format with java.util.zip, so no
+ * additional library is needed. Both formats match the "deflate" and "gzip" HTTP
+ * content codings. Deflater and Inflater instances hold native memory, and are
+ * always ended once the operation completes.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+public class CompressionUtil {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private CompressionUtil() {
+    }
+
+    /**
+     * Compresses a byte array with Deflate.
+     * 
+     * @param data the data to compress
+     * @return the compressed data
+     */
+    public static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses a byte array in the gzip format, with the default compression level.
+     * 
+     * @param data the data to compress
+     * @return the compressed data
+     */
+    public static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decompresses a byte array compressed with Deflate.
+     * 
+     * @param data the compressed data
+     * @param offset the offset of the compressed data in the array
+     * @return the decompressed data
+     * @throws IllegalArgumentException if the data is not valid Deflate data
+     */
+    public static byte[] inflate(byte[] data, int offset) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated Deflate data");
+                }
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid Deflate data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
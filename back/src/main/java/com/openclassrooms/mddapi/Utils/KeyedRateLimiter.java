@@ -0,0 +1,83 @@
+package com.openclassrooms.mddapi.Utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe token-bucket rate limiter keeping one bucket per key, such as a
+ * client address.
+ *
+ * Each bucket holds up to burst tokens and refills at a steady rate; a request
+ * takes one token and is refused when the bucket is empty. Buckets are updated
+ * atomically in a concurrent map, without a lock shared between keys. To bound
+ * memory, once the map holds more than maxKeys buckets, the buckets that have
+ * refilled completely are dropped, since a new bucket starts full anyway; if the
+ * map is still full, every bucket is dropped.
+ *
+ * @author Cécile UMECKER
+
+ */
+
+public class KeyedRateLimiter {
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param permitsPerSecond the steady rate allowed for each key
+     * @param burst the number of requests a key can send at once, at least 1
+     * @param maxKeys the number of keys tracked before idle buckets are dropped
+     */
+    public KeyedRateLimiter(double permitsPerSecond, int burst, int maxKeys) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("Expected a positive rate, burst and key count");
+        }
+        this.tokensPerNano = permitsPerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a token from the bucket of a key if one is left.
+     *
+     * @param key the key to charge
+     * @return true if the request is allowed, false if it must be refused
+     */
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        if (buckets.size() >= maxKeys && !buckets.containsKey(key)) {
+            evictIdle(now);
+        }
+        Bucket bucket = buckets.compute(key, (k, current) -> {
+            double tokens = current == null ? burst : current.tokensAt(now, tokensPerNano, burst);
+            return tokens >= 1 ? new Bucket(tokens - 1, now, true) : new Bucket(tokens, now, false);
+        });
+        return bucket.granted();
+    }
+
+    /**
+     * Returns the number of seconds after which a refused key gets a new token.
+     *
+     * @return the refill time of one token, rounded up to a whole second
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(1 / (tokensPerNano * 1_000_000_000d)));
+    }
+
+    private void evictIdle(long now) {
+        buckets.values().removeIf(bucket -> bucket.tokensAt(now, tokensPerNano, burst) >= burst);
+        if (buckets.size() >= maxKeys) {
+            buckets.clear();
+        }
+    }
+
+    private record Bucket(double tokens, long updatedAt, boolean granted) {
+
+        double tokensAt(long now, double tokensPerNano, double burst) {
+            return Math.min(burst, tokens + (now - updatedAt) * tokensPerNano);
+        }
+    }
+}
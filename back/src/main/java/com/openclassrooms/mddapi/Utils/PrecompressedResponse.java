@@ -0,0 +1,144 @@
+package com.openclassrooms.mddapi.Utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * JSON response body encoded once, along with its compressed forms.
+ * 
+ * Cached responses are compressed when they are built rather than on every
+ * request: the gzip and deflate forms are computed up front, and each is only
+ * kept when it is actually smaller than the JSON. The response then picks the
+ * form accepted by the client, preferring gzip, then deflate, then plain JSON.
+ * Brotli would need a native library, and is not offered.
+ * 
+ * The weak ETag is derived from the JSON bytes, so it is shared by every
+ * content coding of the same body, and a matching If-None-Match header is
+ * answered with 304 Not Modified.
+ * 
+ * @param json the JSON bytes
+ * @param gzip the gzip-compressed JSON bytes, or null if compression does not make them smaller
+ * @param deflate the deflate-compressed JSON bytes, or null if compression does not make them smaller
+ * @param etag the weak ETag of the body
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public record PrecompressedResponse(byte[] json, byte[] gzip, byte[] deflate, String etag) {
+
+    private static final int OVERHEAD = 128;
+
+    /**
+     * Compresses a JSON body in every supported content coding.
+     * 
+     * @param json the JSON bytes
+     * @return the PrecompressedResponse of the body
+     */
+    public static PrecompressedResponse of(byte[] json) {
+        byte[] gzip = CompressionUtil.gzip(json);
+        byte[] deflate = CompressionUtil.deflate(json);
+        return new PrecompressedResponse(json,
+                gzip.length < json.length ? gzip : null,
+                deflate.length < json.length ? deflate : null,
+                etagOf(json));
+    }
+
+    /**
+     * Wraps a JSON body without compressing it, for responses built per request.
+     * 
+     * The response still carries the ETag of the body, and is compressed on the
+     * fly by the server when the client accepts it.
+     * 
+     * @param json the JSON bytes
+     * @return the PrecompressedResponse of the body, without compressed forms
+     */
+    public static PrecompressedResponse uncompressed(byte[] json) {
+        return new PrecompressedResponse(json, null, null, etagOf(json));
+    }
+
+    /**
+     * Returns the approximate memory footprint of the response, for weighted caches.
+     * 
+     * @return the size of every stored form, in bytes
+     */
+    public long weight() {
+        return json.length + (gzip == null ? 0 : gzip.length) + (deflate == null ? 0 : deflate.length) + OVERHEAD;
+    }
+
+    /**
+     * Builds the HTTP response for a request.
+     * 
+     * @param acceptEncoding the Accept-Encoding header of the request, possibly null
+     * @param ifNoneMatch the If-None-Match header of the request, possibly null
+     * @return 304 Not Modified if the ETag matches, 200 OK with the best accepted form otherwise
+     */
+    public ResponseEntity<byte[]> toResponse(String acceptEncoding, String ifNoneMatch) {
+        if (ifNoneMatch != null && matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip != null && accepts(acceptEncoding, "gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+        }
+        if (deflate != null && accepts(acceptEncoding, "deflate")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "deflate").body(deflate);
+        }
+        return response.body(json);
+    }
+
+    /**
+     * Tells whether an Accept-Encoding header accepts a content coding.
+     * 
+     * @param acceptEncoding the Accept-Encoding header, possibly null
+     * @param coding the content coding
+     * @return true if the coding, or "*", is listed without a zero quality value
+     */
+    private static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) return false;
+        boolean wildcard = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            String name = parts[0].trim();
+            boolean refused = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+            if (name.equalsIgnoreCase(coding)) {
+                return !refused;
+            }
+            if (name.equals("*")) {
+                wildcard = !refused;
+            }
+        }
+        return wildcard;
+    }
+
+    private boolean matches(String ifNoneMatch) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(etag.substring(2))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "W/\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.openclassrooms.mddapi.controllers;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.openclassrooms.mddapi.dto.BulkReportDTO;
+import com.openclassrooms.mddapi.dto.MessageDTO;
+import com.openclassrooms.mddapi.services.BulkService;
+import com.openclassrooms.mddapi.services.FlightRecorderService;
+import com.openclassrooms.mddapi.services.UserService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller handling administration endpoints for the MDD API.
+ * 
+ * This controller exposes maintenance operations that are restricted to the
+ * administrators listed in the "admin.user-ids" property.
+ * 
+ * Key functionalities:
+ * - Bulk import of topics, posts and comments from NDJSON
+ * - Bulk export of topics, posts and comments as NDJSON
+ * - Start, dump and stop a Java Flight Recorder recording
+ * 
+ * All endpoints under this controller require authentication as an administrator
+ * and are mapped under the "/admin" path.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final BulkService bulkService;
+    private final UserService userService;
+    private final FlightRecorderService flightRecorderService;
+
+    /**
+     * Imports topics, posts and comments from an NDJSON request body.
+     * 
+     * The body is parsed incrementally, one record per line, and written to the
+     * database in chunked transactions. The response reports the number of imported
+     * and rejected records, the throughput and the peak heap usage.
+     * 
+     * @param request the HTTP request whose body contains the NDJSON records
+     * @return ResponseEntity containing the BulkReportDTO of the import (200 OK)
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/bulk/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE })
+    public ResponseEntity<BulkReportDTO> importBulk(HttpServletRequest request) throws IOException {
+        userService.requireAdmin();
+        BulkReportDTO report = bulkService.importNdjson(request.getInputStream());
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Exports all topics, posts and comments as an NDJSON response body.
+     * 
+     * Records are streamed to the client as they are read from the database, and
+     * a final "summary" line reports the throughput and peak heap usage.
+     * 
+     * @return ResponseEntity streaming the NDJSON records (200 OK)
+     */
+    @GetMapping(value = "/bulk/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBulk() {
+        userService.requireAdmin();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bulkService::exportNdjson);
+    }
+
+    /**
+     * Starts a Java Flight Recorder recording on this node.
+     * 
+     * The recording uses the JDK "profile" settings along with the request phase,
+     * token verification, repository call and DTO mapping events of the application.
+     * 
+     * @return ResponseEntity containing a confirmation message (200 OK)
+     */
+    @PostMapping("/jfr/start")
+    public ResponseEntity<MessageDTO> startRecording() {
+        userService.requireAdmin();
+        return ResponseEntity.ok(new MessageDTO(flightRecorderService.start()));
+    }
+
+    /**
+     * Dumps the events recorded so far on this node to a local file.
+     * 
+     * The recording keeps running.
+     * 
+     * @return ResponseEntity containing a message with the path of the file (200 OK)
+     */
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<MessageDTO> dumpRecording() {
+        userService.requireAdmin();
+        return ResponseEntity.ok(new MessageDTO("Recording dumped to " + flightRecorderService.dump()));
+    }
+
+    /**
+     * Stops the recording of this node and dumps its events to a local file.
+     * 
+     * @return ResponseEntity containing a message with the path of the file (200 OK)
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<MessageDTO> stopRecording() {
+        userService.requireAdmin();
+        return ResponseEntity.ok(new MessageDTO("Recording stopped and dumped to " + flightRecorderService.stop()));
+    }
+}
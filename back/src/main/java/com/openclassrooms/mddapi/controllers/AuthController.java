@@ -1,17 +1,23 @@
 package com.openclassrooms.mddapi.controllers;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.openclassrooms.mddapi.Utils.CookieUtil;
+import com.openclassrooms.mddapi.Utils.KeyedRateLimiter;
+import com.openclassrooms.mddapi.dto.AvailabilityDTO;
 import com.openclassrooms.mddapi.dto.LoginDTO;
 import com.openclassrooms.mddapi.dto.MessageDTO;
 import com.openclassrooms.mddapi.dto.RegisterDTO;
 import com.openclassrooms.mddapi.services.AuthService;
 
 import jakarta.servlet.http.HttpServletRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Controller handling authentication-related endpoints.
@@ -26,6 +32,7 @@ import lombok.RequiredArgsConstructor;
  * - New user registration 
  * - Access token refresh using refresh token
  * - User logout with cookie cleanup
+ * - Username and email availability checks
  * 
  * @author Cécile UMECKER
  
@@ -33,10 +40,21 @@ import lombok.RequiredArgsConstructor;
 
 @RestController
 @RequestMapping("/auth")
-@RequiredArgsConstructor
 public class AuthController {
   
   private final AuthService authService;
+  private final KeyedRateLimiter availabilityLimiter;
+  private final Counter availabilityThrottled;
+
+  public AuthController(AuthService authService,
+                        @Value("${auth.availability.permits-per-second:2}") double permitsPerSecond,
+                        @Value("${auth.availability.burst:20}") int burst,
+                        @Value("${auth.availability.max-clients:100000}") int maxClients,
+                        MeterRegistry meterRegistry) {
+    this.authService = authService;
+    this.availabilityLimiter = new KeyedRateLimiter(permitsPerSecond, burst, maxClients);
+    this.availabilityThrottled = meterRegistry.counter("auth.availability.throttled");
+  }
 
     /**
      * Authenticates a user with their credentials.
@@ -80,6 +98,34 @@ public class AuthController {
         }
     }
 
+    /**
+     * Checks whether a username and/or an email are still available.
+     * 
+     * This public endpoint lets the registration form validate values as they are
+     * typed. Most answers are served from memory by the UserIdentifierFilter.
+     * Each client address is rate limited, so the endpoint cannot be used to
+     * enumerate the registered emails. Behind a proxy, the client address is
+     * read from the forwarded headers (see "server.forward-headers-strategy").
+     * 
+     * @param username the username to check (optional)
+     * @param email the email to check (optional)
+     * @param request the HTTP request, whose remote address is rate limited
+     * @return ResponseEntity with the availability of each requested value (200 OK),
+     *         or 429 Too Many Requests with a Retry-After header
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityDTO> availability(@RequestParam(required = false) String username,
+                                                        @RequestParam(required = false) String email,
+                                                        HttpServletRequest request) {
+        if (!availabilityLimiter.tryAcquire(request.getRemoteAddr())) {
+            availabilityThrottled.increment();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(availabilityLimiter.retryAfterSeconds()))
+                    .build();
+        }
+        return ResponseEntity.ok(authService.checkAvailability(username, email));
+    }
+
     /**
      * Refreshes the user's access token using a valid refresh token.
      * 
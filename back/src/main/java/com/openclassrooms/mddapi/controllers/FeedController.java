@@ -1,9 +1,12 @@
 package com.openclassrooms.mddapi.controllers;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.openclassrooms.mddapi.dto.FeedPostDTO;
+import com.openclassrooms.mddapi.dto.FieldSelection;
 import com.openclassrooms.mddapi.services.FeedService;
 
 import lombok.RequiredArgsConstructor;
@@ -34,16 +37,28 @@ public class FeedController {
      * sorted by creation date (newest first) by default. The results are paginated to improve
      * performance and user experience when dealing with large amounts of content.
      * 
+     * When the "fields" parameter lists some FeedPostDTO properties (for example
+     * "fields=id,title"), only these properties are queried and serialized, and the
+     * page is wrapped in the slimmer PagedModel envelope, holding the content and a
+     * "page" object with the size, number, total elements and total pages.
+     * 
      * @param page the page number to retrieve (zero-based index), defaults to 0
      * @param size the number of items per page, defaults to 10
-     * @param sort optional sort parameter in format "field,direction" (e.g., "createdAt,desc")
+     * @param sort optional sort mode: new (default), old, hot, top or discussed
+     * @param fields optional comma-separated list of the FeedPostDTO properties to return
      * @return a Page containing FeedPostDTO objects with post details and metadata
      */
     @GetMapping
-    public Page<FeedPostDTO> getFeed(
+    public ResponseEntity<Object> getFeed(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String sort) {
-        return feedService.getFeed(page, size, sort);
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String fields) {
+        FieldSelection selection = FieldSelection.fromParam(fields, FeedPostDTO.FIELDS);
+        Page<FeedPostDTO> feed = feedService.getFeed(page, size, sort, selection);
+        if (selection.isAll()) {
+            return ResponseEntity.ok(feed);
+        }
+        return ResponseEntity.ok(selection.apply(new PagedModel<>(feed)));
     }
 }
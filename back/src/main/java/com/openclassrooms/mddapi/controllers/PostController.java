@@ -1,14 +1,23 @@
 package com.openclassrooms.mddapi.controllers;
 
+import com.openclassrooms.mddapi.Utils.PrecompressedResponse;
+import com.openclassrooms.mddapi.dto.BatchItemDTO;
 import com.openclassrooms.mddapi.dto.CommentRequestDTO;
 import com.openclassrooms.mddapi.dto.CommentResponseDTO;
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.MarkReadRequestDTO;
+import com.openclassrooms.mddapi.dto.MessageDTO;
 import com.openclassrooms.mddapi.dto.PostRequestDTO;
 import com.openclassrooms.mddapi.dto.PostResponseDTO;
+import com.openclassrooms.mddapi.services.IdempotencyService;
+import com.openclassrooms.mddapi.services.PostDetailCache;
 import com.openclassrooms.mddapi.services.PostService;
+import com.openclassrooms.mddapi.services.PostViewCounter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,7 +29,9 @@ import org.springframework.web.bind.annotation.*;
  * for discussions and information sharing.
  * 
  * Key functionalities:
- * - Retrieve individual posts by ID
+ * - Retrieve individual posts by ID, counting their views
+ * - Retrieve several posts, or their comment counts, in one request
+ * - Mark posts as read
  * - Create new posts within topics
  * - Retrieve comments for a specific post
  * - Add comments to posts
@@ -37,20 +48,95 @@ import org.springframework.web.bind.annotation.*;
 public class PostController {
 
     private final PostService postService;
+    private final PostDetailCache postDetailCache;
+    private final PostViewCounter postViewCounter;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Retrieves a specific post by its unique identifier.
      * 
      * This endpoint fetches detailed information about a post including its title,
-     * content, author, topic, and creation date.
+     * content, author, topic, and creation date. The response is served from the
+     * PostDetailCache, which holds the already encoded JSON along with its gzip and
+     * deflate forms, sent when the client accepts them. A request whose
+     * If-None-Match header matches the ETag is answered with 304 Not Modified. When
+     * the "fields" parameter lists some properties (for example "fields=id,title"),
+     * only these are queried and returned, and the cache is bypassed. Each
+     * successful request counts as a view of the post (see PostViewCounter).
      * 
      * @param id the unique identifier of the post to retrieve
-     * @return ResponseEntity containing the PostResponseDTO with post details (200 OK)
+     * @param fields optional comma-separated list of the PostResponseDTO properties to return
+     * @param acceptEncoding the Accept-Encoding header of the request, if any
+     * @param ifNoneMatch the If-None-Match header of the request, if any
+     * @return ResponseEntity containing the JSON of the PostResponseDTO with post details (200 OK)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<PostResponseDTO> getPostById(@PathVariable Long id) {
-        PostResponseDTO post = postService.getPostById(id);
-        return ResponseEntity.ok(post);
+    public ResponseEntity<?> getPostById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        FieldSelection selection = FieldSelection.fromParam(fields, PostResponseDTO.FIELDS);
+        if (!selection.isAll()) {
+            PostResponseDTO post = postService.getPostById(id, selection);
+            postViewCounter.record(id);
+            return ResponseEntity.ok(selection.apply(post));
+        }
+
+        PrecompressedResponse post = postDetailCache.get(id, () -> postService.getPostById(id));
+        postViewCounter.record(id);
+        return post.toResponse(acceptEncoding, ifNoneMatch);
+    }
+
+    /**
+     * Retrieves several posts by their unique identifiers.
+     * 
+     * This endpoint lets the client load a whole page of posts in a single request
+     * (for example "/post?ids=3,1,2"). The results follow the order of the requested
+     * IDs, with found set to false for the posts that do not exist.
+     * 
+     * The "fields" parameter restricts the properties of the returned posts.
+     * 
+     * @param ids the unique identifiers of the posts to retrieve
+     * @param fields optional comma-separated list of the PostResponseDTO properties to return
+     * @return ResponseEntity containing one BatchItemDTO per requested ID (200 OK)
+     */
+    @GetMapping
+    public ResponseEntity<Object> getPostsByIds(@RequestParam List<Long> ids,
+                                                @RequestParam(required = false) String fields) {
+        FieldSelection selection = FieldSelection.fromParam(fields, PostResponseDTO.FIELDS);
+        return ResponseEntity.ok(selection.apply(postService.getPostsByIds(ids, selection)));
+    }
+
+    /**
+     * Retrieves the comment counts of several posts.
+     * 
+     * The results follow the order of the requested IDs, with found set to false
+     * for the posts that do not exist.
+     * 
+     * @param ids the unique identifiers of the posts
+     * @return ResponseEntity containing one BatchItemDTO per requested ID (200 OK)
+     */
+    @GetMapping("/comment-counts")
+    public ResponseEntity<List<BatchItemDTO<Integer>>> getCommentCounts(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(postService.getCommentCounts(ids));
+    }
+
+    /**
+     * Marks several posts as read by the current user.
+     * 
+     * This endpoint lets the client report every post read since its previous call,
+     * for example a whole feed page, in a single request. The read states are
+     * written in batches, so the unread counts of the topics are updated right
+     * away on this node, and in the database shortly after.
+     * 
+     * @param request the mark-as-read request listing the read post IDs
+     * @return ResponseEntity containing a confirmation message (200 OK)
+     */
+    @PostMapping("/read")
+    public ResponseEntity<MessageDTO> markPostsRead(@RequestBody MarkReadRequestDTO request) {
+        postService.markPostsRead(request.getPostIds() == null ? List.of() : request.getPostIds());
+        return ResponseEntity.ok(new MessageDTO("Posts marked as read"));
     }
 
     /**
@@ -60,13 +146,22 @@ public class PostController {
      * and content, associated with a particular topic. The post is automatically
      * linked to the authenticated user as the author.
      * 
+     * With an Idempotency-Key header, a retry of the request returns the response
+     * of the first execution instead of creating another post (see IdempotencyService).
+     * 
      * @param postRequest the post creation request containing title, content, and topic ID
+     * @param idempotencyKey the Idempotency-Key header of the request, if any
      * @return ResponseEntity containing the created PostResponseDTO (200 OK)
      */
     @PostMapping
-    public ResponseEntity<PostResponseDTO> createPost(@RequestBody PostRequestDTO postRequest) {
-        PostResponseDTO post = postService.createPost(postRequest);
-        return ResponseEntity.ok(post);
+    public ResponseEntity<?> createPost(
+            @RequestBody PostRequestDTO postRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(postService.createPost(postRequest));
+        }
+        return idempotencyService.execute(idempotencyKey, "POST /post", postRequest,
+                () -> postService.createPost(postRequest)).toResponse();
     }
 
     /**
@@ -92,15 +187,23 @@ public class PostController {
      * facilitating discussions and feedback. The comment is automatically linked
      * to the authenticated user as the author and the specified post.
      * 
+     * With an Idempotency-Key header, a retry of the request returns the response
+     * of the first execution instead of adding another comment (see IdempotencyService).
+     * 
      * @param id the unique identifier of the post to comment on
      * @param commentRequest the comment creation request containing the comment content
+     * @param idempotencyKey the Idempotency-Key header of the request, if any
      * @return ResponseEntity containing the created CommentResponseDTO (200 OK)
      */
     @PostMapping("/{id}/comments")
-    public ResponseEntity<CommentResponseDTO> addCommentToPost(
+    public ResponseEntity<?> addCommentToPost(
             @PathVariable Long id,
-            @RequestBody CommentRequestDTO commentRequest) {
-        CommentResponseDTO comment = postService.addCommentToPost(id, commentRequest);
-        return ResponseEntity.ok(comment);
+            @RequestBody CommentRequestDTO commentRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(postService.addCommentToPost(id, commentRequest));
+        }
+        return idempotencyService.execute(idempotencyKey, "POST /post/" + id + "/comments", commentRequest,
+                () -> postService.addCommentToPost(id, commentRequest)).toResponse();
     }
 }
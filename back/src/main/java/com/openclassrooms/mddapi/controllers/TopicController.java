@@ -1,8 +1,14 @@
 package com.openclassrooms.mddapi.controllers;
 
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.MessageDTO;
+import com.openclassrooms.mddapi.dto.SubscriptionChangesDTO;
 import com.openclassrooms.mddapi.dto.TopicWithSubscriptionDTO;
+import com.openclassrooms.mddapi.services.PostService;
+import com.openclassrooms.mddapi.services.TopicCatalogCache;
 import com.openclassrooms.mddapi.services.TopicService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,9 +23,13 @@ import java.util.List;
  * 
  * Key functionalities:
  * - Retrieve all available topics with subscription status
- * - Retrieve topics the current user is subscribed to
+ * - Retrieve the precompressed topic catalog shared by every user
+ * - Retrieve topics the current user is subscribed to, with their unread counts
+ * - List the posts of a topic, with keyset pagination
+ * - Mark every post of a topic as read
  * - Subscribe to topics
  * - Unsubscribe from topics
+ * - Apply several subscription changes at once
  * 
  * All endpoints under this controller require authentication and are mapped
  * under the "/topic" path.
@@ -33,6 +43,8 @@ import java.util.List;
 public class TopicController {
 
     private final TopicService topicService;
+    private final TopicCatalogCache topicCatalogCache;
+    private final PostService postService;
 
     /**
      * Retrieves all available topics with subscription status for the current user.
@@ -41,12 +53,36 @@ public class TopicController {
      * topic indicating whether the authenticated user is currently subscribed to it.
      * This allows the UI to display all topics with appropriate subscription indicators.
      * 
+     * The "fields" parameter restricts the returned properties (for example "fields=id,title").
+     * 
+     * @param fields optional comma-separated list of the TopicWithSubscriptionDTO properties to return
      * @return ResponseEntity containing a list of TopicWithSubscriptionDTO objects (200 OK)
      */
     @GetMapping
-    public ResponseEntity<List<TopicWithSubscriptionDTO>> getAllTopics() {
-        List<TopicWithSubscriptionDTO> topics = topicService.getAllTopicsWithSubscriptionFlag();
-        return ResponseEntity.ok(topics);
+    public ResponseEntity<Object> getAllTopics(@RequestParam(required = false) String fields) {
+        FieldSelection selection = FieldSelection.fromParam(fields, TopicWithSubscriptionDTO.FIELDS);
+        List<TopicWithSubscriptionDTO> topics = topicService.getAllTopicsWithSubscriptionFlag(selection);
+        return ResponseEntity.ok(selection.apply(topics));
+    }
+
+    /**
+     * Retrieves the topic catalog, shared by every user.
+     * 
+     * This endpoint lists every topic with its ID, title and description, without
+     * the subscription flag, so the response is the same for every user. It is served
+     * from the TopicCatalogCache, which holds the already encoded JSON along with its
+     * gzip and deflate forms, sent when the client accepts them. A request whose
+     * If-None-Match header matches the ETag is answered with 304 Not Modified.
+     * 
+     * @param acceptEncoding the Accept-Encoding header of the request, if any
+     * @param ifNoneMatch the If-None-Match header of the request, if any
+     * @return ResponseEntity containing the JSON list of the topics (200 OK), or 304 Not Modified
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<byte[]> getCatalog(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return topicCatalogCache.get().toResponse(acceptEncoding, ifNoneMatch);
     }
 
     /**
@@ -56,12 +92,56 @@ public class TopicController {
      * an active subscription. These subscribed topics determine which posts appear
      * in the user's personalized feed.
      * 
+     * The "fields" parameter restricts the returned properties (for example "fields=id,title").
+     * 
+     * @param fields optional comma-separated list of the TopicWithSubscriptionDTO properties to return
      * @return ResponseEntity containing a list of subscribed TopicWithSubscriptionDTO objects (200 OK)
      */
     @GetMapping("/my")
-    public ResponseEntity<List<TopicWithSubscriptionDTO>> getMyTopics() {
-        List<TopicWithSubscriptionDTO> topics = topicService.getUserSubscribedTopics();
-        return ResponseEntity.ok(topics);
+    public ResponseEntity<Object> getMyTopics(@RequestParam(required = false) String fields) {
+        FieldSelection selection = FieldSelection.fromParam(fields, TopicWithSubscriptionDTO.FIELDS);
+        List<TopicWithSubscriptionDTO> topics = topicService.getUserSubscribedTopics(selection);
+        return ResponseEntity.ok(selection.apply(topics));
+    }
+
+    /**
+     * Lists the posts of a topic, newest first, with keyset pagination.
+     * 
+     * The first page is requested without cursor, and each following one with the
+     * "before" parameter set to the nextCursor of the previous page, which is null
+     * on the last page. Every page carries a weak ETag, and a request whose
+     * If-None-Match header matches it is answered with 304 Not Modified.
+     * 
+     * @param id the unique identifier of the topic
+     * @param before optional cursor returned with the previous page
+     * @param size the number of posts per page, defaults to 10
+     * @param acceptEncoding the Accept-Encoding header of the request, if any
+     * @param ifNoneMatch the If-None-Match header of the request, if any
+     * @return ResponseEntity containing the JSON CursorPageDTO of FeedPostDTO objects (200 OK), or 304 Not Modified
+     */
+    @GetMapping("/{id}/posts")
+    public ResponseEntity<byte[]> getTopicPosts(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return postService.getTopicPosts(id, before, size).toResponse(acceptEncoding, ifNoneMatch);
+    }
+
+    /**
+     * Marks every current post of a topic as read by the current user.
+     * 
+     * This endpoint resets the unread count of the topic, for example when the user
+     * dismisses its "new posts" badge.
+     * 
+     * @param id the unique identifier of the topic
+     * @return ResponseEntity containing a confirmation message (200 OK)
+     */
+    @PostMapping("/{id}/read")
+    public ResponseEntity<MessageDTO> markTopicRead(@PathVariable Long id) {
+        topicService.markTopicRead(id);
+        return ResponseEntity.ok(new MessageDTO("Topic marked as read"));
     }
 
     /**
@@ -80,6 +160,21 @@ public class TopicController {
         return ResponseEntity.ok(updatedTopic);
     }
 
+    /**
+     * Applies several subscription changes of the current user at once.
+     * 
+     * This endpoint subscribes to and unsubscribes from several topics in a single
+     * request (for example {"subscribe": [1, 2], "unsubscribe": [3]}), each direction
+     * being applied in one statement. Unknown topics are ignored.
+     * 
+     * @param changes the IDs of the topics to subscribe to and unsubscribe from
+     * @return ResponseEntity containing the list of subscribed TopicWithSubscriptionDTO objects (200 OK)
+     */
+    @PostMapping("/subscriptions")
+    public ResponseEntity<List<TopicWithSubscriptionDTO>> updateSubscriptions(@RequestBody SubscriptionChangesDTO changes) {
+        return ResponseEntity.ok(topicService.updateSubscriptions(changes));
+    }
+
     /**
      * Unsubscribes the current user from a specific topic.
      * 
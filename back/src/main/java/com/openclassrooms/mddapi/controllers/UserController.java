@@ -1,9 +1,14 @@
 package com.openclassrooms.mddapi.controllers;
 
 import com.openclassrooms.mddapi.dto.*;
+import com.openclassrooms.mddapi.services.PostService;
 import com.openclassrooms.mddapi.services.UserService;
 
 import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +22,8 @@ import org.springframework.web.bind.annotation.*;
  * Key functionalities:
  * - Retrieve current user's profile information
  * - Update current user's profile (username, email, password)
+ * - Retrieve the public information (ID and username) of several users
+ * - List the posts of a user, with keyset pagination
  * 
  * All endpoints under this controller require authentication and are mapped
  * under the "/user" path. Users can only access and modify their own profile.
@@ -30,6 +37,7 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final PostService postService;
 
     /**
      * Retrieves the profile information of the currently authenticated user.
@@ -46,6 +54,45 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    /**
+     * Retrieves the public information of several users.
+     * 
+     * The results follow the order of the requested IDs (for example
+     * "/user?ids=2,1"), with found set to false for the users that do not exist.
+     * 
+     * @param ids the IDs of the users to retrieve
+     * @return ResponseEntity containing one BatchItemDTO per requested ID (200 OK)
+     */
+    @GetMapping
+    public ResponseEntity<List<BatchItemDTO<UserSummaryDTO>>> getUsersByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
+    /**
+     * Lists the posts of a user, newest first, with keyset pagination.
+     * 
+     * The first page is requested without cursor, and each following one with the
+     * "before" parameter set to the nextCursor of the previous page, which is null
+     * on the last page. Every page carries a weak ETag, and a request whose
+     * If-None-Match header matches it is answered with 304 Not Modified.
+     * 
+     * @param id the unique identifier of the user
+     * @param before optional cursor returned with the previous page
+     * @param size the number of posts per page, defaults to 10
+     * @param acceptEncoding the Accept-Encoding header of the request, if any
+     * @param ifNoneMatch the If-None-Match header of the request, if any
+     * @return ResponseEntity containing the JSON CursorPageDTO of FeedPostDTO objects (200 OK), or 304 Not Modified
+     */
+    @GetMapping("/{id}/posts")
+    public ResponseEntity<byte[]> getUserPosts(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return postService.getUserPosts(id, before, size).toResponse(acceptEncoding, ifNoneMatch);
+    }
+
     /**
      * Updates the profile information of the currently authenticated user.
      * 
@@ -0,0 +1,24 @@
+package com.openclassrooms.mddapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.*;
+
+/**
+ * Data Transfer Object for username and email availability responses.
+ * 
+ * Each field tells whether the corresponding value is still free. Fields for
+ * values that were not requested are omitted.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityDTO {
+
+    private Boolean username;
+    private Boolean email;
+}
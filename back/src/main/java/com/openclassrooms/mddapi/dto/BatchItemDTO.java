@@ -0,0 +1,26 @@
+package com.openclassrooms.mddapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.*;
+
+/**
+ * Data Transfer Object for one result of a multi-get request.
+ * 
+ * Multi-get endpoints return one item per requested ID, in request order. Items
+ * for IDs that do not exist have "found" set to false and no data.
+ * 
+ * @param <T> the type of the data returned for each ID
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemDTO<T> {
+
+    private Long id;
+    private boolean found;
+    private T data;
+}
@@ -0,0 +1,31 @@
+package com.openclassrooms.mddapi.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for a single line of an NDJSON bulk import or export.
+ * 
+ * Each line carries one record whose "type" field is either "topic", "post"
+ * or "comment". Only the fields relevant to that type are populated; the others
+ * are omitted from the serialized output.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkRecordDTO {
+    private String type;
+    private Long id;
+    private String title;
+    private String description;
+    private String content;
+    private Long topicId;
+    private Long userId;
+    private Long postId;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.mddapi.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object summarizing a bulk import or export run.
+ * 
+ * This DTO reports how many records of each type were processed, the rejected
+ * lines with their reasons, the overall throughput and the peak heap usage
+ * observed while the run was in progress.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+public class BulkReportDTO {
+    private long linesRead;
+    private long topics;
+    private long posts;
+    private long comments;
+    private long rejected;
+    private boolean aborted;
+    private List<String> errors = new ArrayList<>();
+    private long elapsedMs;
+    private double recordsPerSecond;
+    private long peakHeapBytes;
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.mddapi.dto;
+
+import java.util.List;
+
+import lombok.*;
+
+/**
+ * Data Transfer Object for one page of a keyset-paginated listing.
+ * 
+ * Keyset-paginated endpoints return the items following a cursor rather than
+ * an offset, so deep pages cost the same as the first one, and items added in
+ * the meantime do not shift the pages. The next page is requested by passing
+ * nextCursor back as the "before" parameter; it is null on the last page.
+ * 
+ * @param <T> the type of the listed items
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private Long nextCursor;
+}
@@ -1,6 +1,9 @@
 package com.openclassrooms.mddapi.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
 
 import lombok.Data;
 
@@ -14,7 +17,14 @@ import lombok.Data;
  
  */
 @Data
+@JsonFilter(FieldSelection.FILTER_ID)
 public class FeedPostDTO {
+
+    /**
+     * The properties that can be selected with the "fields" request parameter.
+     */
+    public static final List<String> FIELDS = List.of("id", "title", "authorName", "contentPreview", "createdAt");
+
     private Long id;
     private String title;
     private String authorName;
@@ -0,0 +1,79 @@
+package com.openclassrooms.mddapi.dto;
+
+import java.util.Locale;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Named sort modes accepted by the feed endpoint.
+ * 
+ * Each mode maps to a column of the post table, with the post ID as a
+ * tie-breaker. Every column has a (topic_id, column) index, which finds the posts
+ * of the subscribed topics without a table scan. With several topics, the index
+ * cannot return the rows of the IN list in the sort order, so the matching posts
+ * are still sorted (a filesort in MySQL); the cost grows with the number of
+ * posts in the subscribed topics, which the FeedPageCache absorbs for the first
+ * pages:
+ * - new: most recent posts first (default)
+ * - old: oldest posts first
+ * - hot: posts with recent activity first, based on a decaying score
+ * - top: posts with the most comments first
+ * - discussed: posts with the most recent comments first, based on a decaying score
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public enum FeedSortMode {
+
+    NEW(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"))),
+    OLD(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id"))),
+    HOT(Sort.by(Sort.Order.desc("hotScore"), Sort.Order.desc("id"))),
+    TOP(Sort.by(Sort.Order.desc("commentCount"), Sort.Order.desc("id"))),
+    DISCUSSED(Sort.by(Sort.Order.desc("discussionScore"), Sort.Order.desc("id")));
+
+    private final Sort sort;
+
+    FeedSortMode(Sort sort) {
+        this.sort = sort;
+    }
+
+    /**
+     * Returns the Spring Data sort matching this mode.
+     * 
+     * @return the sort to apply to the feed query
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Resolves a sort mode from the "sort" request parameter.
+     * 
+     * A missing parameter selects NEW. The legacy "createdAt,desc" and
+     * "createdAt,asc" values are still accepted and map to NEW and OLD.
+     * 
+     * @param value the request parameter value, may be null
+     * @return the matching FeedSortMode
+     * @throws ResponseStatusException with 400 status if the value is not a known sort mode
+     */
+    public static FeedSortMode fromParam(String value) {
+        if (value == null || value.isBlank()) return NEW;
+
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        switch (normalized) {
+            case "createdat,desc": return NEW;
+            case "createdat,asc": return OLD;
+            default:
+        }
+
+        for (FeedSortMode mode : values()) {
+            if (mode.name().toLowerCase(Locale.ROOT).equals(normalized)) {
+                return mode;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Unknown sort mode, expected one of: new, old, hot, top, discussed");
+    }
+}
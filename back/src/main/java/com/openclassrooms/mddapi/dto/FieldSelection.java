@@ -0,0 +1,112 @@
+package com.openclassrooms.mddapi.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Selection of the DTO properties requested through the "fields" request parameter.
+ * 
+ * The feed, post and topic endpoints accept a comma-separated list of property
+ * names (for example "fields=id,title"). The selection drives both the projection
+ * of the database query, so unrequested columns and joins are skipped, and the
+ * serialization of the response: DTOs annotated with @JsonFilter(FILTER_ID) only
+ * write the selected properties. Without the parameter, every property is selected.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public final class FieldSelection {
+
+    public static final String FILTER_ID = "fields";
+
+    private static final FieldSelection ALL = new FieldSelection(null);
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Resolves a field selection from the "fields" request parameter.
+     * 
+     * @param value the request parameter value, may be null
+     * @param allowed the properties of the returned DTO, in declaration order
+     * @return the matching FieldSelection, selecting every property if the value is missing
+     * @throws ResponseStatusException with 400 status if a field is not a property of the DTO
+     */
+    public static FieldSelection fromParam(String value, List<String> allowed) {
+        if (value == null || value.isBlank()) return ALL;
+
+        Set<String> requested = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String field : requested) {
+            if (!allowed.contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + field + "', expected some of: " + String.join(", ", allowed));
+            }
+        }
+        if (requested.isEmpty() || requested.containsAll(allowed)) return ALL;
+
+        // Keep the declaration order, so equal selections have equal keys.
+        Set<String> ordered = allowed.stream()
+                .filter(requested::contains)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new FieldSelection(Collections.unmodifiableSet(ordered));
+    }
+
+    /**
+     * Tells whether every property is selected.
+     * 
+     * @return true if the "fields" parameter was missing or listed every property
+     */
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    /**
+     * Tells whether a property is selected.
+     * 
+     * @param field the name of the property
+     * @return true if the property is selected
+     */
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Returns a canonical key of the selection, suitable for cache keys.
+     * 
+     * @return "*" if every property is selected, the selected properties otherwise
+     */
+    public String key() {
+        return fields == null ? "*" : String.join(",", fields);
+    }
+
+    /**
+     * Wraps a response body so that only the selected properties are serialized.
+     * 
+     * @param body the response body
+     * @return the body itself if every property is selected, a MappingJacksonValue otherwise
+     */
+    public Object apply(Object body) {
+        if (fields == null) return body;
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        return value;
+    }
+}
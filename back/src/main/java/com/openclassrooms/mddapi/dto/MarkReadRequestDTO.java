@@ -0,0 +1,19 @@
+package com.openclassrooms.mddapi.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for mark-as-read requests.
+ * 
+ * This DTO lists the posts the user has read, so the client can report
+ * several posts, for example a whole feed page, in a single request.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+public class MarkReadRequestDTO {
+    private List<Long> postIds;
+}
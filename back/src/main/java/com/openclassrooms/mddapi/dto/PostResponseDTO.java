@@ -1,26 +1,41 @@
 package com.openclassrooms.mddapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import lombok.Builder;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Data Transfer Object for post responses.
  * 
  * This DTO encapsulates complete post data returned to clients,
- * including content, author information, topic details, and timestamps.
+ * including content, author information, topic details, timestamps and view count.
  * 
  * @author Cécile UMECKER
  
  */
 @Data
 @Builder
+@JsonFilter(FieldSelection.FILTER_ID)
 public class PostResponseDTO {
+
+    /**
+     * The properties that can be selected with the "fields" request parameter.
+     */
+    public static final List<String> FIELDS = List.of("id", "title", "content", "authorName", "topicTitle", "createdAt", "viewCount");
+
     private Long id;
     private String title;
     private String content;
     private String authorName;
     private String topicTitle;
     private LocalDateTime createdAt;
+
+    /**
+     * The stored view count, plus the views not yet flushed by this node.
+     */
+    private Long viewCount;
 }
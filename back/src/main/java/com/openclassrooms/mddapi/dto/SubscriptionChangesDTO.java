@@ -0,0 +1,21 @@
+package com.openclassrooms.mddapi.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for bulk subscription changes.
+ * 
+ * This DTO lists the topics the user subscribes to and unsubscribes from,
+ * so that several changes, for example from a topic selection screen, are
+ * applied in a single request.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+public class SubscriptionChangesDTO {
+    private List<Long> subscribe;
+    private List<Long> unsubscribe;
+}
@@ -1,20 +1,36 @@
 package com.openclassrooms.mddapi.dto;
 
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.Data;
 
 /**
  * Data Transfer Object for topic responses with subscription status.
  * 
  * This DTO encapsulates topic information along with a flag indicating
- * whether the current user is subscribed to the topic.
+ * whether the current user is subscribed to the topic and, for subscribed
+ * topics, the number of posts the user has not read yet.
  * 
  * @author Cécile UMECKER
  
  */
 @Data
+@JsonFilter(FieldSelection.FILTER_ID)
 public class TopicWithSubscriptionDTO {
+
+    /**
+     * The properties that can be selected with the "fields" request parameter.
+     */
+    public static final List<String> FIELDS = List.of("id", "title", "description", "subscribed", "unreadCount");
+
     private Long id;
     private String title;
     private String description;
     private boolean subscribed;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long unreadCount;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.*;
+
+/**
+ * Data Transfer Object for the public information of a user.
+ * 
+ * Unlike UserResponseDTO, it does not include the email address, so it can be
+ * returned for any user.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+
+    private Long id;
+    private String username;
+}
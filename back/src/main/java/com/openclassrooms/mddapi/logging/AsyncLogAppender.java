@@ -0,0 +1,169 @@
+package com.openclassrooms.mddapi.logging;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * Logback appender handing log events over to a background thread through a
+ * bounded ring buffer.
+ * 
+ * The request thread only copies the event into a fixed-size array queue, and a
+ * single worker thread formats and writes the events to the attached appenders, in
+ * batches. The request thread never blocks: when the buffer is full, the event is
+ * dropped and counted. The drop count is exposed as the "logging.async.dropped"
+ * metric by AsyncLogMetrics.
+ * 
+ * Caller data (file and line number) is not captured, since computing it on the
+ * request thread is what this appender is meant to avoid.
+ * 
+ * Configuration, in logback-spring.xml:
+ * - queueSize: capacity of the ring buffer (default 8192)
+ * - maxFlushTime: milliseconds to wait for the buffer to drain on shutdown (default 1000)
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class AsyncLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private int queueSize = 8192;
+    private int maxFlushTime = 1000;
+    private volatile ArrayBlockingQueue<ILoggingEvent> queue;
+    private Thread worker;
+
+    /**
+     * Returns the number of events dropped by all the async appenders because their
+     * buffer was full.
+     * 
+     * @return the total number of dropped events since startup
+     */
+    public static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * Returns the number of events waiting in the buffer of this appender.
+     * 
+     * @return the number of buffered events
+     */
+    public int getQueuedCount() {
+        ArrayBlockingQueue<ILoggingEvent> current = queue;
+        return current == null ? 0 : current.size();
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) return;
+        if (queueSize < 1) {
+            addError("Invalid queue size " + queueSize);
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        worker = new Thread(this::drain, "async-log-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) return;
+        super.stop();
+        try {
+            worker.join(maxFlushTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn("Dropped " + queue.size() + " events still buffered after " + maxFlushTime + " ms");
+            worker.interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (!queue.offer(event)) {
+            DROPPED.increment();
+        }
+    }
+
+    private void drain() {
+        List<ILoggingEvent> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        while (isStarted() || !queue.isEmpty()) {
+            try {
+                ILoggingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH_SIZE - 1);
+                for (ILoggingEvent event : batch) {
+                    appenders.appendLoopOnAppenders(event);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                addError("Failed to write log events", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.mddapi.logging;
+
+import java.util.Iterator;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Metrics of the asynchronous logging pipeline.
+ * 
+ * - logging.async.dropped: events dropped because the ring buffer was full
+ * - logging.async.queued: events waiting in the ring buffer of the root logger's appenders
+ * 
+ * Both stay at zero when the "async-log" profile is not active.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class AsyncLogMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("logging.async.dropped", this, metrics -> AsyncLogAppender.getDroppedCount())
+                .description("Log events dropped because the async appender buffer was full")
+                .register(registry);
+        Gauge.builder("logging.async.queued", this, AsyncLogMetrics::queuedCount)
+                .description("Log events waiting to be written by the async appenders")
+                .register(registry);
+    }
+
+    private double queuedCount() {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) return 0;
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        int queued = 0;
+        for (Iterator<Appender<ILoggingEvent>> it = root.iteratorForAppenders(); it.hasNext(); ) {
+            if (it.next() instanceof AsyncLogAppender appender) {
+                queued += appender.getQueuedCount();
+            }
+        }
+        return queued;
+    }
+}
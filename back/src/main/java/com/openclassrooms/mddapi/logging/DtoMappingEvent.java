@@ -0,0 +1,35 @@
+package com.openclassrooms.mddapi.logging;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event timing the mapping of entities or projections to DTOs.
+ * 
+ * One event covers the mapping of a whole list, such as a feed page or the
+ * comments of a post, rather than each item.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Name("com.openclassrooms.mddapi.DtoMapping")
+@Label("DTO Mapping")
+@Category({ "MDD API", "Mapping" })
+@Description("Mapping of a list of entities or projections to DTOs")
+@StackTrace(false)
+public class DtoMappingEvent extends Event {
+
+    @Label("DTO Type")
+    public String dtoType;
+
+    @Label("Item Count")
+    public int itemCount;
+
+    public DtoMappingEvent(Class<?> dtoType) {
+        this.dtoType = dtoType.getSimpleName();
+    }
+}
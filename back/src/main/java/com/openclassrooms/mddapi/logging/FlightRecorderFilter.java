@@ -0,0 +1,51 @@
+package com.openclassrooms.mddapi.logging;
+
+import java.io.IOException;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter emitting a "request" RequestPhaseEvent for every HTTP request.
+ * 
+ * The filter runs first, so the event covers the other filters, including the
+ * concurrency limit and the authentication, along with the handler. While no JFR
+ * recording enables the event, a request costs a single check.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FlightRecorderFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestPhaseEvent event = new RequestPhaseEvent("request");
+        if (!event.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        event.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.path = request.getServletPath();
+                event.status = response.getStatus();
+                event.commit();
+            }
+        }
+    }
+}
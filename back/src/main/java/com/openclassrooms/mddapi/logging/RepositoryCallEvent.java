@@ -0,0 +1,39 @@
+package com.openclassrooms.mddapi.logging;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event timing a call to a Spring Data repository.
+ * 
+ * The query is named after the repository and its method, such as
+ * "PostRepository.findByTopicIdIn". The row count is the number of entities or
+ * projections returned, 1 or 0 for single results, and -1 when it is unknown,
+ * as for streams and modifying queries.
+ * 
+ * The events are emitted by the RepositoryEventInterceptor, installed on every
+ * repository of the application.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Name("com.openclassrooms.mddapi.RepositoryCall")
+@Label("Repository Call")
+@Category({ "MDD API", "Persistence" })
+@Description("Call to a Spring Data repository method")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+    @Label("Query")
+    public String query;
+
+    @Label("Row Count")
+    public int rowCount;
+
+    @Label("Failed")
+    public boolean failed;
+}
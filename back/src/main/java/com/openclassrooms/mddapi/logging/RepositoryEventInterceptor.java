@@ -0,0 +1,89 @@
+package com.openclassrooms.mddapi.logging;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Installs an interceptor emitting a RepositoryCallEvent on every repository call.
+ * 
+ * The interceptor is added to the proxy of each Spring Data repository when its
+ * factory bean is initialized, so repository methods need no annotation, and no
+ * AspectJ weaving is involved. While no JFR recording enables the event, a call
+ * costs a single check.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class RepositoryEventInterceptor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(
+                            new Interceptor(information.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    /**
+     * Counts the rows returned by a repository method.
+     * 
+     * @param result the value returned by the method
+     * @return the number of returned items, or -1 if unknown
+     */
+    private static int rowCount(Object result) {
+        if (result == null) return 0;
+        if (result instanceof Collection<?> collection) return collection.size();
+        if (result instanceof Slice<?> slice) return slice.getNumberOfElements();
+        if (result instanceof Map<?, ?> map) return map.size();
+        if (result instanceof Optional<?> optional) return optional.isPresent() ? 1 : 0;
+        if (result instanceof Number || result instanceof Boolean || result instanceof AutoCloseable) return -1;
+        return 1;
+    }
+
+    /**
+     * Interceptor of the calls to one repository.
+     */
+    private static final class Interceptor implements MethodInterceptor {
+
+        private final String repositoryName;
+
+        Interceptor(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RepositoryCallEvent event = new RepositoryCallEvent();
+            if (!event.isEnabled()) {
+                return invocation.proceed();
+            }
+            event.begin();
+            try {
+                Object result = invocation.proceed();
+                event.rowCount = rowCount(result);
+                return result;
+            } catch (Throwable e) {
+                event.failed = true;
+                event.rowCount = -1;
+                throw e;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.query = repositoryName + "." + invocation.getMethod().getName();
+                    event.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.mddapi.logging;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter writing one structured log record per HTTP request.
+ * 
+ * Each record is written under the "http.request" category with the method, the
+ * path, the response status and the duration as key-value pairs. It is meant to be
+ * used with the "async-log" profile, which writes records from a background thread
+ * and samples this category. The filter is enabled by "logging.request-log.enabled".
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+@ConditionalOnProperty(name = "logging.request-log.enabled", havingValue = "true")
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger("http.request");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (log.isInfoEnabled()) {
+                long durationMs = (System.nanoTime() - start) / 1_000_000;
+                log.atInfo()
+                        .addKeyValue("method", request.getMethod())
+                        .addKeyValue("path", request.getRequestURI())
+                        .addKeyValue("status", response.getStatus())
+                        .addKeyValue("durationMs", durationMs)
+                        .log("{} {} {} {} ms", request.getMethod(), request.getRequestURI(), response.getStatus(), durationMs);
+            }
+        }
+    }
+}
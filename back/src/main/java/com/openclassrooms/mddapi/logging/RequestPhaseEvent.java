@@ -0,0 +1,43 @@
+package com.openclassrooms.mddapi.logging;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event timing a phase of the processing of a request.
+ * 
+ * The "request" phase covers a whole request, from the first servlet filter to
+ * the response, and carries its method, path and status. Services emit finer
+ * phases, such as "feed.subscriptions" or "feed.page", with only their name, and
+ * nest within the request event of the same thread in the recording.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Name("com.openclassrooms.mddapi.RequestPhase")
+@Label("Request Phase")
+@Category({ "MDD API", "Requests" })
+@Description("Duration of a phase of the processing of an HTTP request")
+@StackTrace(false)
+public class RequestPhaseEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Status")
+    public int status;
+
+    public RequestPhaseEvent(String phase) {
+        this.phase = phase;
+    }
+}
@@ -0,0 +1,85 @@
+package com.openclassrooms.mddapi.logging;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Logback filter keeping only a random sample of the events of some categories.
+ * 
+ * Rates are configured per logger name prefix, as a comma-separated list of
+ * "category=rate" pairs, e.g. "http.request=0.1,com.openclassrooms.mddapi=0.5".
+ * The longest matching prefix applies; events of other categories are all kept.
+ * A rate of 0.1 keeps about one event out of ten. Warnings and errors are never
+ * sampled out.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+
+    private static final double KEEP_ALL = 1.0;
+
+    private Map<String, Double> rates = Map.of();
+    private final Map<String, Double> rateByLogger = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the sampling rates.
+     * 
+     * @param value comma-separated "category=rate" pairs, rates between 0 and 1
+     */
+    public void setRates(String value) {
+        Map<String, Double> parsed = new LinkedHashMap<>();
+        if (value != null) {
+            for (String pair : value.split(",")) {
+                if (pair.isBlank()) continue;
+                String[] parts = pair.split("=", 2);
+                if (parts.length != 2) {
+                    addError("Invalid sampling rate '" + pair + "', expected category=rate");
+                    continue;
+                }
+                try {
+                    parsed.put(parts[0].trim(), Math.max(0, Math.min(1, Double.parseDouble(parts[1].trim()))));
+                } catch (NumberFormatException e) {
+                    addError("Invalid sampling rate '" + pair + "'");
+                }
+            }
+        }
+        // Longest prefixes first, so the first match is the most specific one.
+        Map<String, Double> sorted = new LinkedHashMap<>();
+        parsed.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Double> e) -> e.getKey().length()).reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        this.rates = sorted;
+        this.rateByLogger.clear();
+    }
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (!isStarted() || event.getLevel().isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = rateByLogger.computeIfAbsent(event.getLoggerName(), this::rateOf);
+        if (rate >= KEEP_ALL || ThreadLocalRandom.current().nextDouble() < rate) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private double rateOf(String loggerName) {
+        for (Map.Entry<String, Double> entry : rates.entrySet()) {
+            String prefix = entry.getKey();
+            if (loggerName.equals(prefix) || loggerName.startsWith(prefix + ".")) {
+                return entry.getValue();
+            }
+        }
+        return KEEP_ALL;
+    }
+}
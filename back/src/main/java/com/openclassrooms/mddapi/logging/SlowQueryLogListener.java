@@ -0,0 +1,83 @@
+package com.openclassrooms.mddapi.logging;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * JDBC listener logging the SQL statements slower than a threshold, with their
+ * bind parameters.
+ * 
+ * Statements faster than the threshold cost a single comparison. Slow ones are
+ * logged at WARN level under the "sql.slow" category, with the elapsed time, the
+ * SQL, the bind parameters and the batch size as structured key-value pairs.
+ * Parameter values are truncated to keep large TEXT contents out of the logs.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class SlowQueryLogListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger("sql.slow");
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final long thresholdMs;
+
+    public SlowQueryLogListener(long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMs) return;
+
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        List<List<String>> parameters = new ArrayList<>();
+        for (QueryInfo queryInfo : queryInfoList) {
+            for (List<ParameterSetOperation> operations : queryInfo.getParametersList()) {
+                parameters.add(formatParameters(operations));
+            }
+        }
+
+        log.atWarn()
+                .addKeyValue("elapsedMs", execInfo.getElapsedTime())
+                .addKeyValue("sql", sql)
+                .addKeyValue("params", parameters)
+                .addKeyValue("batchSize", execInfo.isBatch() ? execInfo.getBatchSize() : 0)
+                .addKeyValue("success", execInfo.isSuccess())
+                .log("Slow SQL statement ({} ms): {} {}", execInfo.getElapsedTime(), sql, parameters);
+    }
+
+    private static List<String> formatParameters(List<ParameterSetOperation> operations) {
+        return operations.stream()
+                .filter(operation -> !ParameterSetOperation.isRegisterOutParameterOperation(operation))
+                .sorted(Comparator.comparingInt(SlowQueryLogListener::indexOf))
+                .map(SlowQueryLogListener::formatValue)
+                .toList();
+    }
+
+    private static int indexOf(ParameterSetOperation operation) {
+        return operation.getArgs()[0] instanceof Integer index ? index : Integer.MAX_VALUE;
+    }
+
+    private static String formatValue(ParameterSetOperation operation) {
+        if (ParameterSetOperation.isSetNullParameterOperation(operation) || operation.getArgs().length < 2) {
+            return "null";
+        }
+        String value = String.valueOf(operation.getArgs()[1]);
+        return value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value;
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.mddapi.logging;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Configuration capturing slow SQL statements at the JDBC level.
+ * 
+ * When "logging.slow-sql.threshold-ms" is set, the application DataSource is
+ * wrapped in a datasource-proxy that times every statement and hands it to a
+ * SlowQueryLogListener. Unlike "spring.jpa.show-sql", nothing is printed for the
+ * statements under the threshold, and the bind parameters of the slow ones are
+ * included. The property is set by the "async-log" profile.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Configuration
+@ConditionalOnProperty("logging.slow-sql.threshold-ms")
+public class SlowQueryLoggingConfig {
+
+    /**
+     * Wraps the DataSource bean in a proxy timing every statement.
+     * 
+     * @param environment the environment holding the threshold
+     * @return the bean post-processor wrapping the DataSource
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourceWrapper(Environment environment) {
+        long thresholdMs = environment.getRequiredProperty("logging.slow-sql.threshold-ms", Long.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new SlowQueryLogListener(thresholdMs))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.openclassrooms.mddapi.logging;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event timing the verification of the access token of a request.
+ * 
+ * It covers the parsing of the JWT, the check of its signature and expiry, and
+ * the setup of the authentication, as done by the JwtAuthenticationFilter.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Name("com.openclassrooms.mddapi.TokenVerification")
+@Label("Token Verification")
+@Category({ "MDD API", "Security" })
+@Description("Verification of the JWT access token of a request")
+@StackTrace(false)
+public class TokenVerificationEvent extends Event {
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.mddapi.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity representing a cache invalidation record on the invalidation bus.
+ * 
+ * Each node appends a record when it changes data cached by the other nodes,
+ * naming the local cache and the key to evict. Every node tails the table by
+ * increasing ID and evicts the matching keys from its own caches. Records are
+ * compacted once they are older than the configured retention.
+ * 
+ * The creation time is set by the database on insert, so the clocks of the
+ * publishing nodes never matter.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@Table(name = "cache_invalidation", indexes = @Index(name = "idx_cache_invalidation_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheInvalidation {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false, length = 64)
+  private String cacheName;
+
+  @Column(nullable = false)
+  private String cacheKey;
+
+  @Column(nullable = false, length = 128)
+  private String originNode;
+
+  @Column(nullable = false, insertable = false, updatable = false)
+  @ColumnDefault("CURRENT_TIMESTAMP(6)")
+  private LocalDateTime createdAt;
+}
@@ -12,6 +12,9 @@ import lombok.*;
  * feedback and engage in discussions on posts. Each comment tracks its creation
  * time automatically.
  * 
+ * Associations are lazy; the WITH_AUTHOR_GRAPH entity graph fetches the author
+ * along with the comments when listing the comments of a post.
+ * 
  * This entity uses JPA annotations for persistence and Lombok annotations
  * for reducing boilerplate code (getters, setters, constructors, builder pattern).
  * 
@@ -20,6 +23,7 @@ import lombok.*;
  */
 
 @Entity
+@NamedEntityGraph(name = Comment.WITH_AUTHOR_GRAPH, attributeNodes = @NamedAttributeNode("user"))
 @Table(name = "comment")
 @Data
 @NoArgsConstructor
@@ -27,6 +31,8 @@ import lombok.*;
 @Builder
 public class Comment {
 
+  public static final String WITH_AUTHOR_GRAPH = "Comment.withAuthor";
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
@@ -0,0 +1,63 @@
+package com.openclassrooms.mddapi.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity representing an archived comment in the MDD API application.
+ * 
+ * The comments of a post are moved to the comment_archive table along with the
+ * post itself (see PostArchive), keeping their IDs. They reference the archived
+ * post by its ID only, and are read through the (post_id, created_at) index when
+ * the comments of an archived post are requested.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@NamedEntityGraph(name = CommentArchive.WITH_AUTHOR_GRAPH, attributeNodes = @NamedAttributeNode("user"))
+@Table(name = "comment_archive", indexes = {
+    @Index(name = "idx_comment_archive_post_created", columnList = "post_id, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CommentArchive {
+
+  public static final String WITH_AUTHOR_GRAPH = "CommentArchive.withAuthor";
+
+  /**
+   * The ID the comment had in the comment table.
+   */
+  @Id
+  private Long id;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String content;
+
+  /**
+   * The ID of the archived post this comment belongs to.
+   */
+  @Column(name = "post_id", nullable = false)
+  private Long postId;
+
+  /**
+   * The user who authored this comment.
+   */
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "user_id", nullable = false)
+  private User user;
+
+  @Column(nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(nullable = false, updatable = false)
+  private LocalDateTime archivedAt;
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.mddapi.models;
+
+import java.nio.charset.StandardCharsets;
+
+import com.openclassrooms.mddapi.Utils.CompressionUtil;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * JPA converter storing text as bytes, compressed with Deflate above a size threshold.
+ * 
+ * Short texts are stored as plain UTF-8, so they can also be written with plain SQL
+ * (as data.sql does). Texts of COMPRESSION_THRESHOLD bytes or more are compressed and
+ * stored behind a two-byte header: a NUL byte, which never starts a stored text, then
+ * the format byte. The compressed form is only kept when it is actually smaller.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    public static final int COMPRESSION_THRESHOLD = 512;
+
+    private static final byte HEADER = 0;
+    private static final byte FORMAT_PLAIN = 0;
+    private static final byte FORMAT_DEFLATE = 1;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) return null;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = CompressionUtil.deflate(bytes);
+            if (compressed.length + 2 < bytes.length) {
+                return withHeader(FORMAT_DEFLATE, compressed);
+            }
+        }
+        // A text starting with NUL would be mistaken for a header.
+        return bytes.length > 0 && bytes[0] == HEADER ? withHeader(FORMAT_PLAIN, bytes) : bytes;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) return null;
+        if (data.length < 2 || data[0] != HEADER) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        return switch (data[1]) {
+            case FORMAT_PLAIN -> new String(data, 2, data.length - 2, StandardCharsets.UTF_8);
+            case FORMAT_DEFLATE -> new String(CompressionUtil.inflate(data, 2), StandardCharsets.UTF_8);
+            default -> throw new IllegalArgumentException("Unknown stored text format " + data[1]);
+        };
+    }
+
+    private static byte[] withHeader(byte format, byte[] payload) {
+        byte[] data = new byte[payload.length + 2];
+        data[0] = HEADER;
+        data[1] = format;
+        System.arraycopy(payload, 0, data, 2, payload.length);
+        return data;
+    }
+}
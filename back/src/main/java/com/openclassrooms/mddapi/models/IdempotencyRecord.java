@@ -0,0 +1,85 @@
+package com.openclassrooms.mddapi.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity recording a request sent with an Idempotency-Key header.
+ * 
+ * Keys are scoped by user. The record is inserted when a node starts executing
+ * the request, and holds the hash of the request, so a key reused for another
+ * request is detected. While the request runs, the record is locked until
+ * lockedUntil by the random token of the execution's claim, and has no response; the response status and JSON body are
+ * stored in the same transaction as the change made by the request. Records are
+ * deleted once expired.
+ * 
+ * The rows are written by the IdempotencyService, which keeps the recent records
+ * in memory as well.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_record_expires", columnList = "expires_at"))
+@IdClass(IdempotencyRecord.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+  public static final int MAX_KEY_LENGTH = 128;
+
+  @Id
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Id
+  @Column(name = "idempotency_key", length = MAX_KEY_LENGTH)
+  private String idempotencyKey;
+
+  /**
+   * Hex SHA-256 hash of the operation and body of the request.
+   */
+  @Column(nullable = false, length = 64)
+  private String requestHash;
+
+  /**
+   * HTTP status of the response, null while the request is executing.
+   */
+  private Integer responseStatus;
+
+  @Lob
+  @Column(length = 16_777_215)
+  private byte[] responseBody;
+
+  @Column(length = 128)
+  private String lockedBy;
+
+  private LocalDateTime lockedUntil;
+
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(nullable = false)
+  private LocalDateTime expiresAt;
+
+  /**
+   * Composite primary key of an idempotency record.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+
+    private Long userId;
+    private String idempotencyKey;
+  }
+}
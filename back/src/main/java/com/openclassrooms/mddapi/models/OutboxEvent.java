@@ -0,0 +1,84 @@
+package com.openclassrooms.mddapi.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity representing a domain event waiting in the transactional outbox.
+ * 
+ * Outbox events are written in the same transaction as the change they describe
+ * (for example the creation of a post), so an event exists if and only if the
+ * change was committed. A background relay later claims pending events in batches
+ * and dispatches them to in-process handlers.
+ * 
+ * An event is pending while its processed timestamp is null. A relay node claims
+ * an event by setting its lock owner and lock expiry; if the node dies, the lock
+ * expires and another node picks the event up again, which gives at-least-once
+ * delivery. An event still failing after the maximum number of attempts is parked:
+ * its failed timestamp is set, and the relay no longer claims it. Parked events
+ * are kept for inspection, and are retried once their failed timestamp is cleared.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_pending", columnList = "processed_at, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+  public static final String POST_CREATED = "PostCreated";
+  public static final String COMMENT_ADDED = "CommentAdded";
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false, length = 64)
+  private String eventType;
+
+  @Column(nullable = false, length = 64)
+  private String aggregateType;
+
+  @Column(nullable = false)
+  private Long aggregateId;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Column(nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(length = 128)
+  private String lockedBy;
+
+  private LocalDateTime lockedUntil;
+
+  private LocalDateTime processedAt;
+
+  private LocalDateTime failedAt;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private int attempts = 0;
+
+  @Column(length = 1000)
+  private String lastError;
+
+  /**
+   * JPA lifecycle callback that automatically sets the creation timestamp.
+   * This method is invoked before the entity is persisted to the database.
+   */
+  @PrePersist
+  protected void onCreate() {
+    this.createdAt = LocalDateTime.now();
+  }
+}
@@ -3,6 +3,8 @@ package com.openclassrooms.mddapi.models;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -17,6 +19,30 @@ import lombok.*;
  * (category), and comments (feedback). The creation timestamp is automatically
  * set when the post is persisted to the database.
  * 
+ * The comment count and the hot and discussion scores back the ranked feed sort
+ * modes. They are maintained incrementally when the post is created and when it is
+ * commented, and the scores are decayed periodically by the FeedRankingService.
+ * Each sort mode has its own (topic_id, column) index, which selects the posts of
+ * the subscribed topics; a feed over several topics still sorts them (see
+ * FeedSortMode). The (topic_id, id) and
+ * (user_id, id) indexes serve the keyset-paginated post listings of a topic and
+ * of an author.
+ * 
+ * The view count is incremented in batches by the PostViewCounter, which
+ * aggregates the views in memory between two flushes.
+ * 
+ * The body of the post is stored in the post_body table (see PostBody), so that
+ * the post table stays narrow. The post keeps a short excerpt of the body, which
+ * is all the feed needs. The association is only mapped on the PostBody side:
+ * a lazy one-to-one on the non-owning side cannot be proxied without bytecode
+ * enhancement, and would cost one post_body query per loaded post. The body is
+ * read explicitly through the PostBodyRepository by the post details.
+ * 
+ * All associations are lazy. The named entity graphs declare what each use case
+ * fetches in the same query:
+ * - FEED_ITEM_GRAPH: the author, for feed previews
+ * - DETAIL_GRAPH: the author and the topic, for the post details
+ * 
  * This entity uses JPA annotations for persistence and Lombok annotations
  * for reducing boilerplate code (getters, setters, constructors, builder pattern).
  * 
@@ -25,13 +51,29 @@ import lombok.*;
  */
 
 @Entity
-@Table(name = "post")
+@NamedEntityGraph(name = Post.FEED_ITEM_GRAPH, attributeNodes = @NamedAttributeNode("user"))
+@NamedEntityGraph(name = Post.DETAIL_GRAPH, attributeNodes = {
+    @NamedAttributeNode("user"),
+    @NamedAttributeNode("topic")
+})
+@Table(name = "post", indexes = {
+    @Index(name = "idx_post_topic_created", columnList = "topic_id, created_at"),
+    @Index(name = "idx_post_topic_hot", columnList = "topic_id, hot_score"),
+    @Index(name = "idx_post_topic_comments", columnList = "topic_id, comment_count"),
+    @Index(name = "idx_post_topic_discussion", columnList = "topic_id, discussion_score"),
+    @Index(name = "idx_post_topic_id", columnList = "topic_id, id"),
+    @Index(name = "idx_post_user_id", columnList = "user_id, id")
+})
 @Data 
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Post {
 
+  public static final String FEED_ITEM_GRAPH = "Post.feedItem";
+  public static final String DETAIL_GRAPH = "Post.detail";
+  public static final int EXCERPT_LENGTH = 150;
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
@@ -39,14 +81,19 @@ public class Post {
   @Column(nullable = false)
   private String title;
 
-  @Column(nullable = false, columnDefinition = "TEXT")
-  private String content;
+  /**
+   * The first EXCERPT_LENGTH characters of the body, followed by "..." when cut.
+   */
+  @Column(nullable = false, length = EXCERPT_LENGTH + 3)
+  @ColumnDefault("''")
+  @Builder.Default
+  private String excerpt = "";
 
   /**
    * The user who authored this post.
    * Represents a many-to-one relationship with the User entity.
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id", nullable = false)
   private User user;
 
@@ -54,13 +101,42 @@ public class Post {
    * The topic this post belongs to.
    * Represents a many-to-one relationship with the Topic entity.
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "topic_id", nullable = false)
   private Topic topic;
 
   @Column(nullable = false, updatable = false)
   private LocalDateTime createdAt;
 
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  @Builder.Default
+  private int commentCount = 0;
+
+  /**
+   * Decaying activity score, raised on creation and on each comment.
+   */
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  @Builder.Default
+  private double hotScore = 0;
+
+  /**
+   * Decaying comment score, raised on each comment only.
+   */
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  @Builder.Default
+  private double discussionScore = 0;
+
+  /**
+   * Number of views of the post details, as of the last flush of the PostViewCounter.
+   */
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  @Builder.Default
+  private long viewCount = 0;
+
   /**
    * List of comments associated with this post.
    * Represents a one-to-many relationship with the Comment entity.
@@ -78,4 +154,19 @@ public class Post {
   protected void onCreate() {
     this.createdAt = LocalDateTime.now();
   } 
+
+  /**
+   * Builds the excerpt of a content for feed display.
+   * 
+   * The content is limited to EXCERPT_LENGTH characters. If it exceeds this length,
+   * it is trimmed and appended with "...". If content is null, an empty string is returned.
+   * 
+   * @param content the full content text
+   * @return the excerpt of the content
+   */
+  public static String excerptOf(String content) {
+    if (content == null) return "";
+    if (content.length() <= EXCERPT_LENGTH) return content;
+    return content.substring(0, EXCERPT_LENGTH).trim() + "...";
+  }
 }
@@ -0,0 +1,86 @@
+package com.openclassrooms.mddapi.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity representing an archived post in the MDD API application.
+ * 
+ * Posts older than "post.archival.max-age-days" are moved by the PostArchival job
+ * from the post and post_body tables to the post_archive table, which keeps the hot
+ * tables and their indexes small. An archived post keeps its ID, its metadata and
+ * its body, still compressed through the CompressedTextConverter, in a single row;
+ * the ranking scores, which only matter for recent posts, are dropped.
+ * 
+ * Archived posts are read-only. They are only read by ID, when the post details are
+ * requested and the post is no longer in the post table.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@NamedEntityGraph(name = PostArchive.DETAIL_GRAPH, attributeNodes = {
+    @NamedAttributeNode("user"),
+    @NamedAttributeNode("topic")
+})
+@Table(name = "post_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostArchive {
+
+  public static final String DETAIL_GRAPH = "PostArchive.detail";
+
+  /**
+   * The ID the post had in the post table.
+   */
+  @Id
+  private Long id;
+
+  @Column(nullable = false)
+  private String title;
+
+  @Column(nullable = false, length = Post.EXCERPT_LENGTH + 3)
+  private String excerpt;
+
+  @Lob
+  @Convert(converter = CompressedTextConverter.class)
+  @Column(nullable = false, length = 16_777_215)
+  private String content;
+
+  /**
+   * The user who authored this post.
+   */
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "user_id", nullable = false)
+  private User user;
+
+  /**
+   * The topic this post belongs to.
+   */
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "topic_id", nullable = false)
+  private Topic topic;
+
+  @Column(nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(nullable = false)
+  private int commentCount;
+
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  private long viewCount;
+
+  @Column(nullable = false, updatable = false)
+  private LocalDateTime archivedAt;
+}
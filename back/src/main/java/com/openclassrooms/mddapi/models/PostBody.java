@@ -0,0 +1,51 @@
+package com.openclassrooms.mddapi.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity holding the body of a post, stored apart from the post metadata.
+ * 
+ * Feed and list queries read the post table only, so keeping the bodies in their
+ * own post_body table keeps the rows of the post table narrow and its pages in
+ * the buffer pool. The body shares the primary key of its post through @MapsId,
+ * and the association is only mapped here, so loading a post never loads its
+ * body. The body is read only by the queries that need it, such as the post
+ * details and the bulk export.
+ * 
+ * The content is stored through the CompressedTextConverter, which compresses
+ * long bodies with Deflate.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@Table(name = "post_body")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostBody {
+
+  @Id
+  private Long postId;
+
+  /**
+   * The post this body belongs to, whose ID is shared by the body.
+   */
+  @MapsId
+  @OneToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "post_id")
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private Post post;
+
+  @Lob
+  @Convert(converter = CompressedTextConverter.class)
+  @Column(nullable = false, length = 16_777_215)
+  private String content;
+}
@@ -0,0 +1,39 @@
+package com.openclassrooms.mddapi.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity recording the last run of a cluster-wide scheduled job.
+ * 
+ * Jobs that must run once per interval across all nodes, such as the feed score
+ * decay, claim their run by locking and updating this row. A node that finds the
+ * job already ran recently skips its own run.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@Table(name = "scheduled_job_run")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduledJobRun {
+
+  @Id
+  @Column(length = 64)
+  private String jobName;
+
+  @Column(nullable = false)
+  private LocalDateTime lastRunAt;
+
+  @Column(length = 128)
+  private String lastRunBy;
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.mddapi.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity holding the read state of a user in a topic.
+ * 
+ * Every post of the topic up to lastReadPostId is read. Posts read individually
+ * beyond this marker are listed in readPostIds, a serialized CompressedBitmap,
+ * which only holds the gaps left by out-of-order reading: the marker moves
+ * forward as soon as the posts following it have all been read.
+ * 
+ * The rows are written in batches by the ReadStateService, with plain SQL.
+ * 
+ * This entity uses JPA annotations for persistence and Lombok annotations
+ * for reducing boilerplate code (getters, setters, constructors, builder pattern).
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Entity
+@Table(name = "topic_read_state")
+@IdClass(TopicReadState.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TopicReadState {
+
+  @Id
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Id
+  @Column(name = "topic_id")
+  private Long topicId;
+
+  @Column(nullable = false)
+  private long lastReadPostId;
+
+  @Lob
+  @Column(length = 16_777_215)
+  private byte[] readPostIds;
+
+  @Column(nullable = false)
+  private LocalDateTime updatedAt;
+
+  /**
+   * Composite primary key of a read state.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+
+    private Long userId;
+    private Long topicId;
+  }
+}
@@ -58,9 +58,11 @@ public class User {
   /**
    * List of topics the user is subscribed to.
    * Represents a many-to-many relationship with the Topic entity.
+   * Subscriptions are written directly to the join table by the TopicRepository.
    */
   @ManyToMany
-  @JoinTable(name = "user_topic", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "topic_id"))
+  @JoinTable(name = "user_topic", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "topic_id"),
+             uniqueConstraints = @UniqueConstraint(name = "uk_user_topic", columnNames = { "user_id", "topic_id" }))
   @Builder.Default
   private List<Topic> topics = new ArrayList<>();
 
@@ -0,0 +1,61 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.openclassrooms.mddapi.models.CacheInvalidation;
+
+/**
+ * Repository interface for CacheInvalidation entity database operations.
+ * 
+ * This repository extends JpaRepository to provide standard CRUD operations
+ * for invalidation records, along with the queries used by the invalidation bus
+ * to tail the table from a high-water mark and to compact old records.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    /**
+     * Retrieves the records appended after the given ID, in ascending ID order.
+     * 
+     * @param id the high-water mark, exclusive
+     * @param limit the maximum number of records to return
+     * @return List of CacheInvalidation records following the high-water mark
+     */
+    List<CacheInvalidation> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Retrieves the records with the given IDs, used to look up the gaps below the high-water mark.
+     * 
+     * @param ids the IDs of the records
+     * @return List of the existing CacheInvalidation records, IDs not committed yet being absent
+     */
+    List<CacheInvalidation> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Returns the highest record ID, used to start tailing from the current end of the table.
+     * 
+     * @return the highest ID, or null if the table is empty
+     */
+    @Query("select max(c.id) from CacheInvalidation c")
+    Long findMaxId();
+
+    /**
+     * Deletes the records created more than a number of minutes ago, by the database clock.
+     * 
+     * @param minutes the retention, in minutes
+     * @return the number of deleted records
+     */
+    @Modifying
+    @Query(nativeQuery = true,
+           value = "DELETE FROM cache_invalidation WHERE created_at < TIMESTAMPADD(MINUTE, -:minutes, CURRENT_TIMESTAMP(6))")
+    int deleteOlderThan(@Param("minutes") long minutes);
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.openclassrooms.mddapi.models.CommentArchive;
+
+/**
+ * Repository interface for CommentArchive entity database operations.
+ * 
+ * Archived comments are written by the PostArchival job with plain SQL, so this
+ * repository only reads them, by archived post.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface CommentArchiveRepository extends JpaRepository<CommentArchive, Long> {
+
+    /**
+     * Retrieves all archived comments of an archived post, ordered by creation date ascending.
+     * The authors are fetched in the same query.
+     * 
+     * @param postId the ID of the archived post
+     * @return List containing CommentArchive entities ordered by creation date
+     */
+    @EntityGraph(CommentArchive.WITH_AUTHOR_GRAPH)
+    @Query("select c from CommentArchive c where c.postId = :postId order by c.createdAt asc")
+    List<CommentArchive> findByPostIdOrderByCreatedAtAsc(@Param("postId") Long postId);
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.stream.Stream;
+
+import com.openclassrooms.mddapi.models.Comment;
+
+/**
+ * Repository fragment for the streaming scan of the comments by the bulk export.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface CommentExportRepository {
+
+    /**
+     * Streams every comment in ascending ID order.
+     * 
+     * Only the post and user identifiers are read from the lazy associations, so no
+     * additional query is issued per row. The rows are streamed instead of being
+     * buffered. The returned stream must be consumed inside a transaction and
+     * closed afterwards.
+     * 
+     * @return Stream of Comment entities
+     */
+    Stream<Comment> streamAllForExport();
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.stream.Stream;
+
+import com.openclassrooms.mddapi.models.Comment;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * JPQL implementation of the CommentExportRepository fragment.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class CommentExportRepositoryImpl implements CommentExportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Comment> streamAllForExport() {
+        return StreamingQueries.stream(entityManager,
+                entityManager.createQuery("select c from Comment c order by c.id", Comment.class));
+    }
+}
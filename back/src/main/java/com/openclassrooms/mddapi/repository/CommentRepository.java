@@ -1,11 +1,13 @@
 package com.openclassrooms.mddapi.repository;
 
 import com.openclassrooms.mddapi.models.Comment;
-import com.openclassrooms.mddapi.models.Post;
 
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Repository interface for Comment entity database operations.
@@ -21,16 +23,19 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * @author Cécile UMECKER
  
  */
-public interface CommentRepository extends JpaRepository<Comment, Long> {
+public interface CommentRepository extends JpaRepository<Comment, Long>, CommentExportRepository {
   
   /**
    * Retrieves all comments for a specific post, ordered by creation date ascending.
    * 
    * This method fetches comments in chronological order (oldest first), allowing
-   * users to follow the discussion flow naturally.
+   * users to follow the discussion flow naturally. The authors are fetched in the
+   * same query.
    * 
-   * @param post the Post entity to retrieve comments for
+   * @param postId the ID of the post to retrieve comments for
    * @return List containing Comment entities ordered by creation date
    */
-  List<Comment> findByPostOrderByCreatedAtAsc(Post post);
+  @EntityGraph(Comment.WITH_AUTHOR_GRAPH)
+  @Query("select c from Comment c where c.post.id = :postId order by c.createdAt asc")
+  List<Comment> findByPostIdOrderByCreatedAtAsc(@Param("postId") Long postId);
 }
@@ -0,0 +1,118 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.openclassrooms.mddapi.models.IdempotencyRecord;
+
+/**
+ * Repository interface for IdempotencyRecord entity database operations.
+ * 
+ * This repository extends JpaRepository to provide standard CRUD operations
+ * for idempotency records, along with the statements used by the
+ * IdempotencyService to claim a key, store the response of its request, release
+ * it after a failure and purge the expired records.
+ * 
+ * A key is claimed with "INSERT IGNORE", so when several nodes receive the same
+ * request concurrently, exactly one of them inserts the record and executes it.
+ * The lock owner is the random token of the claim, which fences the response
+ * and the release of the key to the execution currently holding the lock.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    /**
+     * Inserts the record of a key, unless the key already has one.
+     * 
+     * @param userId the ID of the user
+     * @param key the idempotency key
+     * @param requestHash the hash of the request
+     * @param claimToken the random token of the claim
+     * @param lockedUntil the time after which another execution may take the request over
+     * @param now the current time
+     * @param expiresAt the expiry time of the record
+     * @return 1 if the record was inserted, 0 if the key already had one
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT IGNORE INTO idempotency_record
+                (user_id, idempotency_key, request_hash, locked_by, locked_until, created_at, expires_at)
+            VALUES (:userId, :key, :requestHash, :claimToken, :lockedUntil, :now, :expiresAt)
+            """)
+    int claim(@Param("userId") Long userId,
+              @Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("claimToken") String claimToken,
+              @Param("lockedUntil") LocalDateTime lockedUntil,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Takes over a request whose lock expired before its execution stored the response.
+     * 
+     * @param userId the ID of the user
+     * @param key the idempotency key
+     * @param claimToken the random token of the execution taking the request over
+     * @param lockedUntil the new lock expiry
+     * @param now the current time
+     * @return 1 if the request was taken over, 0 if it completed or is still locked
+     */
+    @Modifying
+    @Query("update IdempotencyRecord r set r.lockedBy = :claimToken, r.lockedUntil = :lockedUntil " +
+           "where r.userId = :userId and r.idempotencyKey = :key " +
+           "and r.responseStatus is null and r.lockedUntil < :now")
+    int takeOver(@Param("userId") Long userId,
+                 @Param("key") String key,
+                 @Param("claimToken") String claimToken,
+                 @Param("lockedUntil") LocalDateTime lockedUntil,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Stores the response of a request, if its execution still holds the lock.
+     * 
+     * @param userId the ID of the user
+     * @param key the idempotency key
+     * @param claimToken the token of the claim of the execution
+     * @param status the HTTP status of the response
+     * @param body the JSON body of the response
+     * @return 1 if the response was stored, 0 if the request was taken over meanwhile
+     */
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseStatus = :status, r.responseBody = :body, " +
+           "r.lockedBy = null, r.lockedUntil = null " +
+           "where r.userId = :userId and r.idempotencyKey = :key and r.lockedBy = :claimToken")
+    int complete(@Param("userId") Long userId,
+                 @Param("key") String key,
+                 @Param("claimToken") String claimToken,
+                 @Param("status") int status,
+                 @Param("body") byte[] body);
+
+    /**
+     * Deletes the record of a request whose execution failed, so it can be retried.
+     * 
+     * @param userId the ID of the user
+     * @param key the idempotency key
+     * @param claimToken the token of the claim of the failed execution
+     * @return the number of deleted records
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.userId = :userId and r.idempotencyKey = :key " +
+           "and r.responseStatus is null and r.lockedBy = :claimToken")
+    int release(@Param("userId") Long userId, @Param("key") String key, @Param("claimToken") String claimToken);
+
+    /**
+     * Deletes the records expired before the given time.
+     * 
+     * @param now the current time
+     * @return the number of deleted records
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
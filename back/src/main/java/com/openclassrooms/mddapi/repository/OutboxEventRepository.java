@@ -0,0 +1,118 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.openclassrooms.mddapi.models.OutboxEvent;
+
+/**
+ * Repository interface for OutboxEvent entity database operations.
+ * 
+ * This repository extends JpaRepository to provide standard CRUD operations
+ * for outbox events, along with the queries used by the outbox relay to claim
+ * pending events, measure the relay lag and purge processed events.
+ * 
+ * Claiming relies on "FOR UPDATE SKIP LOCKED", so several relay nodes can poll
+ * the table concurrently without blocking each other or claiming the same rows.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks a batch of pending events that are neither parked nor currently claimed by a relay node.
+     * 
+     * Rows already locked by another transaction are skipped rather than waited for.
+     * The caller is expected to mark the returned events as claimed before committing.
+     * 
+     * @param now the current time, used to detect expired claims
+     * @param limit the maximum number of events to lock
+     * @return List of locked pending OutboxEvent entities, oldest first
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT * FROM outbox_event
+            WHERE processed_at IS NULL AND failed_at IS NULL AND (locked_until IS NULL OR locked_until < :now)
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """)
+    List<OutboxEvent> lockPendingBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Marks an event as successfully dispatched, if it is still claimed by the given node.
+     * 
+     * @param id the event ID
+     * @param owner the node that claimed the event
+     * @param processedAt the dispatch completion time
+     * @return 1 if the event was marked, 0 if its claim expired and another node claimed it
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.processedAt = :processedAt, e.lockedBy = null, e.lockedUntil = null where e.id = :id and e.lockedBy = :owner")
+    int markProcessed(@Param("id") Long id, @Param("owner") String owner, @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Records a failed dispatch attempt and schedules the event for a retry, if it is
+     * still claimed by the given node.
+     * 
+     * @param id the event ID
+     * @param owner the node that claimed the event
+     * @param error the error message of the failed attempt
+     * @param retryAt the time after which the event can be claimed again
+     * @return 1 if the event was updated, 0 if its claim expired and another node claimed it
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.lastError = :error, e.lockedBy = null, e.lockedUntil = :retryAt where e.id = :id and e.lockedBy = :owner")
+    int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error, @Param("retryAt") LocalDateTime retryAt);
+
+    /**
+     * Records the last failed dispatch attempt of an event and parks it, if it is
+     * still claimed by the given node.
+     * 
+     * @param id the event ID
+     * @param owner the node that claimed the event
+     * @param error the error message of the failed attempt
+     * @param failedAt the time the event was parked
+     * @return 1 if the event was parked, 0 if its claim expired and another node claimed it
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1, e.lastError = :error, e.lockedBy = null, e.lockedUntil = null, e.failedAt = :failedAt where e.id = :id and e.lockedBy = :owner")
+    int markParked(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error, @Param("failedAt") LocalDateTime failedAt);
+
+    /**
+     * Counts the events that have not been dispatched yet and are not parked.
+     * 
+     * @return the number of pending events
+     */
+    long countByProcessedAtIsNullAndFailedAtIsNull();
+
+    /**
+     * Counts the parked events.
+     * 
+     * @return the number of parked events
+     */
+    long countByFailedAtIsNotNull();
+
+    /**
+     * Returns the creation time of the oldest pending event.
+     * 
+     * @return the oldest pending creation time, or null if there is no pending event
+     */
+    @Query("select min(e.createdAt) from OutboxEvent e where e.processedAt is null and e.failedAt is null")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    /**
+     * Deletes dispatched events older than the given time.
+     * 
+     * @param before the processed-time threshold
+     * @return the number of deleted events
+     */
+    @Modifying
+    @Query("delete from OutboxEvent e where e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.openclassrooms.mddapi.models.PostArchive;
+
+/**
+ * Repository interface for PostArchive entity database operations.
+ * 
+ * Archived posts are written by the PostArchival job with plain SQL, so this
+ * repository only reads them, by ID.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface PostArchiveRepository extends JpaRepository<PostArchive, Long> {
+
+    /**
+     * Finds an archived post with its author and topic, for the post details.
+     * 
+     * @param id the ID of the post
+     * @return Optional containing the archived post with its author and topic fetched, empty if not found
+     */
+    @EntityGraph(PostArchive.DETAIL_GRAPH)
+    Optional<PostArchive> findDetailById(Long id);
+}
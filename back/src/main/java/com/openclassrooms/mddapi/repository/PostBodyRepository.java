@@ -0,0 +1,31 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.openclassrooms.mddapi.models.PostBody;
+
+/**
+ * Repository interface for PostBody entity database operations.
+ * 
+ * This repository extends JpaRepository to provide standard CRUD operations
+ * for post bodies, along with a lookup of the content of a single post. Bodies
+ * are only read by the use cases that display them, such as the post details.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface PostBodyRepository extends JpaRepository<PostBody, Long> {
+
+    /**
+     * Retrieves the content of a post.
+     * 
+     * @param postId the ID of the post
+     * @return Optional containing the content of the post, empty if it has no body
+     */
+    @Query("select b.content from PostBody b where b.postId = :postId")
+    Optional<String> findContentByPostId(@Param("postId") Long postId);
+}
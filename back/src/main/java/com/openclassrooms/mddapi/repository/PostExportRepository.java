@@ -0,0 +1,26 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.stream.Stream;
+
+import com.openclassrooms.mddapi.models.PostBody;
+
+/**
+ * Repository fragment for the streaming scan of the posts by the bulk export.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface PostExportRepository {
+
+    /**
+     * Streams the body of every post, with the post, its author and topic, in ascending ID order.
+     * 
+     * The rows are streamed from a forward-only cursor instead of being buffered,
+     * with the fetch size suited to the database in use, so memory usage stays flat
+     * regardless of the table size. The returned stream must be consumed inside a
+     * transaction and closed afterwards.
+     * 
+     * @return Stream of PostBody entities with their post, user and topic fetched
+     */
+    Stream<PostBody> streamAllForExport();
+}
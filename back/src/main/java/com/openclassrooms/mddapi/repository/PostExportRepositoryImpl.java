@@ -0,0 +1,27 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.stream.Stream;
+
+import com.openclassrooms.mddapi.models.PostBody;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * JPQL implementation of the PostExportRepository fragment.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class PostExportRepositoryImpl implements PostExportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<PostBody> streamAllForExport() {
+        return StreamingQueries.stream(entityManager, entityManager.createQuery(
+                "select b from PostBody b join fetch b.post p join fetch p.user join fetch p.topic order by b.postId",
+                PostBody.class));
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.openclassrooms.mddapi.dto.FeedPostDTO;
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.PostResponseDTO;
+
+/**
+ * Repository fragment for the post queries projected on a field selection.
+ * 
+ * These queries only select the columns backing the requested DTO properties,
+ * and only join the author, topic or body tables when a property needs them.
+ * The ID is always selected. Properties that were not requested are left null.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface PostProjectionRepository {
+
+    /**
+     * Retrieves a page of feed items from the specified topics.
+     * 
+     * @param topicIds the IDs of the topics to retrieve posts from
+     * @param fields the FeedPostDTO properties to select
+     * @param pageable pagination parameters (page number, size, sorting)
+     * @return Page of FeedPostDTO with the selected properties
+     */
+    Page<FeedPostDTO> findFeedItems(List<Long> topicIds, FieldSelection fields, Pageable pageable);
+
+    /**
+     * Retrieves the details of several posts in a single query.
+     * 
+     * @param ids the IDs of the posts
+     * @param fields the PostResponseDTO properties to select
+     * @return List of PostResponseDTO with the selected properties, in no particular order
+     */
+    List<PostResponseDTO> findDetails(Collection<Long> ids, FieldSelection fields);
+}
@@ -0,0 +1,130 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.openclassrooms.mddapi.dto.FeedPostDTO;
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.PostResponseDTO;
+import com.openclassrooms.mddapi.models.Post;
+import com.openclassrooms.mddapi.models.PostBody;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Criteria API implementation of the PostProjectionRepository fragment.
+ * 
+ * Each query is built as a tuple query whose selection follows the requested
+ * properties, each selected expression being aliased with the property name.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class PostProjectionRepositoryImpl implements PostProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<FeedPostDTO> findFeedItems(List<Long> topicIds, FieldSelection fields, Pageable pageable) {
+        if (topicIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> post = query.from(Post.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(post.get("id").alias("id"));
+        if (fields.includes("title")) selections.add(post.get("title").alias("title"));
+        if (fields.includes("authorName")) selections.add(post.join("user").get("username").alias("authorName"));
+        if (fields.includes("contentPreview")) selections.add(post.get("excerpt").alias("contentPreview"));
+        if (fields.includes("createdAt")) selections.add(post.get("createdAt").alias("createdAt"));
+
+        query.multiselect(selections)
+             .where(post.get("topic").get("id").in(topicIds))
+             .orderBy(QueryUtils.toOrders(pageable.getSort(), post, cb));
+
+        List<FeedPostDTO> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList().stream()
+                .map(tuple -> {
+                    FeedPostDTO dto = new FeedPostDTO();
+                    dto.setId(tuple.get("id", Long.class));
+                    dto.setTitle(value(tuple, fields, "title", String.class));
+                    dto.setAuthorName(value(tuple, fields, "authorName", String.class));
+                    dto.setContentPreview(value(tuple, fields, "contentPreview", String.class));
+                    dto.setCreatedAt(value(tuple, fields, "createdAt", LocalDateTime.class));
+                    return dto;
+                })
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> entityManager
+                .createQuery("select count(p) from Post p where p.topic.id in :topicIds", Long.class)
+                .setParameter("topicIds", topicIds)
+                .getSingleResult());
+    }
+
+    @Override
+    public List<PostResponseDTO> findDetails(Collection<Long> ids, FieldSelection fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> post = query.from(Post.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Predicate> restrictions = new ArrayList<>();
+        selections.add(post.get("id").alias("id"));
+        if (fields.includes("title")) selections.add(post.get("title").alias("title"));
+        if (fields.includes("content")) {
+            // PostBody maps the association, so its root is joined on the shared ID.
+            Root<PostBody> body = query.from(PostBody.class);
+            selections.add(body.get("content").alias("content"));
+            restrictions.add(cb.equal(body.get("postId"), post.get("id")));
+        }
+        if (fields.includes("authorName")) selections.add(post.join("user").get("username").alias("authorName"));
+        if (fields.includes("topicTitle")) selections.add(post.join("topic").get("title").alias("topicTitle"));
+        if (fields.includes("createdAt")) selections.add(post.get("createdAt").alias("createdAt"));
+        if (fields.includes("viewCount")) selections.add(post.get("viewCount").alias("viewCount"));
+
+        restrictions.add(post.get("id").in(ids));
+        query.multiselect(selections)
+             .where(restrictions.toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query)
+                .getResultList().stream()
+                .map(tuple -> PostResponseDTO.builder()
+                        .id(tuple.get("id", Long.class))
+                        .title(value(tuple, fields, "title", String.class))
+                        .content(value(tuple, fields, "content", String.class))
+                        .authorName(value(tuple, fields, "authorName", String.class))
+                        .topicTitle(value(tuple, fields, "topicTitle", String.class))
+                        .createdAt(value(tuple, fields, "createdAt", LocalDateTime.class))
+                        .viewCount(value(tuple, fields, "viewCount", Long.class))
+                        .build())
+                .toList();
+    }
+
+    private static <T> T value(Tuple tuple, FieldSelection fields, String field, Class<T> type) {
+        return fields.includes(field) ? tuple.get(field, type) : null;
+    }
+}
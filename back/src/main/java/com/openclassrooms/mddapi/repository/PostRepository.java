@@ -1,9 +1,16 @@
 package com.openclassrooms.mddapi.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.openclassrooms.mddapi.models.Post;
 
@@ -16,12 +23,14 @@ import com.openclassrooms.mddapi.models.Post;
  * 
  * Custom query methods support feed generation by allowing retrieval of posts
  * from multiple topics simultaneously, which is essential for creating
- * personalized user feeds based on topic subscriptions.
+ * personalized user feeds based on topic subscriptions. The queries projected on
+ * the properties requested with the "fields" parameter come from the
+ * PostProjectionRepository fragment.
  * 
  * @author Cécile UMECKER
  
  */
-public interface PostRepository extends JpaRepository<Post, Long> {
+public interface PostRepository extends JpaRepository<Post, Long>, PostProjectionRepository, PostExportRepository {
 
     /**
      * Retrieves all posts belonging to any of the specified topics.
@@ -29,12 +38,164 @@ public interface PostRepository extends JpaRepository<Post, Long> {
      * This method fetches posts from multiple topics in a single query,
      * which is particularly useful for generating personalized feeds based
      * on a user's topic subscriptions. Results are paginated for optimal
-     * performance when dealing with large numbers of posts.
+     * performance when dealing with large numbers of posts. The authors are
+     * fetched in the same query, for the feed previews.
      * 
      * @param topicIds list of topic IDs to retrieve posts from
      * @param pageable pagination parameters (page number, size, sorting)
      * @return Page containing Post entities from the specified topics
      */
-    Page<Post> findByTopicIdIn(List<Long> topicIds, Pageable pageable);
+    @EntityGraph(Post.FEED_ITEM_GRAPH)
+    @Query(value = "select p from Post p where p.topic.id in :topicIds",
+           countQuery = "select count(p) from Post p where p.topic.id in :topicIds")
+    Page<Post> findByTopicIdIn(@Param("topicIds") List<Long> topicIds, Pageable pageable);
 
+    /**
+     * Finds a post with its author and topic, for the post details.
+     * 
+     * @param id the ID of the post
+     * @return Optional containing the post with its author and topic fetched, empty if not found
+     */
+    @EntityGraph(Post.DETAIL_GRAPH)
+    Optional<Post> findDetailById(Long id);
+
+    /**
+     * Records a new comment on a post by incrementing its comment count and scores.
+     * 
+     * @param postId the ID of the commented post
+     * @param hotIncrement the amount added to the hot score
+     * @param discussionIncrement the amount added to the discussion score
+     * @return the number of updated posts
+     */
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + 1, " +
+           "p.hotScore = p.hotScore + :hotIncrement, " +
+           "p.discussionScore = p.discussionScore + :discussionIncrement " +
+           "where p.id = :postId")
+    int incrementCommentActivity(@Param("postId") Long postId,
+                                 @Param("hotIncrement") double hotIncrement,
+                                 @Param("discussionIncrement") double discussionIncrement);
+
+    /**
+     * Multiplies the hot and discussion scores of a range of posts by a decay factor.
+     * 
+     * Scores falling below the given floor are reset to zero, and posts whose
+     * scores are already zero are left untouched, so old posts stop being
+     * rewritten once their scores have fully decayed.
+     * 
+     * @param fromId the exclusive lower bound of the ID range
+     * @param toId the inclusive upper bound of the ID range
+     * @param factor the decay factor, between 0 and 1
+     * @param floor the score under which a score is reset to zero
+     * @return the number of updated posts
+     */
+    @Modifying
+    @Query("update Post p set " +
+           "p.hotScore = case when p.hotScore * :factor < :floor then 0 else p.hotScore * :factor end, " +
+           "p.discussionScore = case when p.discussionScore * :factor < :floor then 0 else p.discussionScore * :factor end " +
+           "where p.id > :fromId and p.id <= :toId and (p.hotScore > 0 or p.discussionScore > 0)")
+    int decayScores(@Param("fromId") long fromId,
+                    @Param("toId") long toId,
+                    @Param("factor") double factor,
+                    @Param("floor") double floor);
+
+    /**
+     * Returns the highest post ID.
+     * 
+     * @return the highest post ID, or null if there is no post
+     */
+    @Query("select max(p.id) from Post p")
+    Long findMaxId();
+
+    /**
+     * Retrieves the comment counts of several posts in a single query.
+     * 
+     * @param ids the IDs of the posts
+     * @return List of CommentCountView projections, in no particular order
+     */
+    @Query("select p.id as id, p.commentCount as commentCount from Post p where p.id in :ids")
+    List<CommentCountView> findCommentCountsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves the IDs of the posts of a topic above a given ID.
+     * 
+     * @param topicId the ID of the topic
+     * @param afterId the exclusive lower bound of the IDs, 0 for every post
+     * @return List of the post IDs, in ascending order
+     */
+    @Query("select p.id from Post p where p.topic.id = :topicId and p.id > :afterId order by p.id")
+    List<Long> findIdsByTopicIdAfter(@Param("topicId") Long topicId, @Param("afterId") long afterId);
+
+    /**
+     * Retrieves the topic IDs of several posts in a single query.
+     * 
+     * @param ids the IDs of the posts
+     * @return List of PostTopicView projections, in no particular order
+     */
+    @Query("select p.id as id, p.topic.id as topicId from Post p where p.id in :ids")
+    List<PostTopicView> findTopicIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves a page of the posts of a topic, newest first, after a keyset cursor.
+     * 
+     * Only the columns of the feed previews are selected, and the author is
+     * joined for its username. The idx_post_topic_id index serves both the filter
+     * and the order, so the cost does not depend on how deep the page is.
+     * 
+     * @param topicId the ID of the topic
+     * @param beforeId the exclusive upper bound of the post IDs
+     * @param limit the maximum number of posts
+     * @return List of PostSummaryView projections, in descending ID order
+     */
+    @Query("select p.id as id, p.title as title, u.username as authorName, " +
+           "p.excerpt as contentPreview, p.createdAt as createdAt " +
+           "from Post p join p.user u where p.topic.id = :topicId and p.id < :beforeId order by p.id desc")
+    List<PostSummaryView> findSummariesByTopicIdBefore(@Param("topicId") Long topicId,
+                                                       @Param("beforeId") long beforeId,
+                                                       Limit limit);
+
+    /**
+     * Retrieves a page of the posts of an author, newest first, after a keyset cursor.
+     * 
+     * Only the columns of the feed previews are selected, and the filter and the
+     * order are served by the idx_post_user_id index.
+     * 
+     * @param userId the ID of the author
+     * @param beforeId the exclusive upper bound of the post IDs
+     * @param limit the maximum number of posts
+     * @return List of PostSummaryView projections, in descending ID order
+     */
+    @Query("select p.id as id, p.title as title, u.username as authorName, " +
+           "p.excerpt as contentPreview, p.createdAt as createdAt " +
+           "from Post p join p.user u where u.id = :userId and p.id < :beforeId order by p.id desc")
+    List<PostSummaryView> findSummariesByUserIdBefore(@Param("userId") Long userId,
+                                                      @Param("beforeId") long beforeId,
+                                                      Limit limit);
+
+    /**
+     * Projection of the comment count of a post.
+     */
+    interface CommentCountView {
+        Long getId();
+        int getCommentCount();
+    }
+
+    /**
+     * Projection of the topic of a post.
+     */
+    interface PostTopicView {
+        Long getId();
+        Long getTopicId();
+    }
+
+    /**
+     * Projection of the preview of a post, as shown in listings.
+     */
+    interface PostSummaryView {
+        Long getId();
+        String getTitle();
+        String getAuthorName();
+        String getContentPreview();
+        LocalDateTime getCreatedAt();
+    }
 }
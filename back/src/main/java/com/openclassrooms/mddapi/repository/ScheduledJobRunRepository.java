@@ -0,0 +1,35 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.openclassrooms.mddapi.models.ScheduledJobRun;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Repository interface for ScheduledJobRun entity database operations.
+ * 
+ * This repository extends JpaRepository to provide standard CRUD operations
+ * for job run records, along with a locking lookup used to make sure a single
+ * node claims each run of a cluster-wide job.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface ScheduledJobRunRepository extends JpaRepository<ScheduledJobRun, String> {
+
+    /**
+     * Finds the run record of a job and locks it until the end of the transaction.
+     * 
+     * @param jobName the name of the job
+     * @return Optional containing the locked record, empty if the job never ran
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ScheduledJobRun r where r.jobName = :jobName")
+    Optional<ScheduledJobRun> findForUpdate(@Param("jobName") String jobName);
+}
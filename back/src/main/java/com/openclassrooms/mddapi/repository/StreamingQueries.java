@@ -0,0 +1,55 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.stream.Stream;
+
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import static org.hibernate.jpa.HibernateHints.*;
+
+/**
+ * Runs read-only queries whose results are streamed rather than buffered.
+ * 
+ * The MySQL driver only streams rows from a forward-only cursor when the fetch
+ * size is Integer.MIN_VALUE; otherwise it buffers the whole result set. Other
+ * drivers, such as H2, reject a negative fetch size and honour a positive one.
+ * The fetch size is therefore chosen from the configured Hibernate dialect.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+final class StreamingQueries {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private StreamingQueries() {
+    }
+
+    /**
+     * Streams the results of a query with the fetch size of the current dialect.
+     * 
+     * The returned stream must be consumed inside a transaction and closed afterwards.
+     * 
+     * @param entityManager the entity manager that created the query
+     * @param query the query to run
+     * @return Stream of the query results
+     */
+    static <T> Stream<T> stream(EntityManager entityManager, TypedQuery<T> query) {
+        return query
+                .setHint(HINT_FETCH_SIZE, fetchSize(entityManager))
+                .setHint(HINT_READ_ONLY, true)
+                .setHint(HINT_CACHEABLE, false)
+                .getResultStream();
+    }
+
+    private static int fetchSize(EntityManager entityManager) {
+        SessionFactoryImplementor sessionFactory =
+                entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        return sessionFactory.getJdbcServices().getDialect() instanceof MySQLDialect
+                ? Integer.MIN_VALUE
+                : DEFAULT_FETCH_SIZE;
+    }
+}
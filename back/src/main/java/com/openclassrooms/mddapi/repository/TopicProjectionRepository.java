@@ -0,0 +1,36 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.List;
+
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.TopicWithSubscriptionDTO;
+
+/**
+ * Repository fragment for the topic queries projected on a field selection.
+ * 
+ * These queries only select the topic columns backing the requested DTO
+ * properties, the ID being always selected. The subscribed flag is not a column,
+ * and is left to the caller.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface TopicProjectionRepository {
+
+    /**
+     * Retrieves every topic.
+     * 
+     * @param fields the TopicWithSubscriptionDTO properties to select
+     * @return List of TopicWithSubscriptionDTO with the selected properties, ordered by ID
+     */
+    List<TopicWithSubscriptionDTO> findAllProjected(FieldSelection fields);
+
+    /**
+     * Retrieves the topics a user is subscribed to.
+     * 
+     * @param userId the ID of the user
+     * @param fields the TopicWithSubscriptionDTO properties to select
+     * @return List of TopicWithSubscriptionDTO with the selected properties, ordered by ID
+     */
+    List<TopicWithSubscriptionDTO> findSubscribedProjected(Long userId, FieldSelection fields);
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.TopicWithSubscriptionDTO;
+import com.openclassrooms.mddapi.models.Topic;
+import com.openclassrooms.mddapi.models.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Criteria API implementation of the TopicProjectionRepository fragment.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class TopicProjectionRepositoryImpl implements TopicProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TopicWithSubscriptionDTO> findAllProjected(FieldSelection fields) {
+        CriteriaQuery<Tuple> query = entityManager.getCriteriaBuilder().createTupleQuery();
+        Root<Topic> topic = query.from(Topic.class);
+        return fetch(query, topic, fields);
+    }
+
+    @Override
+    public List<TopicWithSubscriptionDTO> findSubscribedProjected(Long userId, FieldSelection fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.where(cb.equal(user.get("id"), userId));
+        return fetch(query, user.join("topics"), fields);
+    }
+
+    private List<TopicWithSubscriptionDTO> fetch(CriteriaQuery<Tuple> query, From<?, Topic> topic, FieldSelection fields) {
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(topic.get("id").alias("id"));
+        if (fields.includes("title")) selections.add(topic.get("title").alias("title"));
+        if (fields.includes("description")) selections.add(topic.get("description").alias("description"));
+
+        query.multiselect(selections)
+             .orderBy(entityManager.getCriteriaBuilder().asc(topic.get("id")));
+
+        return entityManager.createQuery(query)
+                .getResultList().stream()
+                .map(tuple -> {
+                    TopicWithSubscriptionDTO dto = new TopicWithSubscriptionDTO();
+                    dto.setId(tuple.get("id", Long.class));
+                    if (fields.includes("title")) dto.setTitle(tuple.get("title", String.class));
+                    if (fields.includes("description")) dto.setDescription(tuple.get("description", String.class));
+                    return dto;
+                })
+                .toList();
+    }
+}
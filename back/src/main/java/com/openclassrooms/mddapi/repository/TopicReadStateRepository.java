@@ -0,0 +1,30 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.openclassrooms.mddapi.models.TopicReadState;
+
+/**
+ * Repository interface for TopicReadState entity database operations.
+ * 
+ * This repository extends JpaRepository to provide standard CRUD operations
+ * for read states, along with a lookup of the read states of a user in several
+ * topics at once. Read states are written by the ReadStateService, in batches.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface TopicReadStateRepository extends JpaRepository<TopicReadState, TopicReadState.Key> {
+
+    /**
+     * Retrieves the read states of a user in several topics.
+     * 
+     * @param userId the ID of the user
+     * @param topicIds the IDs of the topics
+     * @return List of the existing read states, topics never read being absent
+     */
+    List<TopicReadState> findByUserIdAndTopicIdIn(Long userId, Collection<Long> topicIds);
+}
@@ -1,6 +1,12 @@
 package com.openclassrooms.mddapi.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.openclassrooms.mddapi.models.Topic;
 
@@ -11,13 +17,64 @@ import com.openclassrooms.mddapi.models.Topic;
  * for Topic entities. Topics serve as categories for organizing posts and
  * managing user subscriptions.
  * 
- * The repository inherits all standard JpaRepository methods including save,
- * findById, findAll, delete, and count operations. No custom query methods
- * are currently defined, as the standard operations meet the application's needs.
+ * The subscription queries read the user_topic join table directly from the user
+ * ID, so the user entity and its lazy topic collection are never loaded. The
+ * topics themselves are read through the TopicProjectionRepository fragment.
+ * 
+ * Subscriptions are written with native statements on the user_topic table,
+ * keyed by (user_id, topic_id), rather than through the User.topics collection:
+ * Hibernate would rewrite every row of the collection on each change, since it
+ * is mapped as a bag.
  * 
  * @author Cécile UMECKER
  
  */
-public interface TopicRepository extends JpaRepository<Topic, Long> {
+public interface TopicRepository extends JpaRepository<Topic, Long>, TopicProjectionRepository {
+
+    /**
+     * Retrieves the IDs of the topics a user is subscribed to.
+     * 
+     * @param userId the ID of the user
+     * @return List of the subscribed topic IDs
+     */
+    @Query("select t.id from User u join u.topics t where u.id = :userId")
+    List<Long> findSubscribedTopicIds(@Param("userId") Long userId);
+
+    /**
+     * Subscribes a user to a topic, unless already subscribed.
+     * 
+     * @param userId the ID of the user
+     * @param topicId the ID of the topic
+     * @return 1 if the subscription was created, 0 if it already existed
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT IGNORE INTO user_topic (user_id, topic_id) VALUES (:userId, :topicId)")
+    int insertSubscription(@Param("userId") Long userId, @Param("topicId") Long topicId);
+
+    /**
+     * Subscribes a user to several topics in a single statement.
+     * 
+     * Unknown topics and existing subscriptions are skipped.
+     * 
+     * @param userId the ID of the user
+     * @param topicIds the IDs of the topics
+     * @return the number of created subscriptions
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT IGNORE INTO user_topic (user_id, topic_id)
+            SELECT :userId, t.id FROM topic t WHERE t.id IN (:topicIds)
+            """)
+    int insertSubscriptions(@Param("userId") Long userId, @Param("topicIds") Collection<Long> topicIds);
 
+    /**
+     * Unsubscribes a user from several topics in a single statement.
+     * 
+     * @param userId the ID of the user
+     * @param topicIds the IDs of the topics
+     * @return the number of deleted subscriptions
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM user_topic WHERE user_id = :userId AND topic_id IN (:topicIds)")
+    int deleteSubscriptions(@Param("userId") Long userId, @Param("topicIds") Collection<Long> topicIds);
 }
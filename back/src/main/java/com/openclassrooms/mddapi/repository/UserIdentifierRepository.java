@@ -0,0 +1,24 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.stream.Stream;
+
+/**
+ * Repository fragment for the streaming scan of the user identifiers.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface UserIdentifierRepository {
+
+    /**
+     * Streams the username and email of every user.
+     * 
+     * This method is used to load the UserIdentifierFilter. Only the two columns
+     * are read, and the rows are streamed instead of being buffered, with the
+     * fetch size suited to the database in use. The returned stream must be
+     * consumed inside a transaction and closed afterwards.
+     * 
+     * @return Stream of [username, email] pairs
+     */
+    Stream<Object[]> streamAllIdentifiers();
+}
@@ -0,0 +1,24 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * JPQL implementation of the UserIdentifierRepository fragment.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public class UserIdentifierRepositoryImpl implements UserIdentifierRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Object[]> streamAllIdentifiers() {
+        return StreamingQueries.stream(entityManager,
+                entityManager.createQuery("select u.username, u.email from User u", Object[].class));
+    }
+}
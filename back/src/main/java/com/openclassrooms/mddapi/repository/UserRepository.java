@@ -1,10 +1,15 @@
 package com.openclassrooms.mddapi.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.openclassrooms.mddapi.dto.UserSummaryDTO;
 import com.openclassrooms.mddapi.models.User;
 
 /**
@@ -23,7 +28,7 @@ import com.openclassrooms.mddapi.models.User;
  */
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserIdentifierRepository {
 
   /**
    * Finds a user by their email address.
@@ -61,4 +66,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
    * @return true if a user with this email exists, false otherwise
    */
   boolean existsByEmail(String email);
+
+  /**
+   * Checks if a user with the specified username exists.
+   * 
+   * @param username the username to check for existence
+   * @return true if a user with this username exists, false otherwise
+   */
+  boolean existsByUsername(String username);
+
+  /**
+   * Retrieves the public information of several users in a single query.
+   * 
+   * @param ids the IDs of the users
+   * @return List of UserSummaryDTO for the existing users, in no particular order
+   */
+  @Query("select new com.openclassrooms.mddapi.dto.UserSummaryDTO(u.id, u.username) from User u where u.id in :ids")
+  List<UserSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,171 @@
+package com.openclassrooms.mddapi.security;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.openclassrooms.mddapi.Utils.AdaptiveConcurrencyLimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Filter shedding requests beyond an adaptive concurrency limit.
+ * 
+ * When MySQL slows down, requests hold their thread while they wait for a
+ * connection, and every endpoint ends up waiting behind them. This filter admits
+ * at most a limited number of requests at once, and answers the others right
+ * away with 503 Service Unavailable and a Retry-After header, before they parse
+ * their token or borrow a connection. The limit adapts to the latency of the
+ * admitted requests (see AdaptiveConcurrencyLimit), shrinking as soon as they
+ * slow down and growing back once they recover.
+ * 
+ * Endpoints are split in two groups, each with its own limit, so that a surge of
+ * secondary traffic cannot starve the critical endpoints:
+ * - critical: authentication (/auth) and the feed (/feed)
+ * - default: every other endpoint
+ * 
+ * The actuator and the bulk import and export, whose streams last for minutes,
+ * are not limited, nor are CORS preflight requests. The filter runs before the
+ * security filter chain, and is enabled by "concurrency-limit.enabled". Since a
+ * rejected request never reaches Spring MVC, which applies the CORS configuration,
+ * the filter adds the CORS headers itself, so that a browser exposes the 503 to
+ * the front-end instead of a CORS error.
+ * 
+ * Each group exposes the concurrency.limit and concurrency.in-flight gauges and
+ * the concurrency.rejected counter, tagged with the group name.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final List<String> CRITICAL_PREFIXES = List.of("/auth", "/feed");
+    private static final List<String> UNLIMITED_PREFIXES = List.of("/actuator", "/admin/bulk");
+
+    private final Map<String, Group> groups;
+    private final CorsConfigurationSource corsConfigurationSource;
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    @Value("${concurrency-limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(
+            @Value("${concurrency-limit.critical.initial:40}") int criticalInitial,
+            @Value("${concurrency-limit.critical.min:10}") int criticalMin,
+            @Value("${concurrency-limit.critical.max:150}") int criticalMax,
+            @Value("${concurrency-limit.default.initial:20}") int defaultInitial,
+            @Value("${concurrency-limit.default.min:4}") int defaultMin,
+            @Value("${concurrency-limit.default.max:100}") int defaultMax,
+            @Qualifier("corsConfigurationSource") CorsConfigurationSource corsConfigurationSource,
+            MeterRegistry meterRegistry) {
+        this.corsConfigurationSource = corsConfigurationSource;
+        this.groups = Map.of(
+                "critical", new Group("critical", new AdaptiveConcurrencyLimit(criticalInitial, criticalMin, criticalMax), meterRegistry),
+                "default", new Group("default", new AdaptiveConcurrencyLimit(defaultInitial, defaultMin, defaultMax), meterRegistry));
+    }
+
+    /**
+     * Skips the endpoints that are not limited, and the CORS preflight requests.
+     * 
+     * @param request the HTTP request
+     * @return true if the request is not subject to the concurrency limit
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return CorsUtils.isPreFlightRequest(request)
+                || UNLIMITED_PREFIXES.stream().anyMatch(prefix -> isUnder(path, prefix));
+    }
+
+    /**
+     * Serves the request if its group admits it, and rejects it with 503 otherwise.
+     * 
+     * @param request the HTTP request to process
+     * @param response the HTTP response
+     * @param filterChain the filter chain to continue processing
+     * @throws ServletException if a servlet error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getServletPath();
+        Group group = groups.get(CRITICAL_PREFIXES.stream().anyMatch(prefix -> isUnder(path, prefix)) ? "critical" : "default");
+
+        if (!group.limit().tryAcquire()) {
+            group.rejected().increment();
+            log.debug("Rejected {} {}: {} concurrency limit {} reached",
+                    request.getMethod(), path, group.name(), group.limit().getLimit());
+            CorsConfiguration cors = corsConfigurationSource.getCorsConfiguration(request);
+            if (cors != null && !corsProcessor.processRequest(cors, request, response)) {
+                // Origin not allowed: rejected with 403, as Spring MVC would.
+                return;
+            }
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Server overloaded, please retry later\"}");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            group.limit().release(System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isUnder(String path, String prefix) {
+        return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+    }
+
+    /**
+     * Endpoint group sharing a concurrency limit.
+     * 
+     * @param name the group name, used as metric tag
+     * @param limit the concurrency limit of the group
+     * @param rejected counts the requests shed
+     */
+    private record Group(String name, AdaptiveConcurrencyLimit limit, Counter rejected) {
+
+        Group(String name, AdaptiveConcurrencyLimit limit, MeterRegistry meterRegistry) {
+            this(name, limit, meterRegistry.counter("concurrency.rejected", "group", name));
+            Gauge.builder("concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("group", name)
+                    .register(meterRegistry);
+            Gauge.builder("concurrency.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("group", name)
+                    .register(meterRegistry);
+        }
+    }
+}
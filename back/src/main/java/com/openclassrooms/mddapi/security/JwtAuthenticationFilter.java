@@ -16,6 +16,8 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.mddapi.logging.TokenVerificationEvent;
+
 /**
  * JWT authentication filter for processing and validating JWT tokens from HTTP cookies.
  * 
@@ -29,6 +31,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * - Validates the token using the JwtService
  * - Sets the authentication in the SecurityContextHolder if valid
  * 
+ * Each verification is recorded as a TokenVerificationEvent in JFR recordings.
+ * 
  * This approach provides stateless authentication by validating tokens on each request
  * without maintaining server-side session state.
  * 
@@ -75,12 +79,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     .filter(c -> "access_token".equals(c.getName()))
                     .findFirst()
                     .ifPresent(cookie -> {
-                        String token = cookie.getValue();
-                        String userId = jwtService.extractUserId(token);
-                        if (jwtService.isTokenValid(token, userId)) {
-                            UsernamePasswordAuthenticationToken auth = 
-                                new UsernamePasswordAuthenticationToken(userId, null, null);
-                            SecurityContextHolder.getContext().setAuthentication(auth);
+                        TokenVerificationEvent event = new TokenVerificationEvent();
+                        event.begin();
+                        try {
+                            String token = cookie.getValue();
+                            String userId = jwtService.extractUserId(token);
+                            if (jwtService.isTokenValid(token, userId)) {
+                                event.valid = true;
+                                UsernamePasswordAuthenticationToken auth = 
+                                    new UsernamePasswordAuthenticationToken(userId, null, null);
+                                SecurityContextHolder.getContext().setAuthentication(auth);
+                            }
+                        } finally {
+                            event.commit();
                         }
                     });
             }
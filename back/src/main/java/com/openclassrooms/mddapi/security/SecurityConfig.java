@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -83,8 +84,10 @@ public class SecurityConfig {
      * 
      * This method defines the complete security configuration including:
      * - CSRF protection disabled (suitable for stateless JWT authentication)
+     * - CORS applied from the corsConfigurationSource bean, so that preflight
+     *   requests are answered before authentication
      * - Stateless session management (no server-side sessions)
-     * - Public access to authentication endpoints (register, login, refresh)
+     * - Public access to authentication endpoints (register, login, refresh, availability)
      * - All other endpoints require authentication
      * - Custom JWT authentication filter added before standard authentication
      * 
@@ -99,11 +102,13 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
+            .cors(Customizer.withDefaults())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.POST, "/auth/register").permitAll()
                 .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
                 .requestMatchers(HttpMethod.POST, "/auth/refresh").permitAll()
+                .requestMatchers(HttpMethod.GET, "/auth/availability").permitAll()
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,75 @@
+package com.openclassrooms.mddapi.security;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter logging the startup timings of the application.
+ * 
+ * Two timings are measured from the start of the JVM, so they include the class
+ * loading and the Spring context refresh that the "Started MddApiApplication" log
+ * line leaves out:
+ * - the time until the application is ready to serve requests
+ * - the time until the first request has been served
+ * 
+ * Once the first request is logged, the filter only performs a single atomic read
+ * per request.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+
+@Slf4j
+@Component
+public class StartupTimingFilter extends OncePerRequestFilter {
+
+    private final AtomicBoolean firstRequestLogged = new AtomicBoolean();
+
+    /**
+     * Logs the time elapsed between the JVM start and the application readiness.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        log.info("Application ready {} ms after JVM start", millisSinceJvmStart());
+    }
+
+    /**
+     * Serves the request, then logs the time elapsed since the JVM start if it was
+     * the first request.
+     * 
+     * @param request the HTTP request to process
+     * @param response the HTTP response
+     * @param filterChain the filter chain to continue processing
+     * @throws ServletException if a servlet error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!firstRequestLogged.get() && firstRequestLogged.compareAndSet(false, true)) {
+                log.info("First request ({} {}) served {} ms after JVM start",
+                        request.getMethod(), request.getRequestURI(), millisSinceJvmStart());
+            }
+        }
+    }
+
+    private static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
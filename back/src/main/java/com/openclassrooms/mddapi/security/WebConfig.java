@@ -1,8 +1,18 @@
 package com.openclassrooms.mddapi.security;
 
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.*;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.config.annotation.*;
 
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.openclassrooms.mddapi.dto.FieldSelection;
+
 /**
  * Web configuration class for the MDD API application.
  * 
@@ -17,7 +27,14 @@ import org.springframework.web.servlet.config.annotation.*;
  * - Enables credentials (cookies, authorization headers) to be included in requests
  * 
  * This configuration is essential for enabling seamless communication between
- * the front-end and back-end during development and testing.
+ * the front-end and back-end during development and testing. It applies to every
+ * path under the "/api" context path. It is also exposed as the
+ * corsConfigurationSource bean, which the security filter chain applies, so that
+ * preflight requests are answered before authentication, and which the
+ * ConcurrencyLimitFilter applies to the requests it rejects.
+ * 
+ * It also registers the default Jackson filter of the DTOs supporting sparse
+ * fieldsets, which serializes every property unless a FieldSelection narrows it.
  * 
  * @author Cécile UMECKER
  *
@@ -31,11 +48,30 @@ public class WebConfig {
     return new WebMvcConfigurer() {
       @Override
       public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/api/**")
-                .allowedOrigins("http://localhost:4200")
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowCredentials(true);
+        registry.addMapping("/**").combine(corsConfiguration());
       }
     };
   }
+
+  @Bean
+  public CorsConfigurationSource corsConfigurationSource() {
+    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+    // Paths are relative to the "/api" context path.
+    source.registerCorsConfiguration("/**", corsConfiguration());
+    return source;
+  }
+
+  private static CorsConfiguration corsConfiguration() {
+    CorsConfiguration configuration = new CorsConfiguration();
+    configuration.setAllowedOrigins(List.of("http://localhost:4200"));
+    configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+    configuration.setAllowCredentials(true);
+    return configuration.applyPermitDefaultValues();
+  }
+
+  @Bean
+  public Jackson2ObjectMapperBuilderCustomizer fieldSelectionFilterCustomizer() {
+    return builder -> builder.filters(new SimpleFilterProvider()
+            .addFilter(FieldSelection.FILTER_ID, SimpleBeanPropertyFilter.serializeAll()));
+  }
 }
@@ -2,10 +2,12 @@ package com.openclassrooms.mddapi.services;
 
 import java.util.Arrays;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.openclassrooms.mddapi.Utils.CookieUtil;
+import com.openclassrooms.mddapi.dto.AvailabilityDTO;
 import com.openclassrooms.mddapi.dto.LoginDTO;
 import com.openclassrooms.mddapi.dto.RegisterDTO;
 import com.openclassrooms.mddapi.models.User;
@@ -29,6 +31,10 @@ import jakarta.servlet.http.Cookie;
  * - JWT access and refresh token generation
  * - Token refresh for extending user sessions
  * - Secure cookie management for token storage
+ * - Username and email availability checks
+ * 
+ * Uniqueness checks first ask the UserIdentifierFilter, so values that are
+ * definitely free never reach the database.
  * 
  * The service uses BCrypt password encoding for security and implements a dual-token
  * system (access token and refresh token) to balance security and user experience.
@@ -45,13 +51,16 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final UserIdentifierFilter userIdentifierFilter;
 
     public AuthService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
-                       JwtService jwtService) {
+                       JwtService jwtService,
+                       UserIdentifierFilter userIdentifierFilter) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
+        this.userIdentifierFilter = userIdentifierFilter;
     }
 
     /**
@@ -86,11 +95,15 @@ public class AuthService {
      * It validates that both username and email are unique, encrypts the password
      * using BCrypt, and persists the new user to the database.
      * 
+     * Each value is only looked up in the database when the UserIdentifierFilter
+     * reports that it may be taken. A concurrent registration of the same values
+     * is caught by the unique constraints.
+     * 
      * @param request the registration request containing username, email, and password
      * @throws RuntimeException if username or email already exists
      */
     public void register(RegisterDTO request) {
-        if (userRepository.findByUsernameOrEmail(request.getUsername(), request.getEmail()).isPresent()) {
+        if (isUsernameTaken(request.getUsername()) || isEmailTaken(request.getEmail())) {
             throw new RuntimeException("Username or email already exists");
         }
 
@@ -99,7 +112,36 @@ public class AuthService {
         user.setEmail(request.getEmail());
         user.setPassword(passwordEncoder.encode(request.getPassword()));
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Username or email already exists");
+        }
+        userIdentifierFilter.add(user.getUsername(), user.getEmail());
+    }
+
+    /**
+     * Checks whether a username and an email are still free.
+     * 
+     * Values reported as definitely free by the UserIdentifierFilter are answered
+     * from memory; the others are confirmed with an indexed exists query.
+     * 
+     * @param username the username to check, may be null
+     * @param email the email to check, may be null
+     * @return AvailabilityDTO with the availability of each requested value
+     */
+    public AvailabilityDTO checkAvailability(String username, String email) {
+        return new AvailabilityDTO(
+                username == null ? null : !isUsernameTaken(username),
+                email == null ? null : !isEmailTaken(email));
+    }
+
+    private boolean isUsernameTaken(String username) {
+        return userIdentifierFilter.mightHaveUsername(username) && userRepository.existsByUsername(username);
+    }
+
+    private boolean isEmailTaken(String email) {
+        return userIdentifierFilter.mightHaveEmail(email) && userRepository.existsByEmail(email);
     }
 
     /**
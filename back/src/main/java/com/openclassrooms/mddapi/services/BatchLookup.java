@@ -0,0 +1,61 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.openclassrooms.mddapi.dto.BatchItemDTO;
+
+/**
+ * Helper resolving the IDs of a multi-get request with a single lookup.
+ * 
+ * The requested IDs are de-duplicated and passed to the lookup at once, which is
+ * expected to run a single IN query. The results are then returned in request
+ * order, with a not-found item for every ID missing from the lookup result. The
+ * number of IDs per request is capped at "batch.max-ids".
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class BatchLookup {
+
+    @Value("${batch.max-ids:100}")
+    private int maxIds;
+
+    /**
+     * Resolves a list of IDs with a single lookup.
+     * 
+     * @param <T> the type of the data returned for each ID
+     * @param ids the requested IDs, in request order
+     * @param lookup returns the data of the existing IDs among the given ones
+     * @return one BatchItemDTO per requested ID, in request order
+     * @throws ResponseStatusException with 400 status if too many IDs are requested
+     */
+    public <T> List<BatchItemDTO<T>> resolve(List<Long> ids, Function<Set<Long>, Map<Long, T>> lookup) {
+        if (ids.size() > maxIds) {
+            throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                "At most " + maxIds + " ids can be requested at once"
+            );
+        }
+
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        Map<Long, T> found = distinctIds.isEmpty() ? Map.of() : lookup.apply(distinctIds);
+        return ids.stream()
+                .filter(id -> id != null)
+                .map(id -> {
+                    T data = found.get(id);
+                    return new BatchItemDTO<>(id, data != null, data);
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,428 @@
+package com.openclassrooms.mddapi.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.openclassrooms.mddapi.dto.BulkRecordDTO;
+import com.openclassrooms.mddapi.dto.BulkReportDTO;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.CompressedTextConverter;
+import com.openclassrooms.mddapi.models.Post;
+import com.openclassrooms.mddapi.models.PostBody;
+import com.openclassrooms.mddapi.models.Topic;
+import com.openclassrooms.mddapi.repository.CommentRepository;
+import com.openclassrooms.mddapi.repository.PostRepository;
+import com.openclassrooms.mddapi.repository.TopicRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service responsible for bulk import and export of topics, posts and comments.
+ * 
+ * Both directions use NDJSON (one JSON record per line) and are streamed, so the
+ * memory footprint does not depend on the size of the dataset.
+ * 
+ * Key responsibilities:
+ * - Parse an NDJSON input line by line and validate each record
+ * - Write accepted records with batched JDBC inserts in chunked transactions
+ * - Export all records from forward-only cursors with fetch size hints
+ * - Report throughput and peak heap usage at the end of each run
+ * 
+ * Records of one chunk are always written in topic, post, comment order, so an
+ * input that lists referenced rows before the rows referencing them (as the export
+ * does) can be imported as-is. Post bodies are written to the post_body table,
+ * compressed the same way as through JPA.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkService {
+
+    private static final int MAX_REPORTED_ERRORS = 50;
+
+    private static final String INSERT_TOPIC =
+            "INSERT INTO topic (id, title, description) VALUES (?, ?, ?)";
+    private static final String INSERT_POST =
+            "INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_POST_BODY =
+            "INSERT INTO post_body (post_id, content) VALUES (?, ?)";
+    private static final String INSERT_COMMENT =
+            "INSERT INTO comment (id, content, post_id, user_id, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INCREMENT_COMMENT_COUNT =
+            "UPDATE post SET comment_count = comment_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final TopicRepository topicRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final CompressedTextConverter textConverter = new CompressedTextConverter();
+
+    @Value("${bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${bulk.chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * Imports topics, posts and comments from an NDJSON stream.
+     * 
+     * The input is read one line at a time. Malformed or invalid lines are rejected
+     * and reported without stopping the import. Accepted records are buffered until
+     * the chunk size is reached, then written with batched inserts in a single
+     * transaction. If a chunk fails (for example on a duplicate ID or a missing
+     * reference), it is rolled back and the import stops; previously committed
+     * chunks are kept. Cached feed pages are evicted on every node once posts were imported.
+     * 
+     * @param input the NDJSON input stream
+     * @return BulkReportDTO describing the outcome of the import
+     * @throws IOException if the input stream cannot be read
+     */
+    public BulkReportDTO importNdjson(InputStream input) throws IOException {
+        resetPeakHeap();
+        long start = System.nanoTime();
+        BulkReportDTO report = new BulkReportDTO();
+        ObjectReader reader = objectMapper.readerFor(BulkRecordDTO.class);
+        ImportChunk chunk = new ImportChunk();
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                report.setLinesRead(report.getLinesRead() + 1);
+
+                BulkRecordDTO record;
+                try {
+                    record = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    reject(report, lineNumber, "malformed JSON");
+                    continue;
+                }
+                if ("summary".equals(record.getType())) continue;
+
+                String error = validate(record);
+                if (error != null) {
+                    reject(report, lineNumber, error);
+                    continue;
+                }
+
+                chunk.add(record);
+                if (chunk.size() >= chunkSize && !flush(chunk, report, lineNumber)) {
+                    break;
+                }
+            }
+            if (!report.isAborted()) {
+                flush(chunk, report, lineNumber);
+            }
+        }
+
+        if (report.getTopics() > 0) {
+            cacheInvalidationBus.publish(TopicCatalogCache.NAME, InvalidatableCache.ALL_KEYS);
+        }
+        if (report.getPosts() > 0) {
+            cacheInvalidationBus.publish(FeedPageCache.NAME, InvalidatableCache.ALL_KEYS);
+            cacheInvalidationBus.publish(TopicPostIndex.NAME, InvalidatableCache.ALL_KEYS);
+        }
+        complete(report, start, report.getTopics() + report.getPosts() + report.getComments());
+        log.info("Bulk import finished: {}", report);
+        return report;
+    }
+
+    /**
+     * Exports all topics, posts and comments as NDJSON.
+     * 
+     * Topics are written first, then posts and comments are streamed from forward-only
+     * cursors inside a read-only transaction. The persistence context is cleared
+     * regularly so that already written entities can be garbage collected. A final
+     * "summary" line reports the throughput and peak heap usage of the export.
+     * 
+     * @param output the stream the NDJSON records are written to
+     */
+    public void exportNdjson(OutputStream output) {
+        resetPeakHeap();
+        long start = System.nanoTime();
+        BulkReportDTO report = new BulkReportDTO();
+        ObjectWriter writer = objectMapper.writerFor(BulkRecordDTO.class);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            for (Topic topic : topicRepository.findAll()) {
+                writeLine(output, writer, toRecord(topic));
+                report.setTopics(report.getTopics() + 1);
+            }
+            entityManager.clear();
+
+            try (Stream<PostBody> posts = postRepository.streamAllForExport()) {
+                posts.forEach(body -> {
+                    writeLine(output, writer, toRecord(body));
+                    report.setPosts(report.getPosts() + 1);
+                    releaseEvery(report.getPosts());
+                });
+            }
+
+            try (Stream<Comment> comments = commentRepository.streamAllForExport()) {
+                comments.forEach(comment -> {
+                    writeLine(output, writer, toRecord(comment));
+                    report.setComments(report.getComments() + 1);
+                    releaseEvery(report.getComments());
+                });
+            }
+        });
+
+        complete(report, start, report.getTopics() + report.getPosts() + report.getComments());
+        log.info("Bulk export finished: {}", report);
+        try {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("type", "summary");
+            summary.put("report", report);
+            output.write(objectMapper.writeValueAsBytes(summary));
+            output.write('\n');
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Validates a record according to its type.
+     * 
+     * @param record the record to validate
+     * @return an error message if the record is invalid, null otherwise
+     */
+    private String validate(BulkRecordDTO record) {
+        if (record.getType() == null) return "missing type";
+        return switch (record.getType()) {
+            case "topic" -> isBlank(record.getTitle()) || isBlank(record.getDescription())
+                    ? "topic requires title and description" : null;
+            case "post" -> isBlank(record.getTitle()) || isBlank(record.getContent())
+                    || record.getTopicId() == null || record.getUserId() == null
+                    ? "post requires title, content, topicId and userId" : null;
+            case "comment" -> isBlank(record.getContent())
+                    || record.getPostId() == null || record.getUserId() == null
+                    ? "comment requires content, postId and userId" : null;
+            default -> "unknown type '" + record.getType() + "'";
+        };
+    }
+
+    /**
+     * Writes the buffered records of a chunk in a single transaction.
+     * 
+     * @param chunk the chunk to write, cleared afterwards
+     * @param report the report to update
+     * @param lineNumber the last line number read, used for error reporting
+     * @return true if the chunk was committed, false if it was rolled back
+     */
+    private boolean flush(ImportChunk chunk, BulkReportDTO report, long lineNumber) {
+        if (chunk.size() == 0) return true;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_TOPIC, chunk.topics, batchSize, (ps, t) -> {
+                    ps.setObject(1, t.getId());
+                    ps.setString(2, t.getTitle());
+                    ps.setString(3, t.getDescription());
+                });
+                List<BulkRecordDTO> keyedPosts = chunk.posts.stream()
+                        .filter(p -> p.getId() != null)
+                        .toList();
+                jdbcTemplate.batchUpdate(INSERT_POST, keyedPosts, batchSize, this::setPostParameters);
+                for (BulkRecordDTO p : chunk.posts) {
+                    if (p.getId() == null) {
+                        // The generated ID is needed to insert the body.
+                        KeyHolder keyHolder = new GeneratedKeyHolder();
+                        jdbcTemplate.update(connection -> {
+                            PreparedStatement ps = connection.prepareStatement(INSERT_POST, new String[] { "id" });
+                            setPostParameters(ps, p);
+                            return ps;
+                        }, keyHolder);
+                        p.setId(keyHolder.getKey().longValue());
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_POST_BODY, chunk.posts, batchSize, (ps, p) -> {
+                    ps.setLong(1, p.getId());
+                    ps.setBytes(2, textConverter.convertToDatabaseColumn(p.getContent()));
+                });
+                jdbcTemplate.batchUpdate(INSERT_COMMENT, chunk.comments, batchSize, (ps, c) -> {
+                    ps.setObject(1, c.getId());
+                    ps.setString(2, c.getContent());
+                    ps.setLong(3, c.getPostId());
+                    ps.setLong(4, c.getUserId());
+                    ps.setTimestamp(5, timestampOf(c.getCreatedAt()));
+                });
+                Map<Long, Long> commentCounts = chunk.comments.stream()
+                        .collect(Collectors.groupingBy(BulkRecordDTO::getPostId, Collectors.counting()));
+                jdbcTemplate.batchUpdate(INCREMENT_COMMENT_COUNT, commentCounts.entrySet(), batchSize, (ps, e) -> {
+                    ps.setLong(1, e.getValue());
+                    ps.setLong(2, e.getKey());
+                });
+            });
+            report.setTopics(report.getTopics() + chunk.topics.size());
+            report.setPosts(report.getPosts() + chunk.posts.size());
+            report.setComments(report.getComments() + chunk.comments.size());
+            return true;
+        } catch (DataAccessException e) {
+            report.setAborted(true);
+            report.getErrors().add("chunk ending at line " + lineNumber + " rolled back: "
+                    + e.getMostSpecificCause().getMessage());
+            return false;
+        } finally {
+            chunk.clear();
+        }
+    }
+
+    private void setPostParameters(PreparedStatement ps, BulkRecordDTO p) throws SQLException {
+        ps.setObject(1, p.getId());
+        ps.setString(2, p.getTitle());
+        ps.setString(3, Post.excerptOf(p.getContent()));
+        ps.setLong(4, p.getUserId());
+        ps.setLong(5, p.getTopicId());
+        ps.setTimestamp(6, timestampOf(p.getCreatedAt()));
+    }
+
+    private void reject(BulkReportDTO report, long lineNumber, String reason) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add("line " + lineNumber + ": " + reason);
+        }
+    }
+
+    private void releaseEvery(long count) {
+        if (count % batchSize == 0) {
+            entityManager.clear();
+        }
+    }
+
+    private void writeLine(OutputStream output, ObjectWriter writer, BulkRecordDTO record) {
+        try {
+            output.write(writer.writeValueAsBytes(record));
+            output.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BulkRecordDTO toRecord(Topic topic) {
+        BulkRecordDTO record = new BulkRecordDTO();
+        record.setType("topic");
+        record.setId(topic.getId());
+        record.setTitle(topic.getTitle());
+        record.setDescription(topic.getDescription());
+        return record;
+    }
+
+    private BulkRecordDTO toRecord(PostBody body) {
+        Post post = body.getPost();
+        BulkRecordDTO record = new BulkRecordDTO();
+        record.setType("post");
+        record.setId(post.getId());
+        record.setTitle(post.getTitle());
+        record.setContent(body.getContent());
+        record.setTopicId(post.getTopic().getId());
+        record.setUserId(post.getUser().getId());
+        record.setCreatedAt(post.getCreatedAt());
+        return record;
+    }
+
+    private BulkRecordDTO toRecord(Comment comment) {
+        BulkRecordDTO record = new BulkRecordDTO();
+        record.setType("comment");
+        record.setId(comment.getId());
+        record.setContent(comment.getContent());
+        record.setPostId(comment.getPost().getId());
+        record.setUserId(comment.getUser().getId());
+        record.setCreatedAt(comment.getCreatedAt());
+        return record;
+    }
+
+    private void complete(BulkReportDTO report, long startNanos, long records) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        report.setElapsedMs(elapsedNanos / 1_000_000);
+        report.setRecordsPerSecond(elapsedNanos == 0 ? 0 : records * 1_000_000_000d / elapsedNanos);
+        report.setPeakHeapBytes(ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum());
+    }
+
+    private void resetPeakHeap() {
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static Timestamp timestampOf(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime != null ? dateTime : LocalDateTime.now());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Records accepted since the last flush, grouped by type.
+     */
+    private static class ImportChunk {
+        private final List<BulkRecordDTO> topics = new ArrayList<>();
+        private final List<BulkRecordDTO> posts = new ArrayList<>();
+        private final List<BulkRecordDTO> comments = new ArrayList<>();
+
+        void add(BulkRecordDTO record) {
+            switch (record.getType()) {
+                case "topic" -> topics.add(record);
+                case "post" -> posts.add(record);
+                default -> comments.add(record);
+            }
+        }
+
+        int size() {
+            return topics.size() + posts.size() + comments.size();
+        }
+
+        void clear() {
+            topics.clear();
+            posts.clear();
+            comments.clear();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.models.CacheInvalidation;
+import com.openclassrooms.mddapi.repository.CacheInvalidationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache invalidation bus shared by all nodes through the database.
+ * 
+ * When a node changes data that other nodes may cache, it publishes an
+ * invalidation naming a cache and a key. The invalidation is appended to the
+ * cache_invalidation table and applied to the local caches once the surrounding
+ * transaction commits. Every node tails the table at a short interval from a
+ * high-water-mark ID and applies the records published by the other nodes, so no
+ * infrastructure besides the database is needed.
+ * 
+ * Identity values may become visible out of order when transactions commit in a
+ * different order than they were assigned. The IDs skipped when the high-water
+ * mark moves forward are therefore tracked as gaps, and looked up again on every
+ * poll until their record shows up, or until "cache.bus.gap-timeout-ms" has
+ * passed, since an ID may also be skipped by a rolled-back transaction. This only
+ * relies on the IDs and on the clock of the polling node, never on the
+ * timestamps written by other nodes.
+ * 
+ * At most "cache.bus.max-gaps" gaps are tracked. The IDs skipped beyond that
+ * cannot be looked up again, so an invalidation committed late into one of them
+ * would be lost: on overflow, a warning is logged, the dropped IDs are counted in
+ * the cache.bus.gaps.dropped metric and every registered cache is invalidated,
+ * once right away and once more after "cache.bus.gap-timeout-ms", when the
+ * dropped IDs can no longer be committed.
+ * 
+ * Old records are compacted periodically, after the retention period, measured
+ * against their created_at, which is set by the database clock.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class CacheInvalidationBus {
+
+    private static final int GAP_LOOKUP_SIZE = 500;
+
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+    private final Map<String, List<InvalidatableCache>> cachesByName;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Counter published;
+    private final Counter applied;
+    private final Counter droppedGaps;
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+    /** Missing IDs below the high-water mark, with the time they were detected, in ascending order. */
+    private final LinkedHashMap<Long, Long> gaps = new LinkedHashMap<>();
+    private long highWaterMark = -1;
+    /** Time of the full invalidation following a gap overflow, or 0 if none is due. */
+    private long fullInvalidationDueAt;
+
+    @Value("${cache.bus.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cache.bus.gap-timeout-ms:300000}")
+    private long gapTimeoutMs;
+
+    @Value("${cache.bus.max-gaps:10000}")
+    private int maxGaps;
+
+    @Value("${cache.bus.retention-minutes:60}")
+    private long retentionMinutes;
+
+    public CacheInvalidationBus(CacheInvalidationRepository cacheInvalidationRepository,
+                                List<InvalidatableCache> caches,
+                                PlatformTransactionManager transactionManager,
+                                NodeIdentity nodeIdentity,
+                                MeterRegistry meterRegistry) {
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.cachesByName = caches.stream().collect(Collectors.groupingBy(InvalidatableCache::getCacheName));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeIdentity.getId();
+        this.published = meterRegistry.counter("cache.bus.published");
+        this.applied = meterRegistry.counter("cache.bus.applied");
+        this.droppedGaps = meterRegistry.counter("cache.bus.gaps.dropped");
+    }
+
+    /**
+     * Publishes an invalidation to every node, including this one.
+     * 
+     * Inside a transaction, the record is written in that transaction and the local
+     * caches are invalidated after commit. Outside a transaction, the record is
+     * written and the local caches are invalidated immediately.
+     * 
+     * @param cacheName the name of the cache to invalidate
+     * @param key the key to evict, or InvalidatableCache.ALL_KEYS
+     */
+    public void publish(String cacheName, String key) {
+        CacheInvalidation record = CacheInvalidation.builder()
+                .cacheName(cacheName)
+                .cacheKey(key)
+                .originNode(nodeId)
+                .build();
+        published.increment();
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            cacheInvalidationRepository.save(record);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyLocally(cacheName, key);
+                }
+            });
+        } else {
+            transactionTemplate.executeWithoutResult(status -> cacheInvalidationRepository.save(record));
+            applyLocally(cacheName, key);
+        }
+    }
+
+    /**
+     * Applies the invalidations published by the other nodes since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${cache.bus.poll-interval-ms:1000}")
+    public void poll() {
+        // Not a synchronized method: on a virtual thread, blocking on the database while holding a
+        // monitor would pin the carrier thread.
+        pollLock.lock();
+        try {
+            if (highWaterMark < 0) {
+                Long maxId = cacheInvalidationRepository.findMaxId();
+                highWaterMark = maxId == null ? 0 : maxId;
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            pollGaps(now);
+            if (fullInvalidationDueAt > 0 && now >= fullInvalidationDueAt) {
+                fullInvalidationDueAt = 0;
+                log.info("Invalidating every cache once the dropped gaps have timed out");
+                invalidateAll();
+            }
+
+            long dropped = 0;
+            List<CacheInvalidation> records;
+            do {
+                records = cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(highWaterMark, Limit.of(batchSize));
+                for (CacheInvalidation record : records) {
+                    long missing = record.getId() - highWaterMark - 1;
+                    long tracked = Math.min(missing, Math.max(0, maxGaps - gaps.size()));
+                    for (long id = highWaterMark + 1; id <= highWaterMark + tracked; id++) {
+                        gaps.put(id, now);
+                    }
+                    dropped += missing - tracked;
+                    apply(record);
+                    highWaterMark = record.getId();
+                }
+            } while (records.size() == batchSize);
+
+            if (dropped > 0) {
+                onGapOverflow(dropped, now);
+            }
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the records older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${cache.bus.compaction-interval-ms:600000}")
+    public void compact() {
+        Integer deleted = transactionTemplate.execute(status ->
+                cacheInvalidationRepository.deleteOlderThan(retentionMinutes));
+        log.debug("Compacted {} cache invalidation records", deleted);
+    }
+
+    /**
+     * Applies the records committed since the last poll below the high-water mark.
+     * 
+     * @param now the current time of this node, in epoch milliseconds
+     */
+    private void pollGaps(long now) {
+        Iterator<Long> detectedAt = gaps.values().iterator();
+        while (detectedAt.hasNext() && detectedAt.next() < now - gapTimeoutMs) {
+            detectedAt.remove();
+        }
+        List<Long> ids = new ArrayList<>(gaps.keySet());
+        for (int from = 0; from < ids.size(); from += GAP_LOOKUP_SIZE) {
+            for (CacheInvalidation record : cacheInvalidationRepository.findByIdIn(
+                    ids.subList(from, Math.min(ids.size(), from + GAP_LOOKUP_SIZE)))) {
+                gaps.remove(record.getId());
+                apply(record);
+            }
+        }
+    }
+
+    /**
+     * Invalidates every registered cache, since invalidations committed into the
+     * dropped IDs would not be seen.
+     * 
+     * @param dropped the number of IDs not tracked as gaps
+     * @param now the current time of this node, in epoch milliseconds
+     */
+    private void onGapOverflow(long dropped, long now) {
+        log.warn("{} gaps already tracked, {} missing IDs below {} dropped: invalidating every cache",
+                gaps.size(), dropped, highWaterMark);
+        droppedGaps.increment(dropped);
+        invalidateAll();
+        fullInvalidationDueAt = now + gapTimeoutMs;
+    }
+
+    private void invalidateAll() {
+        cachesByName.keySet().forEach(cacheName -> applyLocally(cacheName, InvalidatableCache.ALL_KEYS));
+    }
+
+    private void apply(CacheInvalidation record) {
+        if (!nodeId.equals(record.getOriginNode())) {
+            applyLocally(record.getCacheName(), record.getCacheKey());
+            applied.increment();
+        }
+    }
+
+    private void applyLocally(String cacheName, String key) {
+        for (InvalidatableCache cache : cachesByName.getOrDefault(cacheName, List.of())) {
+            try {
+                cache.invalidate(key);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation of {}[{}] failed: {}", cacheName, key, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.openclassrooms.mddapi.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.dto.FeedPostDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Shared cache of the first feed pages, keyed by subscription set.
+ * 
+ * Many users subscribe to the exact same combination of topics, and their feeds
+ * are then identical. Entries are keyed by a canonical hash of the sorted set of
+ * subscribed topic IDs, the sort mode, the page number and the page size, so every
+ * user with the same subscriptions shares a single cached result.
+ * 
+ * Only the first "feed.cache.max-pages" pages are cached, and the cache holds at
+ * most "feed.cache.max-entries" entries, evicting the least recently used one.
+ * An index from topic ID to cache keys allows the entries of a topic to be
+ * invalidated precisely when a post is written to it. A generation counter keeps
+ * a page computed concurrently with an invalidation from being stored.
+ * 
+ * Invalidations go through the CacheInvalidationBus under the "feed-pages" name,
+ * with the topic ID as key, so every node evicts its own copy of the pages.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class FeedPageCache implements InvalidatableCache {
+
+    public static final String NAME = "feed-pages";
+
+    private final int maxPages;
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private final Map<Long, Set<String>> keysByTopic = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private long generation;
+
+    public FeedPageCache(@Value("${feed.cache.max-pages:3}") int maxPages,
+                         @Value("${feed.cache.max-entries:10000}") int maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.maxPages = maxPages;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = meterRegistry.counter("feed.cache.hits");
+        this.misses = meterRegistry.counter("feed.cache.misses");
+        meterRegistry.gaugeMapSize("feed.cache.size", List.of(), entries);
+    }
+
+    /**
+     * Returns the cached feed page, computing and caching it on a miss.
+     * 
+     * Pages beyond the configured number of cached pages are always computed.
+     * 
+     * @param topicIds the IDs of the topics the user is subscribed to
+     * @param sortMode the canonical sort mode of the feed, followed by the key of the field selection
+     * @param page the page number (zero-based index)
+     * @param size the page size
+     * @param loader computes the page on a miss
+     * @return the feed page
+     */
+    public Page<FeedPostDTO> get(Collection<Long> topicIds, String sortMode, int page, int size,
+                                 Supplier<Page<FeedPostDTO>> loader) {
+        if (page >= maxPages) {
+            return loader.get();
+        }
+
+        Set<Long> topics = Set.copyOf(topicIds);
+        String key = keyOf(topics, sortMode, page, size);
+        long observedGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.page();
+            }
+            observedGeneration = generation;
+        }
+
+        misses.increment();
+        Page<FeedPostDTO> result = loader.get();
+
+        synchronized (this) {
+            if (generation == observedGeneration) {
+                store(key, new Entry(result, topics));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String getCacheName() {
+        return NAME;
+    }
+
+    /**
+     * Evicts the pages of a topic, or every page if the key is ALL_KEYS.
+     * 
+     * @param key the topic ID, or ALL_KEYS
+     */
+    @Override
+    public void invalidate(String key) {
+        if (ALL_KEYS.equals(key)) {
+            invalidateAll();
+        } else {
+            invalidateTopic(Long.valueOf(key));
+        }
+    }
+
+    /**
+     * Evicts every cached page that includes posts from the given topic.
+     * 
+     * @param topicId the ID of the topic that received a new post
+     */
+    public synchronized void invalidateTopic(Long topicId) {
+        generation++;
+        Set<String> keys = keysByTopic.remove(topicId);
+        if (keys != null) {
+            keys.forEach(key -> remove(key, topicId));
+        }
+    }
+
+    /**
+     * Evicts every cached page.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        keysByTopic.clear();
+    }
+
+    private void store(String key, Entry entry) {
+        entries.put(key, entry);
+        entry.topicIds().forEach(topicId -> keysByTopic.computeIfAbsent(topicId, id -> new HashSet<>()).add(key));
+
+        if (entries.size() > maxEntries) {
+            String eldest = entries.keySet().iterator().next();
+            remove(eldest, null);
+        }
+    }
+
+    private void remove(String key, Long skippedTopicId) {
+        Entry entry = entries.remove(key);
+        if (entry == null) return;
+        for (Long topicId : entry.topicIds()) {
+            if (topicId.equals(skippedTopicId)) continue;
+            Set<String> keys = keysByTopic.get(topicId);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) keysByTopic.remove(topicId);
+            }
+        }
+    }
+
+    /**
+     * Builds the canonical cache key of a feed page.
+     * 
+     * @param topicIds the subscribed topic IDs
+     * @param sortMode the canonical sort mode and field selection
+     * @param page the page number
+     * @param size the page size
+     * @return a key made of the SHA-256 hash of the sorted topic IDs and the page parameters
+     */
+    private static String keyOf(Set<Long> topicIds, String sortMode, int page, int size) {
+        String canonicalTopics = topicIds.stream()
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalTopics.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + "|" + sortMode + "|" + page + "|" + size;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(Page<FeedPostDTO> page, Set<Long> topicIds) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.openclassrooms.mddapi.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.repository.PostRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service maintaining the precomputed scores behind the ranked feed sort modes.
+ * 
+ * Scores are updated incrementally: a new post starts with a hot score of
+ * "feed.ranking.post-weight", and every comment adds "feed.ranking.comment-weight"
+ * to its hot score, one to its discussion score and one to its comment count.
+ * 
+ * A periodic job decays the hot and discussion scores exponentially with a
+ * half-life of "feed.ranking.half-life-hours", so recent activity weighs more than
+ * old activity. The job walks the post table in ID-range batches, each in its own
+ * short transaction, and runs once per interval across all nodes through the
+ * JobCoordinator. Since the ranked feed pages are cached, the feed page cache is
+ * invalidated after each run.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class FeedRankingService {
+
+    static final String DECAY_JOB = "feed-score-decay";
+
+    private final PostRepository postRepository;
+    private final JobCoordinator jobCoordinator;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${feed.ranking.post-weight:1.0}")
+    private double postWeight;
+
+    @Value("${feed.ranking.comment-weight:1.0}")
+    private double commentWeight;
+
+    @Value("${feed.ranking.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${feed.ranking.decay-interval-ms:900000}")
+    private long decayIntervalMs;
+
+    @Value("${feed.ranking.decay-batch-size:5000}")
+    private int decayBatchSize;
+
+    @Value("${feed.ranking.score-floor:0.001}")
+    private double scoreFloor;
+
+    public FeedRankingService(PostRepository postRepository,
+                              JobCoordinator jobCoordinator,
+                              CacheInvalidationBus cacheInvalidationBus,
+                              PlatformTransactionManager transactionManager) {
+        this.postRepository = postRepository;
+        this.jobCoordinator = jobCoordinator;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns the hot score given to a new post.
+     * 
+     * @return the initial hot score
+     */
+    public double initialHotScore() {
+        return postWeight;
+    }
+
+    /**
+     * Updates the comment count and scores of a post for a comment being added.
+     * Must be called within the transaction that saves the comment. The update
+     * locks the post row until that transaction ends. Since the order of the
+     * ranked feeds changes, the cached feed pages including the topic of the post
+     * are evicted once the transaction commits.
+     * 
+     * @param postId the ID of the commented post
+     * @param topicId the ID of the topic of the post
+     * @return true if the post was updated, false if it no longer exists
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean recordComment(Long postId, Long topicId) {
+        if (postRepository.incrementCommentActivity(postId, commentWeight, 1.0) == 0) {
+            return false;
+        }
+        cacheInvalidationBus.publish(FeedPageCache.NAME, topicId.toString());
+        return true;
+    }
+
+    /**
+     * Decays the scores of every post according to the time elapsed since the
+     * previous run.
+     */
+    @Scheduled(fixedDelayString = "${feed.ranking.decay-interval-ms:900000}",
+               initialDelayString = "${feed.ranking.decay-interval-ms:900000}")
+    public void decay() {
+        // Tolerate scheduling jitter between nodes while still running once per interval.
+        Duration minInterval = Duration.ofMillis(decayIntervalMs * 9 / 10);
+        jobCoordinator.claim(DECAY_JOB, minInterval).ifPresent(elapsed -> {
+            if (elapsed.isZero()) return;
+            decayScores(elapsed);
+        });
+    }
+
+    private void decayScores(Duration elapsed) {
+        double elapsedHours = elapsed.toMillis() / 3_600_000.0;
+        double factor = Math.pow(0.5, elapsedHours / halfLifeHours);
+        Long maxId = postRepository.findMaxId();
+        if (maxId == null) return;
+
+        long updated = 0;
+        for (long fromId = 0; fromId < maxId; fromId += decayBatchSize) {
+            long lower = fromId;
+            long upper = Math.min(fromId + decayBatchSize, maxId);
+            Integer count = transactionTemplate.execute(status ->
+                    postRepository.decayScores(lower, upper, factor, scoreFloor));
+            updated += count == null ? 0 : count;
+        }
+
+        cacheInvalidationBus.publish(FeedPageCache.NAME, InvalidatableCache.ALL_KEYS);
+        log.info("Decayed feed scores of {} posts by a factor of {}", updated, factor);
+    }
+}
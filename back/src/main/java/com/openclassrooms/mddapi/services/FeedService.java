@@ -5,15 +5,18 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.openclassrooms.mddapi.dto.FeedPostDTO;
+import com.openclassrooms.mddapi.dto.FeedSortMode;
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.logging.DtoMappingEvent;
+import com.openclassrooms.mddapi.logging.RequestPhaseEvent;
 import com.openclassrooms.mddapi.models.Post;
-import com.openclassrooms.mddapi.models.Topic;
-import com.openclassrooms.mddapi.models.User;
 import com.openclassrooms.mddapi.repository.PostRepository;
+import com.openclassrooms.mddapi.repository.TopicRepository;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,10 +31,19 @@ import lombok.RequiredArgsConstructor;
  * - Generate personalized feeds based on user subscriptions
  * - Retrieve posts from subscribed topics with pagination
  * - Map post entities to feed DTOs with content previews
- * - Truncate long content for preview display
  * 
  * Posts in the feed are limited to those from topics the user has subscribed to,
- * and content is truncated to 150 characters for preview purposes.
+ * and show the 150-character excerpt stored with the post, so the bodies are
+ * never read. The first pages are served from a cache shared by all users with
+ * the same subscriptions.
+ * 
+ * A feed page runs a fixed number of queries: one for the subscribed topic IDs,
+ * then, on a cache miss, the page query fetching the authors and the count query.
+ * When only some properties are requested through the "fields" parameter, the
+ * page query only selects their columns, and only joins the authors if needed.
+ * 
+ * The "feed.subscriptions" and "feed.page" request phases, and the mapping of the
+ * page, are recorded as JFR events (see RequestPhaseEvent and DtoMappingEvent).
  * 
  * @author Cécile UMECKER
  
@@ -41,39 +53,57 @@ import lombok.RequiredArgsConstructor;
 public class FeedService {
 
     private final PostRepository postRepository;
+    private final TopicRepository topicRepository;
     private final UserService userService;
-
-    private static final int CONTENT_PREVIEW_LENGTH = 150;
+    private final FeedPageCache feedPageCache;
 
     /**
      * Retrieves a paginated feed of posts for the authenticated user.
      * 
      * This method generates a personalized feed by fetching posts from all topics
      * that the current user has subscribed to. Posts are returned in paginated format
-     * with content previews for better performance and user experience.
+     * with content previews for better performance and user experience. The first
+     * pages are shared through the FeedPageCache between users subscribed to the
+     * same set of topics.
      * 
      * @param page the page number to retrieve (zero-based index)
      * @param size the number of posts per page
-     * @param sort optional sorting parameter in format "field,direction" (e.g., "createdAt,asc")
+     * @param sort optional sort mode: new (default), old, hot, top or discussed;
+     *             the legacy "createdAt,desc" and "createdAt,asc" values are also accepted
+     * @param fields the FeedPostDTO properties to select
      * @return a Page containing FeedPostDTO objects with post previews
+     * @throws ResponseStatusException with 400 status if the sort mode is unknown
      */
-    public Page<FeedPostDTO> getFeed(int page, int size, @RequestParam(required = false) String sort) {
-        User user = userService.getAuthenticatedUser();
-        List<Long> subscribedTopicIds = user.getTopics().stream()
-                                        .map(Topic::getId)
-                                        .toList();
+    public Page<FeedPostDTO> getFeed(int page, int size, @RequestParam(required = false) String sort,
+                                     FieldSelection fields) {
+        RequestPhaseEvent subscriptionsPhase = new RequestPhaseEvent("feed.subscriptions");
+        subscriptionsPhase.begin();
+        List<Long> subscribedTopicIds = topicRepository.findSubscribedTopicIds(userService.getAuthenticatedUserId());
+        subscriptionsPhase.commit();
 
-        Pageable pageable;
-        if (sort != null && !sort.isEmpty()) {
-            String[] parts = sort.split(",");
-            Sort.Direction direction = Sort.Direction.fromString(parts[1]);
-            pageable = PageRequest.of(page, size, Sort.by(direction, parts[0]));
-        } else {
-            pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        }
+        FeedSortMode sortMode = FeedSortMode.fromParam(sort);
 
-        return postRepository.findByTopicIdIn(subscribedTopicIds, pageable)
-                            .map(this::mapToDTO);
+        String variant = sortMode.name() + "|" + fields.key();
+        return feedPageCache.get(subscribedTopicIds, variant, page, size, () -> {
+            RequestPhaseEvent pagePhase = new RequestPhaseEvent("feed.page");
+            pagePhase.begin();
+            try {
+                Pageable pageable = PageRequest.of(page, size, sortMode.getSort());
+
+                if (!fields.isAll()) {
+                    return postRepository.findFeedItems(subscribedTopicIds, fields, pageable);
+                }
+                Page<Post> posts = postRepository.findByTopicIdIn(subscribedTopicIds, pageable);
+                DtoMappingEvent mapping = new DtoMappingEvent(FeedPostDTO.class);
+                mapping.begin();
+                Page<FeedPostDTO> feed = posts.map(this::mapToDTO);
+                mapping.itemCount = feed.getNumberOfElements();
+                mapping.commit();
+                return feed;
+            } finally {
+                pagePhase.commit();
+            }
+        });
     }
 
     /**
@@ -81,7 +111,7 @@ public class FeedService {
      * 
      * This method transforms a full post entity into a lightweight DTO suitable
      * for feed display. It includes the post ID, title, author name, creation date,
-     * and a truncated content preview.
+     * and the excerpt of its content.
      * 
      * @param post the Post entity to map
      * @return a FeedPostDTO containing post preview information
@@ -92,24 +122,7 @@ public class FeedService {
         dto.setTitle(post.getTitle());
         dto.setAuthorName(post.getUser().getUsername());
         dto.setCreatedAt(post.getCreatedAt());
-        dto.setContentPreview(truncateContent(post.getContent()));
+        dto.setContentPreview(post.getExcerpt());
         return dto;
     }
-
-    /**
-     * Truncates content to a preview length for feed display.
-     * 
-     * This method limits content to a maximum of 150 characters for preview purposes.
-     * If the content exceeds this length, it is trimmed and appended with "...".
-     * If content is null, an empty string is returned.
-     * 
-     * @param content the full content text to truncate
-     * @return the truncated content with ellipsis if needed, or empty string if null
-     */
-    private String truncateContent(String content) {
-        if (content == null) return "";
-        if (content.length() <= CONTENT_PREVIEW_LENGTH) return content;
-        return content.substring(0, CONTENT_PREVIEW_LENGTH).trim() + "...";
-    }
 }
-
@@ -0,0 +1,145 @@
+package com.openclassrooms.mddapi.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.openclassrooms.mddapi.logging.DtoMappingEvent;
+import com.openclassrooms.mddapi.logging.RepositoryCallEvent;
+import com.openclassrooms.mddapi.logging.RequestPhaseEvent;
+import com.openclassrooms.mddapi.logging.TokenVerificationEvent;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service managing an on-demand Java Flight Recorder recording.
+ * 
+ * Administrators can start a recording, dump what it holds so far to a file,
+ * and stop it. The recording uses the JDK "profile" settings, plus the events of
+ * the application, every one of them being recorded:
+ * - RequestPhaseEvent: requests and phases of the feed
+ * - TokenVerificationEvent: verification of the access tokens
+ * - RepositoryCallEvent: repository calls, with their query name and row count
+ * - DtoMappingEvent: mapping of lists to DTOs, with their item count
+ * 
+ * The recording keeps the last "jfr.max-age-minutes" of events, and at most
+ * "jfr.max-size-mb" of them. Dumps are written to "jfr.dump-directory", on the
+ * local disk of the node. A running recording is dumped on shutdown.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class FlightRecorderService {
+
+    private static final List<Class<? extends Event>> APPLICATION_EVENTS = List.of(
+            RequestPhaseEvent.class, TokenVerificationEvent.class, RepositoryCallEvent.class, DtoMappingEvent.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private Recording recording;
+
+    @Value("${jfr.dump-directory:${java.io.tmpdir}}")
+    private String dumpDirectory;
+
+    @Value("${jfr.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${jfr.max-size-mb:250}")
+    private long maxSizeMb;
+
+    /**
+     * Starts a recording.
+     * 
+     * @return a message describing the started recording
+     * @throws ResponseStatusException with 409 status if a recording is already running
+     */
+    public synchronized String start() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A recording is already running");
+        }
+        try {
+            Recording started = new Recording(Configuration.getConfiguration("profile"));
+            started.setName("mdd-api");
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            started.setMaxSize(maxSizeMb * 1024 * 1024);
+            APPLICATION_EVENTS.forEach(event -> started.enable(event).withoutThreshold());
+            started.start();
+            recording = started;
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("The JFR profile settings could not be read", e);
+        }
+        log.info("JFR recording started");
+        return "Recording started, keeping the last " + maxAgeMinutes + " minutes";
+    }
+
+    /**
+     * Dumps the events recorded so far to a file, leaving the recording running.
+     * 
+     * @return the path of the written file
+     * @throws ResponseStatusException with 409 status if no recording is running
+     */
+    public synchronized Path dump() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "No recording is running");
+        }
+        return dumpTo(recording);
+    }
+
+    /**
+     * Stops the recording, and dumps its events to a file.
+     * 
+     * @return the path of the written file
+     * @throws ResponseStatusException with 409 status if no recording is running
+     */
+    public synchronized Path stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "No recording is running");
+        }
+        try {
+            recording.stop();
+            return dumpTo(recording);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * Dumps and closes a running recording on shutdown.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            stop();
+        }
+    }
+
+    private Path dumpTo(Recording source) {
+        try {
+            Path directory = Files.createDirectories(Path.of(dumpDirectory));
+            Path file = directory.resolve("mdd-api-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+            source.dump(file);
+            log.info("JFR recording dumped to {}", file);
+            return file;
+        } catch (IOException e) {
+            throw new IllegalStateException("The recording could not be written to " + dumpDirectory, e);
+        }
+    }
+}
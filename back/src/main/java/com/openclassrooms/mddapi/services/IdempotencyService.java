@@ -0,0 +1,340 @@
+package com.openclassrooms.mddapi.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.models.IdempotencyRecord;
+import com.openclassrooms.mddapi.repository.IdempotencyRecordRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service executing create requests at most once per Idempotency-Key header.
+ * 
+ * Clients retrying a request after a timeout send the same key, scoped by user,
+ * and get the response of the first execution back, with the Idempotent-Replayed
+ * header, instead of creating a duplicate. A key reused for a different request
+ * is rejected with 422 Unprocessable Entity.
+ * 
+ * Recent keys are held in a bounded in-memory map, evicting the least recently
+ * used ones first, as futures of their response: a duplicate arriving while the
+ * first request is executing on this node waits for its outcome. Keys are also
+ * recorded in the idempotency_record table (see IdempotencyRecord), so duplicates
+ * reaching other nodes are detected too; they poll the record until the response
+ * is stored. A node claims a key by inserting its record before executing the
+ * request, and stores the response in the transaction of the request itself, so
+ * a committed change always has its response recorded. Each claim, or take-over
+ * of an expired lock, gets a random token, stored as the lock owner: only the
+ * execution holding the current token can store its response or release the key,
+ * even when an earlier execution on the same node is still running.
+ * 
+ * Failed requests are not recorded: their key is released, and a retry executes
+ * the request again. A duplicate still waiting after "idempotency.wait-timeout-ms"
+ * is answered with 409 Conflict. Keys expire after "idempotency.ttl-minutes".
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter replays;
+    private final Map<IdempotencyRecord.Key, Entry> entries;
+
+    @Value("${idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${idempotency.lock-timeout-ms:30000}")
+    private long lockTimeoutMs;
+
+    @Value("${idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              UserService userService,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.replays = meterRegistry.counter("idempotency.replays");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyRecord.Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Executes a request once for an idempotency key of the current user.
+     * 
+     * @param key the Idempotency-Key header of the request
+     * @param operation the method and path template of the request, such as "POST /post"
+     * @param request the body of the request, compared with the one of the first execution
+     * @param action executes the request and returns the response body
+     * @return the response of the request, replayed if it was already executed
+     * @throws ResponseStatusException with 400 status if the key is blank or too long,
+     *         with 422 status if the key was used for a different request,
+     *         or with 409 status if the first execution is still running after the wait timeout
+     */
+    public IdempotentResponse execute(String key, String operation, Object request, Supplier<?> action) {
+        if (key.isBlank() || key.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must be between 1 and " + IdempotencyRecord.MAX_KEY_LENGTH + " characters");
+        }
+        IdempotencyRecord.Key recordKey = new IdempotencyRecord.Key(userService.getAuthenticatedUserId(), key);
+        String requestHash = hash(operation, request);
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (true) {
+            Entry entry = new Entry(requestHash, new CompletableFuture<>(),
+                    System.currentTimeMillis() + Duration.ofMinutes(ttlMinutes).toMillis());
+            Entry existing = putIfAbsent(recordKey, entry);
+            if (existing == null) {
+                try {
+                    IdempotentResponse response = executeOnce(recordKey, requestHash, deadline, action);
+                    entry.response().complete(response);
+                    return response;
+                } catch (RuntimeException e) {
+                    remove(recordKey, entry);
+                    entry.response().completeExceptionally(e);
+                    throw e;
+                }
+            }
+
+            if (!existing.requestHash().equals(requestHash)) {
+                throw keyReused();
+            }
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                IdempotentResponse response = existing.response().get(remaining, TimeUnit.MILLISECONDS);
+                replays.increment();
+                return response.replayed() ? response : new IdempotentResponse(response.status(), response.body(), true);
+            } catch (ExecutionException e) {
+                // The first execution failed and released the key: execute the request again.
+            } catch (TimeoutException e) {
+                throw inProgress();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw inProgress();
+            }
+        }
+    }
+
+    /**
+     * Deletes the expired keys, in memory and in the database.
+     */
+    @Scheduled(cron = "${idempotency.cleanup-cron:0 */10 * * * *}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.expiresAt() < now);
+        }
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        log.debug("Purged {} expired idempotency records", deleted);
+    }
+
+    /**
+     * Claims a key in the database and executes its request, unless another node did.
+     * 
+     * @param recordKey the user and idempotency key
+     * @param requestHash the hash of the request
+     * @param deadline the time after which waiting for another node gives up, in epoch milliseconds
+     * @param action executes the request and returns the response body
+     * @return the response of the request, replayed if another node executed it
+     */
+    private IdempotentResponse executeOnce(IdempotencyRecord.Key recordKey, String requestHash, long deadline,
+                                           Supplier<?> action) {
+        Long userId = recordKey.getUserId();
+        String key = recordKey.getIdempotencyKey();
+        String claimToken = UUID.randomUUID().toString();
+        boolean missing = false;
+        while (!claim(userId, key, requestHash, claimToken)) {
+            IdempotencyRecord record = idempotencyRecordRepository.findById(recordKey).orElse(null);
+            if (record == null) {
+                // The record was released or purged since the claim: claim it again, once. A claim
+                // failing without any record means INSERT IGNORE discarded an error, such as a
+                // foreign key violation.
+                if (missing) {
+                    throw new IllegalStateException("Idempotency key could not be claimed");
+                }
+                missing = true;
+            } else if (record.getExpiresAt().isBefore(LocalDateTime.now())) {
+                transactionTemplate.execute(status -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+            } else {
+                if (!record.getRequestHash().equals(requestHash)) {
+                    throw keyReused();
+                }
+                if (record.getResponseStatus() != null) {
+                    replays.increment();
+                    return new IdempotentResponse(record.getResponseStatus(), record.getResponseBody(), true);
+                }
+                if (takeOver(userId, key, claimToken)) break;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw inProgress();
+            }
+            sleep();
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                byte[] body = encode(action.get());
+                if (idempotencyRecordRepository.complete(userId, key, claimToken, HttpStatus.OK.value(), body) == 0) {
+                    // The lock expired and another execution took the request over: undo this one.
+                    throw inProgress();
+                }
+                return new IdempotentResponse(HttpStatus.OK.value(), body, false);
+            });
+        } catch (RuntimeException e) {
+            transactionTemplate.execute(status -> idempotencyRecordRepository.release(userId, key, claimToken));
+            throw e;
+        }
+    }
+
+    private boolean claim(Long userId, String key, String requestHash, String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status -> idempotencyRecordRepository.claim(
+                userId, key, requestHash, claimToken,
+                now.plus(Duration.ofMillis(lockTimeoutMs)), now, now.plusMinutes(ttlMinutes)));
+        return claimed != null && claimed == 1;
+    }
+
+    private boolean takeOver(Long userId, String key, String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer taken = transactionTemplate.execute(status -> idempotencyRecordRepository.takeOver(
+                userId, key, claimToken, now.plus(Duration.ofMillis(lockTimeoutMs)), now));
+        return taken != null && taken == 1;
+    }
+
+    private Entry putIfAbsent(IdempotencyRecord.Key recordKey, Entry entry) {
+        synchronized (entries) {
+            Entry existing = entries.get(recordKey);
+            if (existing != null && existing.expiresAt() >= System.currentTimeMillis()) {
+                return existing;
+            }
+            entries.put(recordKey, entry);
+            return null;
+        }
+    }
+
+    private void remove(IdempotencyRecord.Key recordKey, Entry entry) {
+        synchronized (entries) {
+            entries.remove(recordKey, entry);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(pollIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private byte[] encode(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be serialized", e);
+        }
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return HexFormat.of().formatHex(digest.digest(encode(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseStatusException keyReused() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                HEADER + " was already used for a different request");
+    }
+
+    private static ResponseStatusException inProgress() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "A request with the same " + HEADER + " is still in progress");
+    }
+
+    /**
+     * Recent key held in memory.
+     * 
+     * @param requestHash the hash of the request
+     * @param response completes with the response of the first execution
+     * @param expiresAt the expiry time of the key, in epoch milliseconds
+     */
+    private record Entry(String requestHash, CompletableFuture<IdempotentResponse> response, long expiresAt) {
+    }
+
+    /**
+     * Response of a request executed through an idempotency key.
+     * 
+     * @param status the HTTP status of the response
+     * @param body the JSON body of the response
+     * @param replayed true if the response comes from an earlier execution
+     */
+    public record IdempotentResponse(int status, byte[] body, boolean replayed) {
+
+        /**
+         * Builds the HTTP response, flagged with the Idempotent-Replayed header when replayed.
+         * 
+         * @return the HTTP response
+         */
+        public ResponseEntity<byte[]> toResponse() {
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (replayed) {
+                response.header(REPLAYED_HEADER, "true");
+            }
+            return response.body(body);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.mddapi.services;
+
+/**
+ * Contract for node-local caches kept consistent through the invalidation bus.
+ * 
+ * Every Spring bean implementing this interface is registered with the
+ * CacheInvalidationBus under its cache name. When any node publishes an
+ * invalidation for that name, the bus calls the cache on every node.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface InvalidatableCache {
+
+    /**
+     * Key meaning that every entry of the cache must be evicted.
+     */
+    String ALL_KEYS = "*";
+
+    /**
+     * Returns the name under which invalidations for this cache are published.
+     * 
+     * @return the cache name
+     */
+    String getCacheName();
+
+    /**
+     * Evicts the entries matching a key, or every entry if the key is ALL_KEYS.
+     * 
+     * @param key the key published with the invalidation
+     */
+    void invalidate(String key);
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.mddapi.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.models.ScheduledJobRun;
+import com.openclassrooms.mddapi.repository.ScheduledJobRunRepository;
+
+/**
+ * Service coordinating cluster-wide scheduled jobs between nodes.
+ * 
+ * Every node schedules the same jobs, but some of them must only run once per
+ * interval across the whole deployment. Before running, a node claims the run in
+ * a short transaction that locks the job's ScheduledJobRun row; the claim fails if
+ * another node already ran the job less than the minimum interval ago.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Service
+public class JobCoordinator {
+
+    private final ScheduledJobRunRepository scheduledJobRunRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+
+    public JobCoordinator(ScheduledJobRunRepository scheduledJobRunRepository,
+                          PlatformTransactionManager transactionManager,
+                          NodeIdentity nodeIdentity) {
+        this.scheduledJobRunRepository = scheduledJobRunRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeIdentity.getId();
+    }
+
+    /**
+     * Claims the next run of a job if it is due.
+     * 
+     * @param jobName the name of the job
+     * @param minInterval the minimum time between two runs across all nodes
+     * @return Optional containing the time elapsed since the previous run (zero for
+     *         the first run), or empty if the job is not due or was claimed by another node
+     */
+    public Optional<Duration> claim(String jobName, Duration minInterval) {
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                Optional<ScheduledJobRun> existing = scheduledJobRunRepository.findForUpdate(jobName);
+
+                if (existing.isEmpty()) {
+                    scheduledJobRunRepository.saveAndFlush(new ScheduledJobRun(jobName, now, nodeId));
+                    return Optional.of(Duration.ZERO);
+                }
+
+                ScheduledJobRun run = existing.get();
+                Duration elapsed = Duration.between(run.getLastRunAt(), now);
+                if (elapsed.compareTo(minInterval) < 0) {
+                    return Optional.<Duration>empty();
+                }
+                run.setLastRunAt(now);
+                run.setLastRunBy(nodeId);
+                return Optional.of(elapsed);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the record of the first run concurrently.
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.mddapi.services;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identifies the current application instance among the nodes of a deployment.
+ * 
+ * The identifier comes from the "app.node-id" property when it is set. Otherwise
+ * it is derived from the host name, the process ID and a random suffix, so that
+ * two instances started on the same host never share an identifier.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node-id:}") String configuredId) {
+        this.id = configuredId.isBlank() ? generateId() : configuredId;
+    }
+
+    /**
+     * Returns the identifier of this node.
+     * 
+     * @return the node identifier, stable for the lifetime of the process
+     */
+    public String getId() {
+        return id;
+    }
+
+    private static String generateId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid()
+                + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
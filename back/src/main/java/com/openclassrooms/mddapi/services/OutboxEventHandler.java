@@ -0,0 +1,38 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.models.OutboxEvent;
+
+/**
+ * Contract for in-process consumers of outbox events.
+ * 
+ * Every Spring bean implementing this interface is registered with the outbox
+ * relay, which calls it for each dispatched event whose type it supports. An
+ * event with no supporting handler is marked processed right away, so a new
+ * handler only receives the events recorded after it is deployed.
+ * 
+ * Delivery is at-least-once: an event may be handled again after a node failure
+ * or when another handler of the same event fails, so implementations must be
+ * idempotent.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * Indicates whether this handler consumes events of the given type.
+     * 
+     * @param eventType the type of the event, such as OutboxEvent.POST_CREATED
+     * @return true if the handler must be called for this event type
+     */
+    boolean supports(String eventType);
+
+    /**
+     * Handles a dispatched event.
+     * 
+     * @param event the event to handle
+     * @throws RuntimeException to signal a failure, in which case the event is retried later,
+     *         up to "outbox.max-attempts" times
+     */
+    void handle(OutboxEvent event);
+}
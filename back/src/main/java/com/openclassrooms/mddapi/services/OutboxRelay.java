@@ -0,0 +1,243 @@
+package com.openclassrooms.mddapi.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.models.OutboxEvent;
+import com.openclassrooms.mddapi.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background relay dispatching outbox events to in-process handlers.
+ * 
+ * The relay polls the outbox at a fixed interval. Each poll claims a batch of
+ * pending events in a short transaction using "FOR UPDATE SKIP LOCKED", so several
+ * nodes can share the work, then dispatches every claimed event to the handlers
+ * supporting its type outside of any transaction.
+ * 
+ * Delivery is at-least-once: a failed event is retried after a backoff, and an
+ * event claimed by a node that dies is picked up again once its claim expires.
+ * The outcome of a dispatch is only recorded while the event is still claimed by
+ * this node: if the claim expired during a slow dispatch and another node claimed
+ * the event again, the outcome is dropped and left to that node.
+ * The backoff starts at "outbox.retry-backoff-ms" and doubles with each attempt,
+ * up to "outbox.max-retry-backoff-ms". After "outbox.max-attempts" failed
+ * attempts, the event is parked and no longer claimed (see OutboxEvent).
+ * 
+ * Some event types are recorded for future consumers before any handler exists,
+ * such as CommentAdded: these are marked processed without a handler and only
+ * logged at debug level. Any other event without a handler is logged as a warning.
+ * 
+ * The relay exposes the following metrics:
+ * - outbox.events.dispatched / outbox.events.failed / outbox.events.parked: dispatch outcomes
+ * - outbox.events.claim-lost: dispatches whose outcome was dropped because the claim expired
+ * - outbox.dispatch.lag: time between the event creation and its dispatch
+ * - outbox.pending: number of events not dispatched yet
+ * - outbox.oldest.pending.age: age in seconds of the oldest pending event
+ * - outbox.parked: number of parked events
+ * The last three gauges are refreshed every "outbox.gauge-refresh-interval-ms",
+ * much less often than the outbox is polled, since each node runs their queries.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    /** Event types recorded for future consumers, which no handler is expected to support yet. */
+    private static final Set<String> UNCONSUMED_EVENT_TYPES = Set.of(OutboxEvent.COMMENT_ADDED);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+
+    private final Counter dispatched;
+    private final Counter failed;
+    private final Counter parked;
+    private final Counter claimLost;
+    private final Timer lag;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingAgeSeconds = new AtomicLong();
+    private final AtomicLong parkedEvents = new AtomicLong();
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.claim-timeout-ms:30000}")
+    private long claimTimeoutMs;
+
+    @Value("${outbox.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${outbox.max-retry-backoff-ms:3600000}")
+    private long maxRetryBackoffMs;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<OutboxEventHandler> handlers,
+                       PlatformTransactionManager transactionManager,
+                       NodeIdentity nodeIdentity,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeIdentity.getId();
+        this.dispatched = meterRegistry.counter("outbox.events.dispatched");
+        this.failed = meterRegistry.counter("outbox.events.failed");
+        this.parked = meterRegistry.counter("outbox.events.parked");
+        this.claimLost = meterRegistry.counter("outbox.events.claim-lost");
+        this.lag = meterRegistry.timer("outbox.dispatch.lag");
+        meterRegistry.gauge("outbox.pending", pending);
+        meterRegistry.gauge("outbox.oldest.pending.age", oldestPendingAgeSeconds);
+        meterRegistry.gauge("outbox.parked", parkedEvents);
+    }
+
+    /**
+     * Claims and dispatches pending events until the outbox is drained.
+     * 
+     * Batches are processed back to back while they come back full, so a backlog is
+     * drained quickly; the method returns as soon as a partial batch is processed.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void relay() {
+        List<OutboxEvent> batch;
+        do {
+            batch = claimBatch();
+            batch.forEach(this::dispatch);
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Refreshes the outbox.pending, outbox.oldest.pending.age and outbox.parked gauges.
+     */
+    @Scheduled(fixedDelayString = "${outbox.gauge-refresh-interval-ms:30000}")
+    public void refreshBacklogGauges() {
+        pending.set(outboxEventRepository.countByProcessedAtIsNullAndFailedAtIsNull());
+        LocalDateTime oldest = outboxEventRepository.findOldestPendingCreatedAt();
+        oldestPendingAgeSeconds.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toSeconds());
+        parkedEvents.set(outboxEventRepository.countByFailedAtIsNotNull());
+    }
+
+    /**
+     * Deletes dispatched events older than the configured retention.
+     */
+    @Scheduled(cron = "${outbox.cleanup-cron:0 0 * * * *}")
+    public void purgeProcessed() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours)));
+        log.debug("Purged {} processed outbox events", deleted);
+    }
+
+    /**
+     * Locks a batch of pending events and marks them as claimed by this node.
+     * 
+     * @return the claimed events
+     */
+    private List<OutboxEvent> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> events = outboxEventRepository.lockPendingBatch(now, batchSize);
+            LocalDateTime lockedUntil = now.plus(Duration.ofMillis(claimTimeoutMs));
+            events.forEach(event -> {
+                event.setLockedBy(nodeId);
+                event.setLockedUntil(lockedUntil);
+            });
+            return events;
+        });
+    }
+
+    /**
+     * Dispatches an event to every handler supporting its type and records the outcome.
+     * 
+     * A failed event is scheduled for a retry with an exponential backoff, or parked
+     * once it has failed "outbox.max-attempts" times.
+     * 
+     * @param event the claimed event to dispatch
+     */
+    private void dispatch(OutboxEvent event) {
+        try {
+            boolean handled = false;
+            for (OutboxEventHandler handler : handlers) {
+                if (handler.supports(event.getEventType())) {
+                    handler.handle(event);
+                    handled = true;
+                }
+            }
+            if (!handled && UNCONSUMED_EVENT_TYPES.contains(event.getEventType())) {
+                log.debug("Outbox event {} ({}) has no consumer yet", event.getId(), event.getEventType());
+            } else if (!handled) {
+                log.warn("Outbox event {} ({}) has no handler", event.getId(), event.getEventType());
+            }
+            if (!recordOutcome(event, () -> outboxEventRepository.markProcessed(event.getId(), nodeId, LocalDateTime.now()))) {
+                return;
+            }
+            dispatched.increment();
+            lag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            int attempt = event.getAttempts() + 1;
+            String message = String.valueOf(e.getMessage());
+            String error = message.length() > 1000 ? message.substring(0, 1000) : message;
+            failed.increment();
+            if (attempt >= maxAttempts) {
+                log.error("Outbox event {} ({}) parked after {} failed attempts: {}",
+                        event.getId(), event.getEventType(), attempt, message);
+                if (recordOutcome(event, () -> outboxEventRepository.markParked(event.getId(), nodeId, error, LocalDateTime.now()))) {
+                    parked.increment();
+                }
+                return;
+            }
+            log.warn("Outbox event {} ({}) failed on attempt {}: {}",
+                    event.getId(), event.getEventType(), attempt, message);
+            recordOutcome(event, () -> outboxEventRepository.markFailed(
+                    event.getId(), nodeId, error, LocalDateTime.now().plus(Duration.ofMillis(retryBackoff(attempt)))));
+        }
+    }
+
+    /**
+     * Records the outcome of a dispatch, unless the claim of this node on the event was lost.
+     * 
+     * @param event the dispatched event
+     * @param update updates the event if it is still claimed by this node, and returns the update count
+     * @return true if the outcome was recorded, false if another node claimed the event meanwhile
+     */
+    private boolean recordOutcome(OutboxEvent event, IntSupplier update) {
+        Integer updated = transactionTemplate.execute(status -> update.getAsInt());
+        if (updated != null && updated > 0) return true;
+        claimLost.increment();
+        log.warn("Outbox event {} ({}) was claimed by another node during its dispatch, outcome not recorded",
+                event.getId(), event.getEventType());
+        return false;
+    }
+
+    /**
+     * Computes the delay before retrying an event.
+     * 
+     * @param attempt the number of failed attempts so far, from 1
+     * @return the retry backoff, doubled with each attempt and capped to "outbox.max-retry-backoff-ms"
+     */
+    private long retryBackoff(int attempt) {
+        int doublings = Math.min(attempt - 1, 30);
+        return Math.min(maxRetryBackoffMs, retryBackoffMs << doublings);
+    }
+}
@@ -0,0 +1,61 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.models.OutboxEvent;
+import com.openclassrooms.mddapi.repository.OutboxEventRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Service responsible for recording domain events in the transactional outbox.
+ * 
+ * Events are inserted in the caller's transaction, which guarantees that an event
+ * is published if and only if the change it describes is committed. Dispatching
+ * to handlers happens later, outside the request, in the outbox relay.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Records a domain event in the outbox.
+     * 
+     * This method must be called inside an existing transaction, typically the one
+     * that persists the aggregate the event refers to.
+     * 
+     * @param eventType the type of the event, such as OutboxEvent.POST_CREATED
+     * @param aggregateType the type of the aggregate the event refers to
+     * @param aggregateId the identifier of the aggregate the event refers to
+     * @param payload the event data, serialized as JSON
+     * @throws IllegalStateException if no transaction is active
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, String aggregateType, Long aggregateId, Map<String, Object> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(eventType)
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .payload(json)
+                .build());
+    }
+}
@@ -0,0 +1,217 @@
+package com.openclassrooms.mddapi.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service moving old posts and their comments to the archive tables.
+ * 
+ * The feed, the listings and the unread counts only need recent posts, but the
+ * post, post_body and comment tables would otherwise grow forever, along with
+ * their indexes. A periodic job moves the posts older than
+ * "post.archival.max-age-days" to post_archive, body included, and their comments
+ * to comment_archive (see PostArchive and CommentArchive). Archived posts keep
+ * their IDs, and PostService falls back to the archive when the details or the
+ * comments of a post are not found in the hot tables.
+ * 
+ * The job walks the post table from its lowest ID, where the oldest posts are, and
+ * stops at the first post that is too recent, so it never scans the hot rows. Posts
+ * are moved in batches of "post.archival.batch-size", each in its own short
+ * transaction, which locks the posts of the batch before copying and deleting them.
+ * To leave room for the regular traffic, the job pauses "post.archival.pause-ms"
+ * between two batches and moves at most "post.archival.max-batches-per-run"
+ * batches per run; the remaining posts wait for the next run. It runs on a single
+ * node at a time through the JobCoordinator.
+ * 
+ * The feed pages of the topics of the moved posts are invalidated with each batch,
+ * and the topic post index once per run, so the archived posts no longer count as
+ * unread. Posts whose body still is in the legacy post.content column are skipped
+ * until the PostBodyMigration has moved it.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class PostArchival {
+
+    static final String ARCHIVAL_JOB = "post-archival";
+
+    private static final String SELECT_OLDEST_POSTS =
+            "SELECT id, created_at FROM post WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String LOCK_POSTS =
+            "SELECT id, topic_id FROM post WHERE id IN (%s) AND created_at < ? " +
+            "AND EXISTS (SELECT 1 FROM post_body b WHERE b.post_id = post.id) FOR UPDATE";
+    private static final String ARCHIVE_POSTS =
+            "INSERT INTO post_archive (id, title, excerpt, content, user_id, topic_id, created_at, comment_count, view_count, archived_at) " +
+            "SELECT p.id, p.title, p.excerpt, b.content, p.user_id, p.topic_id, p.created_at, p.comment_count, p.view_count, ? " +
+            "FROM post p JOIN post_body b ON b.post_id = p.id WHERE p.id IN (%s)";
+    private static final String ARCHIVE_COMMENTS =
+            "INSERT INTO comment_archive (id, content, post_id, user_id, created_at, archived_at) " +
+            "SELECT id, content, post_id, user_id, created_at, ? FROM comment WHERE post_id IN (%s)";
+    private static final String DELETE_COMMENTS = "DELETE FROM comment WHERE post_id IN (%s)";
+    private static final String DELETE_POST_BODIES = "DELETE FROM post_body WHERE post_id IN (%s)";
+    private static final String DELETE_POSTS = "DELETE FROM post WHERE id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCoordinator jobCoordinator;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedPosts;
+    private final Counter archivedComments;
+
+    @Value("${post.archival.enabled:true}")
+    private boolean enabled;
+
+    @Value("${post.archival.max-age-days:365}")
+    private long maxAgeDays;
+
+    @Value("${post.archival.interval-ms:3600000}")
+    private long intervalMs;
+
+    @Value("${post.archival.batch-size:200}")
+    private int batchSize;
+
+    @Value("${post.archival.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${post.archival.pause-ms:200}")
+    private long pauseMs;
+
+    public PostArchival(JdbcTemplate jdbcTemplate,
+                        JobCoordinator jobCoordinator,
+                        CacheInvalidationBus cacheInvalidationBus,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobCoordinator = jobCoordinator;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedPosts = meterRegistry.counter("post.archival.posts");
+        this.archivedComments = meterRegistry.counter("post.archival.comments");
+    }
+
+    /**
+     * Moves the posts older than the maximum age, with their comments, to the archive tables.
+     */
+    @Scheduled(fixedDelayString = "${post.archival.interval-ms:3600000}",
+               initialDelayString = "${post.archival.initial-delay-ms:60000}")
+    public void archive() {
+        if (!enabled) return;
+        // Tolerate scheduling jitter between nodes while still running once per interval.
+        Duration minInterval = Duration.ofMillis(intervalMs * 9 / 10);
+        if (jobCoordinator.claim(ARCHIVAL_JOB, minInterval).isEmpty()) return;
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+        long posts = 0;
+        long comments = 0;
+        long lastId = 0;
+        try {
+            for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+                if (batches > 0 && !pause()) break;
+                List<OldestPost> rows = jdbcTemplate.query(SELECT_OLDEST_POSTS, this::mapOldestPost, lastId, batchSize);
+                List<Long> ids = rows.stream()
+                        .takeWhile(row -> row.createdAt().isBefore(cutoff))
+                        .map(OldestPost::id)
+                        .toList();
+                if (ids.isEmpty()) break;
+
+                MovedBatch moved = transactionTemplate.execute(status -> move(ids, cutoff));
+                posts += moved.posts();
+                comments += moved.comments();
+                lastId = ids.get(ids.size() - 1);
+                if (ids.size() < batchSize) break;
+            }
+        } finally {
+            if (posts > 0) {
+                cacheInvalidationBus.publish(TopicPostIndex.NAME, InvalidatableCache.ALL_KEYS);
+                log.info("Archived {} posts and {} comments older than {}", posts, comments, cutoff);
+            }
+        }
+    }
+
+    /**
+     * Moves a batch of posts and their comments to the archive tables.
+     * Must be called within a transaction.
+     * 
+     * @param ids the IDs of the posts to move, in ascending order
+     * @param cutoff the creation date below which a post is archived
+     * @return the number of moved posts and comments
+     */
+    private MovedBatch move(List<Long> ids, LocalDateTime cutoff) {
+        List<Object> lockArgs = new ArrayList<>(ids);
+        lockArgs.add(Timestamp.valueOf(cutoff));
+        List<Long> locked = new ArrayList<>();
+        Set<Long> topicIds = new HashSet<>();
+        jdbcTemplate.query(LOCK_POSTS.formatted(placeholders(ids.size())), rs -> {
+            locked.add(rs.getLong("id"));
+            topicIds.add(rs.getLong("topic_id"));
+        }, lockArgs.toArray());
+        if (locked.isEmpty()) return new MovedBatch(0, 0);
+
+        String in = placeholders(locked.size());
+        List<Object> archiveArgs = new ArrayList<>(locked.size() + 1);
+        archiveArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+        archiveArgs.addAll(locked);
+        Object[] lockedIds = locked.toArray();
+
+        int comments = jdbcTemplate.update(ARCHIVE_COMMENTS.formatted(in), archiveArgs.toArray());
+        int posts = jdbcTemplate.update(ARCHIVE_POSTS.formatted(in), archiveArgs.toArray());
+        jdbcTemplate.update(DELETE_COMMENTS.formatted(in), lockedIds);
+        jdbcTemplate.update(DELETE_POST_BODIES.formatted(in), lockedIds);
+        jdbcTemplate.update(DELETE_POSTS.formatted(in), lockedIds);
+
+        topicIds.forEach(topicId -> cacheInvalidationBus.publish(FeedPageCache.NAME, topicId.toString()));
+        archivedPosts.increment(posts);
+        archivedComments.increment(comments);
+        return new MovedBatch(posts, comments);
+    }
+
+    /**
+     * Waits between two batches.
+     * 
+     * @return false if the thread was interrupted, in which case the run stops
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private OldestPost mapOldestPost(ResultSet rs, int rowNum) throws SQLException {
+        return new OldestPost(rs.getLong("id"), rs.getTimestamp("created_at").toLocalDateTime());
+    }
+
+    private record OldestPost(long id, LocalDateTime createdAt) {
+    }
+
+    private record MovedBatch(int posts, int comments) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.openclassrooms.mddapi.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.models.CompressedTextConverter;
+import com.openclassrooms.mddapi.models.Post;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service migrating the post bodies from the legacy post.content column to the
+ * post_body table.
+ * 
+ * Databases created before the post bodies were split from the post metadata hold
+ * the bodies inline, in a post.content column, which the V3 Flyway migration makes
+ * nullable so new posts can be written without it. A periodic job moves the bodies
+ * in ID-ordered batches of "post.body-migration.batch-size" rows, each in its own
+ * short transaction: the body is compressed into post_body, the excerpt is filled
+ * in and the legacy value is cleared. The job runs on a single node at a time
+ * through the JobCoordinator, and can be interrupted and resumed at any point,
+ * since moved rows are skipped.
+ * 
+ * Outside the development profile, this service never changes the schema. The
+ * development profile creates the tables with "spring.jpa.hibernate.ddl-auto=update"
+ * rather than with Flyway, which never relaxes the column: with
+ * "post.body-migration.relax-legacy-column", the V3 change is applied at startup
+ * instead. The job keeps running while the legacy column exists, so the bodies still written inline by nodes of the previous
+ * version during a rolling deploy are moved too; the column is dropped by a later
+ * migration (db/pending). On databases without the legacy column, the job does
+ * nothing.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class PostBodyMigration {
+
+    static final String MIGRATION_JOB = "post-body-migration";
+
+    private static final String SELECT_LEGACY_BATCH =
+            "SELECT id, content FROM post WHERE id > ? AND content IS NOT NULL ORDER BY id LIMIT ?";
+    private static final String INSERT_POST_BODY =
+            "INSERT IGNORE INTO post_body (post_id, content) VALUES (?, ?)";
+    private static final String CLEAR_LEGACY_CONTENT =
+            "UPDATE post SET excerpt = ?, content = NULL WHERE id = ?";
+    private static final String RELAX_LEGACY_CONTENT =
+            "ALTER TABLE post MODIFY content TEXT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final CompressedTextConverter textConverter = new CompressedTextConverter();
+
+    private volatile boolean done;
+
+    @Value("${post.body-migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${post.body-migration.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${post.body-migration.batch-size:500}")
+    private int batchSize;
+
+    @Value("${post.body-migration.relax-legacy-column:false}")
+    private boolean relaxLegacyColumn;
+
+    public PostBodyMigration(JdbcTemplate jdbcTemplate,
+                             JobCoordinator jobCoordinator,
+                             PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Makes the legacy column nullable once the application is ready, as the V3
+     * migration does, when "post.body-migration.relax-legacy-column" is set.
+     * 
+     * Until then, every post insert fails on the NOT NULL column, which the
+     * entity no longer maps.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!relaxLegacyColumn || !Boolean.FALSE.equals(legacyColumnNullable())) return;
+        jdbcTemplate.execute(RELAX_LEGACY_CONTENT);
+        log.info("Made the legacy post.content column nullable");
+    }
+
+    /**
+     * Moves the remaining legacy bodies to the post_body table.
+     */
+    @Scheduled(fixedDelayString = "${post.body-migration.interval-ms:60000}",
+               initialDelayString = "${post.body-migration.initial-delay-ms:5000}")
+    public void migrate() {
+        if (done || !enabled) return;
+        // Tolerate scheduling jitter between nodes while still running once per interval.
+        Duration minInterval = Duration.ofMillis(intervalMs * 9 / 10);
+        if (jobCoordinator.claim(MIGRATION_JOB, minInterval).isEmpty()) return;
+        if (!legacyColumnReady()) return;
+
+        long moved = 0;
+        long lastId = 0;
+        List<LegacyBody> batch;
+        do {
+            batch = jdbcTemplate.query(SELECT_LEGACY_BATCH, this::mapLegacyBody, lastId, batchSize);
+            if (batch.isEmpty()) break;
+            List<LegacyBody> rows = batch;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_POST_BODY, rows, batchSize, (ps, row) -> {
+                    ps.setLong(1, row.id());
+                    ps.setBytes(2, textConverter.convertToDatabaseColumn(row.content()));
+                });
+                jdbcTemplate.batchUpdate(CLEAR_LEGACY_CONTENT, rows, batchSize, (ps, row) -> {
+                    ps.setString(1, Post.excerptOf(row.content()));
+                    ps.setLong(2, row.id());
+                });
+            });
+            moved += batch.size();
+            lastId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == batchSize);
+        if (moved > 0) {
+            log.info("Migrated {} post bodies to post_body", moved);
+        }
+    }
+
+    /**
+     * Checks that the legacy column exists and has been made nullable by the migrations.
+     * 
+     * @return true if bodies can be moved, false otherwise
+     */
+    private boolean legacyColumnReady() {
+        Boolean nullable = legacyColumnNullable();
+        if (nullable == null) {
+            done = true;
+            return false;
+        }
+        if (!nullable) {
+            log.warn("The legacy post.content column is still NOT NULL, apply the Flyway migrations first");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Looks up the legacy column in the database metadata.
+     * 
+     * @return whether the legacy column is nullable, or null if it does not exist
+     */
+    private Boolean legacyColumnNullable() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet columns = connection.getMetaData()
+                    .getColumns(connection.getCatalog(), null, "post", "content")) {
+                return columns.next() ? "YES".equals(columns.getString("IS_NULLABLE")) : null;
+            }
+        });
+    }
+
+    private LegacyBody mapLegacyBody(ResultSet rs, int rowNum) throws SQLException {
+        return new LegacyBody(rs.getLong("id"), rs.getString("content"));
+    }
+
+    private record LegacyBody(long id, String content) {
+    }
+}
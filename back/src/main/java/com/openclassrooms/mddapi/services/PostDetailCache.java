@@ -0,0 +1,136 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.Utils.PrecompressedResponse;
+import com.openclassrooms.mddapi.dto.PostResponseDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of the encoded post detail responses, keyed by post ID.
+ *
+ * Entries hold the JSON bytes of the PostResponseDTO, as written by the
+ * application's ObjectMapper, along with their gzip and deflate forms when they
+ * are smaller. On a hit, the controller writes these bytes to the response as-is, so
+ * neither JPA nor Jackson is involved.
+ *
+ * Eviction is weighted by size: the cache holds at most
+ * "post.detail-cache.max-bytes" bytes of entries, evicting the least recently
+ * used ones first, so a few long posts cannot crowd out many short ones unnoticed.
+ * Entries larger than a tenth of the budget are not cached. A generation counter
+ * keeps a response computed concurrently with an invalidation from being stored.
+ *
+ * Invalidations go through the CacheInvalidationBus under the "post-details" name,
+ * with the post ID as key, or ALL_KEYS when data shown on every post changes,
+ * such as a username.
+ *
+ * @author Cécile UMECKER
+
+ */
+@Component
+public class PostDetailCache implements InvalidatableCache {
+
+    public static final String NAME = "post-details";
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final Map<Long, PrecompressedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+    private long weight;
+    private long generation;
+
+    public PostDetailCache(ObjectMapper objectMapper,
+                           @Value("${post.detail-cache.max-bytes:33554432}") long maxBytes,
+                           MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        this.hits = meterRegistry.counter("post.detail.cache.hits");
+        this.misses = meterRegistry.counter("post.detail.cache.misses");
+        meterRegistry.gauge("post.detail.cache.bytes", this, cache -> cache.currentWeight());
+    }
+
+    /**
+     * Returns the encoded post detail response, computing and caching it on a miss.
+     *
+     * @param postId the ID of the post
+     * @param loader computes the response on a miss
+     * @return the encoded response
+     */
+    public PrecompressedResponse get(Long postId, Supplier<PostResponseDTO> loader) {
+        long observedGeneration;
+        synchronized (this) {
+            PrecompressedResponse entry = entries.get(postId);
+            if (entry != null) {
+                hits.increment();
+                return entry;
+            }
+            observedGeneration = generation;
+        }
+
+        misses.increment();
+        PrecompressedResponse entry = encode(loader.get());
+
+        synchronized (this) {
+            if (generation == observedGeneration && entry.weight() <= maxBytes / 10) {
+                store(postId, entry);
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public String getCacheName() {
+        return NAME;
+    }
+
+    /**
+     * Evicts the response of a post, or every response if the key is ALL_KEYS.
+     *
+     * @param key the post ID, or ALL_KEYS
+     */
+    @Override
+    public synchronized void invalidate(String key) {
+        generation++;
+        if (ALL_KEYS.equals(key)) {
+            entries.clear();
+            weight = 0;
+        } else {
+            PrecompressedResponse entry = entries.remove(Long.valueOf(key));
+            if (entry != null) weight -= entry.weight();
+        }
+    }
+
+    private synchronized long currentWeight() {
+        return weight;
+    }
+
+    private void store(Long postId, PrecompressedResponse entry) {
+        PrecompressedResponse previous = entries.put(postId, entry);
+        if (previous != null) weight -= previous.weight();
+        weight += entry.weight();
+
+        var eldest = entries.entrySet().iterator();
+        while (weight > maxBytes && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+        }
+    }
+
+    private PrecompressedResponse encode(PostResponseDTO post) {
+        try {
+            return PrecompressedResponse.of(objectMapper.writeValueAsBytes(post));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Post " + post.getId() + " could not be serialized", e);
+        }
+    }
+}
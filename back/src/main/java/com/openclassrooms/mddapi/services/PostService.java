@@ -1,15 +1,27 @@
 package com.openclassrooms.mddapi.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.Utils.PrecompressedResponse;
 import com.openclassrooms.mddapi.dto.*;
+import com.openclassrooms.mddapi.logging.DtoMappingEvent;
 import com.openclassrooms.mddapi.models.*;
 import com.openclassrooms.mddapi.repository.*;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
-import org.springframework.http.HttpStatus;
 
 /**
  * Service responsible for managing post and comment operations in the MDD API.
@@ -19,7 +31,9 @@ import org.springframework.http.HttpStatus;
  * and comments, ensuring proper validation and data integrity.
  * 
  * Key responsibilities:
- * - Retrieve posts by ID with full details
+ * - Retrieve posts by ID with full details, falling back to the archive
+ * - Merge the unflushed views into the view counts
+ * - List the posts of a topic or of an author, with keyset pagination
  * - Create new posts within topics
  * - Retrieve paginated comments for posts
  * - Add comments to posts
@@ -36,24 +50,151 @@ import org.springframework.http.HttpStatus;
 public class PostService {
 
     private final PostRepository postRepository;
+    private final PostBodyRepository postBodyRepository;
     private final CommentRepository commentRepository;
+    private final PostArchiveRepository postArchiveRepository;
+    private final CommentArchiveRepository commentArchiveRepository;
     private final TopicRepository topicRepository;
     private final UserService userService;
+    private final OutboxService outboxService;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final FeedRankingService feedRankingService;
+    private final BatchLookup batchLookup;
+    private final ReadStateService readStateService;
+    private final ObjectMapper objectMapper;
+    private final SingleFlight singleFlight;
+    private final PostViewCounter postViewCounter;
+
+    @Value("${post.listing.max-page-size:100}")
+    private int maxPageSize;
 
     /**
      * Retrieves a post by its unique identifier.
      * 
      * This method fetches a post with all its details including title, content,
-     * author information, topic, and creation date.
+     * author information, topic, and creation date. The post, its author and its
+     * topic are read in a single query, and the body is then read from the
+     * post_body table by primary key.
+     * 
+     * Posts moved to the archive by the PostArchival job are read from the
+     * post_archive table when they are not found in the post table.
+     * 
+     * Concurrent calls for the same post share the same queries through SingleFlight.
+     * The first query fetches every association the mapping needs, so no transaction
+     * is opened, and the waiting callers hold no database connection.
      * 
      * @param id the unique identifier of the post to retrieve
      * @return PostResponseDTO containing the complete post information
      * @throws ResponseStatusException with 404 status if post is not found
      */
     public PostResponseDTO getPostById(Long id) {
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
-        return mapToPostResponseDTO(post);
+        return singleFlight.execute("post-detail", id, () -> postRepository.findDetailById(id)
+                .map(post -> mapToPostResponseDTO(post, postBodyRepository.findContentByPostId(id).orElse("")))
+                .or(() -> postArchiveRepository.findDetailById(id).map(this::mapToPostResponseDTO))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found")));
+    }
+
+    /**
+     * Retrieves a post by its unique identifier, with only the selected properties.
+     * 
+     * Only the columns backing the selected properties are read, and the author,
+     * topic and body are only joined when one of their properties is selected.
+     * Archived posts are read in full, and filtered on serialization.
+     * 
+     * @param id the unique identifier of the post to retrieve
+     * @param fields the PostResponseDTO properties to select
+     * @return PostResponseDTO containing the selected post information
+     * @throws ResponseStatusException with 404 status if post is not found
+     */
+    public PostResponseDTO getPostById(Long id, FieldSelection fields) {
+        if (fields.isAll()) return getPostById(id);
+        return postRepository.findDetails(List.of(id), fields).stream()
+                .findFirst()
+                .map(this::withPendingViews)
+                .orElseGet(() -> getPostById(id));
+    }
+
+    /**
+     * Retrieves several posts by their identifiers.
+     * 
+     * All posts are read in a single query, projecting only the columns backing
+     * the selected properties. The results follow the order of the requested IDs.
+     * 
+     * @param ids the unique identifiers of the posts to retrieve
+     * @param fields the PostResponseDTO properties to select
+     * @return one BatchItemDTO per requested ID, with found set to false for missing posts
+     * @throws ResponseStatusException with 400 status if too many IDs are requested
+     */
+    public List<BatchItemDTO<PostResponseDTO>> getPostsByIds(List<Long> ids, FieldSelection fields) {
+        return batchLookup.resolve(ids, distinctIds -> postRepository.findDetails(distinctIds, fields).stream()
+                .map(this::withPendingViews)
+                .collect(Collectors.toMap(PostResponseDTO::getId, Function.identity())));
+    }
+
+    /**
+     * Retrieves the comment counts of several posts.
+     * 
+     * The counts are read in a single query from the comment count maintained on
+     * each post. The results follow the order of the requested IDs.
+     * 
+     * @param ids the unique identifiers of the posts
+     * @return one BatchItemDTO per requested ID, with found set to false for missing posts
+     * @throws ResponseStatusException with 400 status if too many IDs are requested
+     */
+    public List<BatchItemDTO<Integer>> getCommentCounts(List<Long> ids) {
+        return batchLookup.resolve(ids, distinctIds -> postRepository.findCommentCountsByIdIn(distinctIds).stream()
+                .collect(Collectors.toMap(PostRepository.CommentCountView::getId,
+                                          PostRepository.CommentCountView::getCommentCount)));
+    }
+
+    /**
+     * Lists the posts of a topic, newest first, with keyset pagination.
+     * 
+     * The page is read with a single projection query on the post table, which
+     * never loads the posts collection of the topic. It is encoded once, so its
+     * weak ETag can be compared with the If-None-Match header of the request.
+     * 
+     * @param topicId the unique identifier of the topic
+     * @param before the cursor returned with the previous page, null for the first page
+     * @param size the maximum number of posts of the page
+     * @return the encoded CursorPageDTO of FeedPostDTO objects
+     * @throws ResponseStatusException with 400 status if the size is out of bounds,
+     *         or with 404 status if the topic is not found
+     */
+    public PrecompressedResponse getTopicPosts(Long topicId, Long before, int size) {
+        return listPosts(size, before,
+                beforeId -> postRepository.findSummariesByTopicIdBefore(topicId, beforeId, Limit.of(size + 1)),
+                () -> topicRepository.existsById(topicId), "Topic not found");
+    }
+
+    /**
+     * Lists the posts of an author, newest first, with keyset pagination.
+     * 
+     * The page is read with a single projection query on the post table, which
+     * never loads the posts collection of the user. It is encoded once, so its
+     * weak ETag can be compared with the If-None-Match header of the request.
+     * 
+     * @param userId the unique identifier of the author
+     * @param before the cursor returned with the previous page, null for the first page
+     * @param size the maximum number of posts of the page
+     * @return the encoded CursorPageDTO of FeedPostDTO objects
+     * @throws ResponseStatusException with 400 status if the size is out of bounds,
+     *         or with 404 status if the user is not found
+     */
+    public PrecompressedResponse getUserPosts(Long userId, Long before, int size) {
+        return listPosts(size, before,
+                beforeId -> postRepository.findSummariesByUserIdBefore(userId, beforeId, Limit.of(size + 1)),
+                () -> userService.existsById(userId), "User not found");
+    }
+
+    /**
+     * Marks several posts as read by the current user.
+     * 
+     * @param postIds the unique identifiers of the read posts, unknown ones being ignored
+     * @throws ResponseStatusException with 400 status if too many IDs are given
+     */
+    public void markPostsRead(List<Long> postIds) {
+        readStateService.markPostsRead(userService.getAuthenticatedUserId(), postIds);
     }
 
     /**
@@ -61,12 +202,18 @@ public class PostService {
      * 
      * This method creates a post with the provided title and content, associates it
      * with the specified topic, and automatically links it to the authenticated user
-     * as the author. The post is persisted to the database with its creation timestamp.
+     * as the author. The post is persisted to the database with its creation timestamp,
+     * and its body in the post_body table.
+     * A PostCreated event is recorded in the outbox within the same transaction, and
+     * the cached feed pages including the topic are evicted on every node once it
+     * commits. The topic's post IDs are refreshed by the TopicPostIndexOutboxHandler
+     * when the event is dispatched.
      * 
      * @param postRequest the post creation request containing title, content, and topic ID
      * @return PostResponseDTO containing the created post information
      * @throws ResponseStatusException with 404 status if topic is not found
      */
+    @Transactional
     public PostResponseDTO createPost(PostRequestDTO postRequest) {
         User user = userService.getAuthenticatedUser();
         Topic topic = topicRepository.findById(postRequest.getTopicId())
@@ -74,13 +221,23 @@ public class PostService {
 
         Post post = Post.builder()
                 .title(postRequest.getTitle())
-                .content(postRequest.getContent())
+                .excerpt(Post.excerptOf(postRequest.getContent()))
                 .user(user)
                 .topic(topic)
+                .hotScore(feedRankingService.initialHotScore())
                 .build();
 
         Post savedPost = postRepository.save(post);
-        return mapToPostResponseDTO(savedPost);
+        postBodyRepository.save(PostBody.builder()
+                .post(savedPost)
+                .content(postRequest.getContent())
+                .build());
+        outboxService.publish(OutboxEvent.POST_CREATED, "Post", savedPost.getId(), Map.of(
+                "postId", savedPost.getId(),
+                "topicId", topic.getId(),
+                "userId", user.getId()));
+        cacheInvalidationBus.publish(FeedPageCache.NAME, topic.getId().toString());
+        return mapToPostResponseDTO(savedPost, postRequest.getContent());
     }
 
     /**
@@ -88,19 +245,40 @@ public class PostService {
      * 
      * This method fetches all comments associated with the specified post,
      * ordered by creation date in ascending order, and returns them as a list.
+     * The authors are fetched along with the comments. The comments of an archived
+     * post are read from the comment_archive table.
+     * 
+     * Concurrent calls for the same post share a single pair of queries through
+     * SingleFlight, without a transaction, so the waiting callers hold no
+     * database connection.
      * 
      * @param postId the unique identifier of the post
      * @return List of CommentResponseDTO containing all comments for the post
      * @throws ResponseStatusException with 404 status if post is not found
      */
      public List<CommentResponseDTO> getCommentsByPost(Long postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
-
-        return commentRepository.findByPostOrderByCreatedAtAsc(post)
-                .stream()
-                .map(this::mapToCommentResponseDTO)
-                .toList();
+        return singleFlight.execute("post-comments", postId, () -> {
+            List<CommentResponseDTO> dtos;
+            DtoMappingEvent mapping = new DtoMappingEvent(CommentResponseDTO.class);
+            if (postRepository.existsById(postId)) {
+                List<Comment> comments = commentRepository.findByPostIdOrderByCreatedAtAsc(postId);
+                mapping.begin();
+                dtos = comments.stream()
+                        .map(this::mapToCommentResponseDTO)
+                        .toList();
+            } else if (postArchiveRepository.existsById(postId)) {
+                List<CommentArchive> comments = commentArchiveRepository.findByPostIdOrderByCreatedAtAsc(postId);
+                mapping.begin();
+                dtos = comments.stream()
+                        .map(this::mapToCommentResponseDTO)
+                        .toList();
+            } else {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found");
+            }
+            mapping.itemCount = dtos.size();
+            mapping.commit();
+            return dtos;
+        });
      }
 
     /**
@@ -109,16 +287,26 @@ public class PostService {
      * This method creates a comment with the provided content, associates it with
      * the specified post, and automatically links it to the authenticated user as
      * the author. The comment is persisted with its creation timestamp.
+     * A CommentAdded event is recorded in the outbox within the same transaction,
+     * along with the update of the post's comment count and ranking scores, which
+     * evicts the cached feed pages of the post's topic. That update comes first,
+     * so that a post being archived cannot be commented on.
      * 
      * @param postId the unique identifier of the post to comment on
      * @param commentRequest the comment creation request containing the content
      * @return CommentResponseDTO containing the created comment information
-     * @throws ResponseStatusException with 404 status if post is not found
+     * @throws ResponseStatusException with 404 status if post is not found, or was archived meanwhile
      */
+    @Transactional
     public CommentResponseDTO addCommentToPost(Long postId, CommentRequestDTO commentRequest) {
         User user = userService.getAuthenticatedUser();
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found"));
+        // Locks the post row before the comment references it. A post archived since it
+        // was read is no longer updated, and the comment would violate its foreign key.
+        if (!feedRankingService.recordComment(postId, post.getTopic().getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found");
+        }
 
         Comment comment = Comment.builder()
                 .content(commentRequest.getContent())
@@ -127,9 +315,87 @@ public class PostService {
                 .build();
 
         Comment savedComment = commentRepository.save(comment);
+        outboxService.publish(OutboxEvent.COMMENT_ADDED, "Post", postId, Map.of(
+                "commentId", savedComment.getId(),
+                "postId", postId,
+                "userId", user.getId()));
         return mapToCommentResponseDTO(savedComment);
     }
 
+    /**
+     * Reads and encodes a page of posts after a keyset cursor.
+     * 
+     * One more post than the page size is read, to know whether a next page
+     * exists without a count query. The owner of the posts is only looked up
+     * when the page is empty, to tell an unknown owner from the end of the list.
+     * 
+     * @param size the maximum number of posts of the page
+     * @param before the cursor returned with the previous page, null for the first page
+     * @param query reads up to size + 1 post previews below an ID, in descending ID order
+     * @param ownerExists tells whether the topic or user owning the posts exists
+     * @param notFoundMessage the error message if the owner does not exist
+     * @return the encoded CursorPageDTO of FeedPostDTO objects
+     */
+    private PrecompressedResponse listPosts(int size, Long before,
+                                            LongFunction<List<PostRepository.PostSummaryView>> query,
+                                            BooleanSupplier ownerExists,
+                                            String notFoundMessage) {
+        if (size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The page size must be between 1 and " + maxPageSize);
+        }
+        List<PostRepository.PostSummaryView> rows = query.apply(before == null ? Long.MAX_VALUE : before);
+        if (rows.isEmpty() && !ownerExists.getAsBoolean()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, notFoundMessage);
+        }
+
+        boolean hasNext = rows.size() > size;
+        DtoMappingEvent mapping = new DtoMappingEvent(FeedPostDTO.class);
+        mapping.begin();
+        List<FeedPostDTO> content = rows.stream()
+                .limit(size)
+                .map(this::mapToFeedPostDTO)
+                .toList();
+        mapping.itemCount = content.size();
+        mapping.commit();
+        Long nextCursor = hasNext ? content.get(content.size() - 1).getId() : null;
+        try {
+            return PrecompressedResponse.uncompressed(
+                    objectMapper.writeValueAsBytes(new CursorPageDTO<>(content, nextCursor)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Post page could not be serialized", e);
+        }
+    }
+
+    /**
+     * Adds the views not yet flushed by this node to the view count of a projected post.
+     * 
+     * @param dto the projected PostResponseDTO, whose view count is null if it was not selected
+     * @return the same PostResponseDTO
+     */
+    private PostResponseDTO withPendingViews(PostResponseDTO dto) {
+        if (dto.getViewCount() != null) {
+            dto.setViewCount(dto.getViewCount() + postViewCounter.pending(dto.getId()));
+        }
+        return dto;
+    }
+
+    /**
+     * Maps a post preview projection to a FeedPostDTO.
+     * 
+     * @param row the PostSummaryView projection to map
+     * @return a FeedPostDTO containing post preview information
+     */
+    private FeedPostDTO mapToFeedPostDTO(PostRepository.PostSummaryView row) {
+        FeedPostDTO dto = new FeedPostDTO();
+        dto.setId(row.getId());
+        dto.setTitle(row.getTitle());
+        dto.setAuthorName(row.getAuthorName());
+        dto.setContentPreview(row.getContentPreview());
+        dto.setCreatedAt(row.getCreatedAt());
+        return dto;
+    }
+
     /**
      * Maps a Post entity to a PostResponseDTO.
      * 
@@ -138,9 +404,28 @@ public class PostService {
      * and topic title.
      * 
      * @param post the Post entity to map
+     * @param content the content of the post, read from its body
      * @return PostResponseDTO containing formatted post information
      */
-    private PostResponseDTO mapToPostResponseDTO(Post post) {
+    private PostResponseDTO mapToPostResponseDTO(Post post, String content) {
+        return PostResponseDTO.builder()
+                .id(post.getId())
+                .title(post.getTitle())
+                .content(content)
+                .authorName(post.getUser().getUsername())
+                .topicTitle(post.getTopic().getTitle())
+                .createdAt(post.getCreatedAt())
+                .viewCount(post.getViewCount() + postViewCounter.pending(post.getId()))
+                .build();
+    }
+
+    /**
+     * Maps an archived post to a PostResponseDTO.
+     * 
+     * @param post the PostArchive entity to map
+     * @return PostResponseDTO containing formatted post information
+     */
+    private PostResponseDTO mapToPostResponseDTO(PostArchive post) {
         return PostResponseDTO.builder()
                 .id(post.getId())
                 .title(post.getTitle())
@@ -148,6 +433,7 @@ public class PostService {
                 .authorName(post.getUser().getUsername())
                 .topicTitle(post.getTopic().getTitle())
                 .createdAt(post.getCreatedAt())
+                .viewCount(post.getViewCount() + postViewCounter.pending(post.getId()))
                 .build();
     }
 
@@ -169,4 +455,19 @@ public class PostService {
                 .createdAt(comment.getCreatedAt())
                 .build();
     }
+
+    /**
+     * Maps an archived comment to a CommentResponseDTO.
+     * 
+     * @param comment the CommentArchive entity to map
+     * @return CommentResponseDTO containing formatted comment information
+     */
+    private CommentResponseDTO mapToCommentResponseDTO(CommentArchive comment) {
+        return CommentResponseDTO.builder()
+                .id(comment.getId())
+                .authorName(comment.getUser().getUsername())
+                .content(comment.getContent())
+                .createdAt(comment.getCreatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,233 @@
+package com.openclassrooms.mddapi.services;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counter of the post detail views, aggregated in memory and written in batches.
+ * 
+ * Incrementing the view count of a post in the database on every view would make
+ * the requests for a popular post queue on the lock of its row. Views are instead
+ * counted in memory, in a LongAdder per post, which concurrent views of the same
+ * post increment in separate cells without taking any lock. Only the first view
+ * of a post since its counter was dropped goes through computeIfAbsent.
+ * 
+ * A flush drops the counter of a post without views in two steps: it seals the
+ * counter, then drains it once more. If views arrived meanwhile, they are
+ * flushed and the counter is unsealed and kept; otherwise it is removed from the
+ * map. A view whose recorder finds its counter sealed after incrementing it waits
+ * for that decision, and is recorded again in a new counter only if the sealed
+ * counter was removed, since a removed counter is never read again. A recorder
+ * that does not see the seal incremented the counter before the last drain, so
+ * each view is counted exactly once.
+ * 
+ * Every "post.views.flush-interval-ms", and on shutdown, the counters are drained
+ * and their deltas added to the view_count column in a single JDBC batch, in one
+ * transaction along with the deltas of archived posts (see PostArchival). A
+ * failed flush puts the deltas back for the next one. The posts without views
+ * since the previous flush are dropped from memory. The posts archived meanwhile
+ * are found from the update counts of the batch or, when the driver does not
+ * report them (rewriteBatchedStatements), with a query on the post table.
+ * 
+ * The views not yet flushed by this node are added to the stored count when a
+ * PostResponseDTO is built. The cached post details of the flushed posts are
+ * evicted on this node, so they are rebuilt with the new count at most once per
+ * interval.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Component
+public class PostViewCounter {
+
+    private static final String ADD_POST_VIEWS = "UPDATE post SET view_count = view_count + ? WHERE id = ?";
+    private static final String ADD_ARCHIVED_POST_VIEWS =
+            "UPDATE post_archive SET view_count = view_count + ? WHERE id = ?";
+    private static final String SELECT_POST_IDS = "SELECT id FROM post WHERE id IN (%s)";
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PostDetailCache postDetailCache;
+    private final Counter flushed;
+    private final Map<Long, ViewCount> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile Map<Long, Long> flushing = Map.of();
+
+    public PostViewCounter(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           PostDetailCache postDetailCache,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.postDetailCache = postDetailCache;
+        this.flushed = meterRegistry.counter("post.views.flushed");
+        meterRegistry.gaugeMapSize("post.views.pending", List.of(), counters);
+    }
+
+    /**
+     * Records a view of a post.
+     * 
+     * @param postId the ID of the viewed post
+     */
+    public void record(Long postId) {
+        while (true) {
+            ViewCount count = counters.get(postId);
+            if (count == null) {
+                count = counters.computeIfAbsent(postId, id -> new ViewCount());
+            }
+            count.views.increment();
+            if (awaitKept(postId, count)) return;
+        }
+    }
+
+    /**
+     * Waits until a flush that sealed a counter has kept or removed it.
+     * 
+     * @param postId the ID of the post
+     * @param count the counter just incremented
+     * @return true if the view is counted, false if it must be recorded again
+     */
+    private boolean awaitKept(Long postId, ViewCount count) {
+        while (count.sealed) {
+            if (counters.get(postId) != count) return false;
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the views of a post not yet written to the database by this node.
+     * 
+     * @param postId the ID of the post
+     * @return the number of pending views, including those of a flush in progress
+     */
+    public long pending(Long postId) {
+        ViewCount count = counters.get(postId);
+        return (count == null ? 0 : count.views.sum()) + flushing.getOrDefault(postId, 0L);
+    }
+
+    /**
+     * Adds the pending views to the stored view counts in a single batch.
+     */
+    @Scheduled(fixedDelayString = "${post.views.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (counters.isEmpty()) return;
+            Map<Long, Long> deltas = new ConcurrentHashMap<>();
+            flushing = deltas;
+            counters.forEach((postId, count) -> {
+                // sumThenReset resets each cell atomically, so no concurrent view is lost.
+                long delta = count.views.sumThenReset();
+                if (delta == 0) {
+                    count.sealed = true;
+                    delta = count.views.sumThenReset();
+                    if (delta == 0) {
+                        counters.remove(postId, count);
+                    } else {
+                        count.sealed = false;
+                    }
+                }
+                if (delta > 0) {
+                    deltas.merge(postId, delta, Long::sum);
+                }
+            });
+            if (deltas.isEmpty()) {
+                flushing = Map.of();
+                return;
+            }
+
+            List<Map.Entry<Long, Long>> batch = new ArrayList<>(deltas.entrySet());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int[][] counts = jdbcTemplate.batchUpdate(ADD_POST_VIEWS, batch, batch.size(), (ps, entry) -> {
+                        ps.setLong(1, entry.getValue());
+                        ps.setLong(2, entry.getKey());
+                    });
+                    List<Map.Entry<Long, Long>> archived = archivedPosts(batch, counts[0]);
+                    if (!archived.isEmpty()) {
+                        jdbcTemplate.batchUpdate(ADD_ARCHIVED_POST_VIEWS, archived, archived.size(), (ps, entry) -> {
+                            ps.setLong(1, entry.getValue());
+                            ps.setLong(2, entry.getKey());
+                        });
+                    }
+                });
+            } catch (RuntimeException e) {
+                deltas.forEach((postId, delta) -> counters.computeIfAbsent(postId, id -> new ViewCount()).views.add(delta));
+                throw e;
+            } finally {
+                flushing = Map.of();
+            }
+
+            batch.forEach(entry -> postDetailCache.invalidate(entry.getKey().toString()));
+            flushed.increment(batch.size());
+            log.debug("Flushed the views of {} posts", batch.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the posts of a batch that were not updated because they were archived.
+     * 
+     * @param batch the deltas by post ID, in batch order
+     * @param counts the update counts of the batch
+     * @return the entries of the archived posts
+     */
+    private List<Map.Entry<Long, Long>> archivedPosts(List<Map.Entry<Long, Long>> batch, int[] counts) {
+        List<Long> unknown = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) unknown.add(batch.get(i).getKey());
+        }
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < unknown.size(); from += MAX_IN_LIST_SIZE) {
+            List<Long> ids = unknown.subList(from, Math.min(unknown.size(), from + MAX_IN_LIST_SIZE));
+            existing.addAll(jdbcTemplate.queryForList(
+                    SELECT_POST_IDS.formatted(String.join(", ", Collections.nCopies(ids.size(), "?"))),
+                    Long.class, ids.toArray()));
+        }
+
+        List<Map.Entry<Long, Long>> archived = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Map.Entry<Long, Long> entry = batch.get(i);
+            boolean missing = counts[i] == Statement.SUCCESS_NO_INFO
+                    ? !existing.contains(entry.getKey())
+                    : counts[i] == 0;
+            if (missing) archived.add(entry);
+        }
+        return archived;
+    }
+
+    /**
+     * Pending views of a post.
+     */
+    private static final class ViewCount {
+
+        private final LongAdder views = new LongAdder();
+
+        /** Set by a flush about to drop the counter. */
+        private volatile boolean sealed;
+    }
+}
@@ -0,0 +1,309 @@
+package com.openclassrooms.mddapi.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.openclassrooms.mddapi.Utils.CompressedBitmap;
+import com.openclassrooms.mddapi.models.TopicReadState;
+import com.openclassrooms.mddapi.repository.PostRepository;
+import com.openclassrooms.mddapi.repository.TopicReadStateRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service tracking which posts each user has read, and computing unread counts.
+ * 
+ * The read state of a user in a topic is a marker, below which every post is
+ * read, plus a CompressedBitmap of the posts read beyond it (see TopicReadState).
+ * The unread count of a topic is the number of its posts above the marker, read
+ * from the in-memory TopicPostIndex, minus the posts of the bitmap above the
+ * marker. It costs no query on the post table.
+ * 
+ * Marking posts as read updates an immutable copy of the state in a pending
+ * buffer, which takes precedence over the database for the reads of this node.
+ * The buffer is written every "read-state.flush-interval-ms" in a single JDBC
+ * batch of upserts, so a user scrolling through a feed produces one write per
+ * topic and interval rather than one per post. Pending states are also written
+ * on shutdown. Since another node may have written the same states in the
+ * meantime, the flush locks the stored rows with SELECT ... FOR UPDATE and merges
+ * them into the pending states: the highest marker is kept, and the posts read on
+ * either node are all kept read.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Service
+public class ReadStateService {
+
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private static final String LOCK_READ_STATES =
+            "SELECT user_id, topic_id, last_read_post_id, read_post_ids FROM topic_read_state " +
+            "WHERE (user_id, topic_id) IN (%s) FOR UPDATE";
+
+    private static final String UPSERT_READ_STATE =
+            "INSERT INTO topic_read_state (user_id, topic_id, last_read_post_id, read_post_ids, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "last_read_post_id = GREATEST(last_read_post_id, VALUES(last_read_post_id)), " +
+            "read_post_ids = VALUES(read_post_ids), updated_at = VALUES(updated_at)";
+
+    private final TopicReadStateRepository topicReadStateRepository;
+    private final PostRepository postRepository;
+    private final TopicPostIndex topicPostIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter flushed;
+    private final Map<TopicReadState.Key, ReadState> pending = new ConcurrentHashMap<>();
+    private final AtomicLong flushes = new AtomicLong();
+
+    @Value("${batch.max-ids:100}")
+    private int maxIds;
+
+    public ReadStateService(TopicReadStateRepository topicReadStateRepository,
+                            PostRepository postRepository,
+                            TopicPostIndex topicPostIndex,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.topicReadStateRepository = topicReadStateRepository;
+        this.postRepository = postRepository;
+        this.topicPostIndex = topicPostIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushed = meterRegistry.counter("read.state.flushed");
+        meterRegistry.gaugeMapSize("read.state.pending", List.of(), pending);
+    }
+
+    /**
+     * Computes the unread counts of a user in several topics.
+     * 
+     * @param userId the ID of the user
+     * @param topicIds the IDs of the topics
+     * @return the number of unread posts, by topic ID
+     */
+    public Map<Long, Long> getUnreadCounts(Long userId, Collection<Long> topicIds) {
+        Map<Long, ReadState> states = new HashMap<>();
+        List<Long> storedTopicIds = new ArrayList<>();
+        for (Long topicId : topicIds) {
+            ReadState state = pending.get(new TopicReadState.Key(userId, topicId));
+            if (state != null) {
+                states.put(topicId, state);
+            } else {
+                storedTopicIds.add(topicId);
+            }
+        }
+        if (!storedTopicIds.isEmpty()) {
+            topicReadStateRepository.findByUserIdAndTopicIdIn(userId, storedTopicIds)
+                    .forEach(stored -> states.put(stored.getTopicId(), ReadState.of(stored)));
+        }
+
+        Map<Long, Long> unreadCounts = new HashMap<>();
+        for (Long topicId : topicIds) {
+            ReadState state = states.getOrDefault(topicId, ReadState.EMPTY);
+            long marker = state.lastReadPostId();
+            long unread = topicPostIndex.countAfter(topicId, marker) - state.readPostIds().countAbove(marker);
+            unreadCounts.put(topicId, Math.max(0, unread));
+        }
+        return unreadCounts;
+    }
+
+    /**
+     * Marks several posts as read by a user.
+     * 
+     * The posts are looked up in a single query to find their topics. Unknown
+     * posts are ignored.
+     * 
+     * @param userId the ID of the user
+     * @param postIds the IDs of the read posts
+     * @throws ResponseStatusException with 400 status if too many IDs are given
+     */
+    public void markPostsRead(Long userId, List<Long> postIds) {
+        if (postIds.size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxIds + " ids can be requested at once");
+        }
+        if (postIds.isEmpty()) return;
+
+        Map<Long, List<Long>> postIdsByTopic = postRepository.findTopicIdsByIdIn(Set.copyOf(postIds)).stream()
+                .collect(Collectors.groupingBy(PostRepository.PostTopicView::getTopicId,
+                         Collectors.mapping(PostRepository.PostTopicView::getId, Collectors.toList())));
+        postIdsByTopic.forEach((topicId, ids) ->
+                update(userId, topicId, state -> state.withRead(ids, next -> topicPostIndex.nextPostId(topicId, next))));
+    }
+
+    /**
+     * Marks every current post of a topic as read by a user.
+     * 
+     * @param userId the ID of the user
+     * @param topicId the ID of the topic
+     */
+    public void markTopicRead(Long userId, Long topicId) {
+        long lastPostId = topicPostIndex.lastPostId(topicId);
+        update(userId, topicId, state -> new ReadState(Math.max(state.lastReadPostId(), lastPostId), new CompressedBitmap()));
+    }
+
+    /**
+     * Writes the pending read states to the database, in batches of FLUSH_CHUNK_SIZE.
+     * 
+     * Each batch runs in its own transaction, which locks the stored states, merges
+     * them into the pending ones and upserts the result. A batch that fails, for
+     * instance when it deadlocks with the flush of another node, stays pending for
+     * the next flush.
+     */
+    @Scheduled(fixedDelayString = "${read-state.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<Map.Entry<TopicReadState.Key, ReadState>> batch = new ArrayList<>();
+        pending.forEach((key, state) -> batch.add(Map.entry(key, state)));
+
+        int written = 0;
+        for (int from = 0; from < batch.size(); from += FLUSH_CHUNK_SIZE) {
+            List<Map.Entry<TopicReadState.Key, ReadState>> chunk =
+                    batch.subList(from, Math.min(batch.size(), from + FLUSH_CHUNK_SIZE));
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(chunk));
+            } catch (DataAccessException e) {
+                log.warn("Failed to flush {} read states, retrying at the next flush", chunk.size(), e);
+                continue;
+            }
+            // Bumped before the removals, so that an update which loaded its state earlier reloads it.
+            flushes.incrementAndGet();
+            // States changed during the write stay pending for the next flush.
+            chunk.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+            written += chunk.size();
+        }
+        flushed.increment(written);
+        log.debug("Flushed {} read states", written);
+    }
+
+    private void write(List<Map.Entry<TopicReadState.Key, ReadState>> chunk) {
+        Map<TopicReadState.Key, ReadState> stored = new HashMap<>();
+        jdbcTemplate.query(LOCK_READ_STATES.formatted(String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)"))),
+                rs -> {
+                    stored.put(new TopicReadState.Key(rs.getLong(1), rs.getLong(2)),
+                               new ReadState(rs.getLong(3), CompressedBitmap.fromBytes(rs.getBytes(4))));
+                },
+                chunk.stream()
+                        .flatMap(entry -> Stream.of(entry.getKey().getUserId(), entry.getKey().getTopicId()))
+                        .toArray());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_READ_STATE, chunk, chunk.size(), (ps, entry) -> {
+            Long topicId = entry.getKey().getTopicId();
+            ReadState state = entry.getValue();
+            ReadState other = stored.get(entry.getKey());
+            if (other != null) {
+                state = state.mergedWith(other, next -> topicPostIndex.nextPostId(topicId, next));
+            }
+            ps.setLong(1, entry.getKey().getUserId());
+            ps.setLong(2, topicId);
+            ps.setLong(3, state.lastReadPostId());
+            ps.setBytes(4, state.readPostIds().isEmpty() ? null : state.readPostIds().toBytes());
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    private void update(Long userId, Long topicId, UnaryOperator<ReadState> change) {
+        TopicReadState.Key key = new TopicReadState.Key(userId, topicId);
+        // Load outside of compute, which blocks the other updates of the map bin.
+        long generation = flushes.get();
+        ReadState stored = pending.containsKey(key) ? null : load(key);
+        pending.compute(key, (k, current) -> {
+            if (current != null) return change.apply(current);
+            // A pending state may have been flushed since the lookup, and written after the load:
+            // the loaded state is then stale, and building on it would undo that update.
+            boolean fresh = stored != null && flushes.get() == generation;
+            return change.apply(fresh ? stored : load(key));
+        });
+    }
+
+    private ReadState load(TopicReadState.Key key) {
+        return topicReadStateRepository.findById(key)
+                .map(ReadState::of)
+                .orElse(ReadState.EMPTY);
+    }
+
+    /**
+     * Immutable read state of a user in a topic.
+     * 
+     * @param lastReadPostId the ID up to which every post is read
+     * @param readPostIds the posts read beyond the marker, never modified once the state is built
+     */
+    private record ReadState(long lastReadPostId, CompressedBitmap readPostIds) {
+
+        static final ReadState EMPTY = new ReadState(0, new CompressedBitmap());
+
+        static ReadState of(TopicReadState stored) {
+            return new ReadState(stored.getLastReadPostId(), CompressedBitmap.fromBytes(stored.getReadPostIds()));
+        }
+
+        /**
+         * Returns a copy of the state with more posts read.
+         * 
+         * The marker then moves forward over the posts read in sequence, so the
+         * bitmap only keeps the posts read ahead of an unread one.
+         * 
+         * @param postIds the IDs of the read posts, all in the topic
+         * @param nextPostId gives the ID of the first post of the topic above an ID, or -1
+         * @return the new state
+         */
+        ReadState withRead(List<Long> postIds, LongUnaryOperator nextPostId) {
+            CompressedBitmap read = readPostIds.copy();
+            postIds.stream().filter(id -> id > lastReadPostId).forEach(read::add);
+
+            long marker = lastReadPostId;
+            long next;
+            while (!read.isEmpty() && (next = nextPostId.applyAsLong(marker)) > 0 && read.contains(next)) {
+                marker = next;
+            }
+            read.removeUpTo(marker);
+            return new ReadState(marker, read);
+        }
+
+        /**
+         * Returns the union of this state and another one, written by another node.
+         * 
+         * @param other the other state of the same user and topic
+         * @param nextPostId gives the ID of the first post of the topic above an ID, or -1
+         * @return the state where every post read in either state is read
+         */
+        ReadState mergedWith(ReadState other, LongUnaryOperator nextPostId) {
+            long marker = Math.max(lastReadPostId, other.lastReadPostId);
+            List<Long> postIds = new ArrayList<>();
+            for (CompressedBitmap bitmap : List.of(readPostIds, other.readPostIds)) {
+                for (long id = bitmap.nextValue(marker + 1); id >= 0; id = bitmap.nextValue(id + 1)) {
+                    postIds.add(id);
+                }
+            }
+            return new ReadState(marker, new CompressedBitmap()).withRead(postIds, nextPostId);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces identical concurrent reads into a single computation.
+ * 
+ * When many requests ask for the same data at the same instant, as when a post
+ * goes viral or a cache entry is evicted, each of them would otherwise run the
+ * same queries. With SingleFlight, the first caller for a key runs the
+ * computation, and the callers arriving while it is in flight wait for its
+ * result instead of starting their own. Nothing is kept once the computation
+ * completes: the next caller runs it again, so this is no cache, and is meant to
+ * sit behind one.
+ * 
+ * Waiting callers share the result, or the exception thrown by the computation.
+ * They wait for at most "singleflight.timeout-ms", then fail with 503 Service
+ * Unavailable rather than piling more load on a slow database. The computation
+ * runs on the thread of its first caller, so callers must not hold a database
+ * connection while they wait: the computations are not wrapped in a transaction.
+ * 
+ * Every key belongs to a named group. For each group, the singleflight.executions
+ * counter counts the computations run and the singleflight.shared counter the
+ * callers served by another caller's computation, so shared / (executions + shared)
+ * is the coalescing ratio.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class SingleFlight {
+
+    private final Map<Call, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, GroupCounters> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${singleflight.timeout-ms:5000}")
+    private long timeoutMs;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gaugeMapSize("singleflight.in-flight", List.of(), inFlight);
+    }
+
+    /**
+     * Returns the result of a computation, shared with the concurrent callers for the same key.
+     * 
+     * @param <V> the type of the result
+     * @param group the name of the computation, used as metric tag
+     * @param key identifies the computed data within the group
+     * @param computation computes the result
+     * @return the result of the computation, possibly run by another caller
+     * @throws ResponseStatusException with 503 status if the computation of another
+     *         caller did not complete in time
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String group, Object key, Supplier<V> computation) {
+        Call call = new Call(group, key);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(call, own);
+        GroupCounters groupCounters = counters(group);
+
+        if (existing != null) {
+            groupCounters.shared().increment();
+            return (V) await(existing);
+        }
+
+        groupCounters.executions().increment();
+        try {
+            V result = computation.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(call, own);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new CompletionException(cause);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for a concurrent request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for a concurrent request");
+        }
+    }
+
+    private GroupCounters counters(String group) {
+        return counters.computeIfAbsent(group, name -> new GroupCounters(
+                meterRegistry.counter("singleflight.executions", "group", name),
+                meterRegistry.counter("singleflight.shared", "group", name)));
+    }
+
+    /**
+     * Key of an in-flight computation.
+     * 
+     * @param group the name of the computation
+     * @param key identifies the computed data within the group
+     */
+    private record Call(String group, Object key) {
+    }
+
+    /**
+     * Metrics of a group of computations.
+     * 
+     * @param executions counts the computations run
+     * @param shared counts the callers served by the computation of another caller
+     */
+    private record GroupCounters(Counter executions, Counter shared) {
+    }
+}
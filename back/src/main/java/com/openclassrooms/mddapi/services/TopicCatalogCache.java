@@ -0,0 +1,105 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.List;
+
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.Utils.PrecompressedResponse;
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.TopicWithSubscriptionDTO;
+import com.openclassrooms.mddapi.repository.TopicRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of the encoded topic catalog.
+ * 
+ * The catalog lists every topic with its ID, title and description, without the
+ * per-user subscription flag, so the same bytes can be served to every user.
+ * It is serialized and compressed once, then served as-is until the topics change.
+ * 
+ * Topics are only created by the bulk import, which publishes an invalidation
+ * through the CacheInvalidationBus under the "topic-catalog" name. A generation
+ * counter keeps a catalog built concurrently with an invalidation from being stored.
+ * Concurrent misses share a single build through SingleFlight.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class TopicCatalogCache implements InvalidatableCache {
+
+    public static final String NAME = "topic-catalog";
+
+    private static final List<String> CATALOG_FIELDS = List.of("id", "title", "description");
+
+    private final TopicRepository topicRepository;
+    private final ObjectMapper objectMapper;
+    private final SingleFlight singleFlight;
+    private final Counter builds;
+    private PrecompressedResponse catalog;
+    private long generation;
+
+    public TopicCatalogCache(TopicRepository topicRepository, ObjectMapper objectMapper, SingleFlight singleFlight,
+                             MeterRegistry meterRegistry) {
+        this.topicRepository = topicRepository;
+        this.objectMapper = objectMapper;
+        this.singleFlight = singleFlight;
+        this.builds = meterRegistry.counter("topic.catalog.builds");
+    }
+
+    /**
+     * Returns the encoded topic catalog, building it if needed.
+     * 
+     * @return the encoded catalog
+     */
+    public PrecompressedResponse get() {
+        long observedGeneration;
+        synchronized (this) {
+            if (catalog != null) return catalog;
+            observedGeneration = generation;
+        }
+
+        PrecompressedResponse built = singleFlight.execute(NAME, observedGeneration, () -> {
+            builds.increment();
+            return build();
+        });
+
+        synchronized (this) {
+            if (generation == observedGeneration) {
+                catalog = built;
+            }
+        }
+        return built;
+    }
+
+    @Override
+    public String getCacheName() {
+        return NAME;
+    }
+
+    /**
+     * Evicts the catalog, whatever the key.
+     * 
+     * @param key ignored, ALL_KEYS is expected
+     */
+    @Override
+    public synchronized void invalidate(String key) {
+        generation++;
+        catalog = null;
+    }
+
+    private PrecompressedResponse build() {
+        FieldSelection fields = FieldSelection.fromParam(String.join(",", CATALOG_FIELDS), TopicWithSubscriptionDTO.FIELDS);
+        MappingJacksonValue topics = (MappingJacksonValue) fields.apply(topicRepository.findAllProjected(fields));
+        try {
+            return PrecompressedResponse.of(objectMapper.writer(topics.getFilters()).writeValueAsBytes(topics.getValue()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Topic catalog could not be serialized", e);
+        }
+    }
+}
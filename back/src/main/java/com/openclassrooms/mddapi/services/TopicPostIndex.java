@@ -0,0 +1,139 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.Utils.CompressedBitmap;
+import com.openclassrooms.mddapi.repository.PostRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory index of the post IDs of each topic, used to compute unread counts.
+ * 
+ * The IDs of a topic are loaded in a CompressedBitmap on first use, with a single
+ * query reading the post IDs of the topic. Counting the posts above a read marker
+ * is then a rank query on the bitmap, so unread counts never hit the post table.
+ * 
+ * New posts are signalled through the CacheInvalidationBus under the
+ * "topic-post-index" name, with the topic ID as key, by the
+ * TopicPostIndexOutboxHandler: the topic is marked stale,
+ * and the IDs above the highest known one are appended on its next use. An ID
+ * committed after a higher one may be missed by this incremental refresh, so every
+ * topic is reloaded from scratch every "read-state.index-refresh-interval-ms".
+ * ALL_KEYS drops every topic, as after a bulk import.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+public class TopicPostIndex implements InvalidatableCache {
+
+    public static final String NAME = "topic-post-index";
+
+    private final PostRepository postRepository;
+    private final Map<Long, CompressedBitmap> postIdsByTopic = new ConcurrentHashMap<>();
+    private final Set<Long> staleTopicIds = ConcurrentHashMap.newKeySet();
+
+    public TopicPostIndex(PostRepository postRepository, MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        meterRegistry.gaugeMapSize("topic.post.index.topics", List.of(), postIdsByTopic);
+    }
+
+    /**
+     * Counts the posts of a topic above a given ID.
+     * 
+     * @param topicId the ID of the topic
+     * @param afterId the exclusive lower bound of the IDs
+     * @return the number of posts of the topic with a greater ID
+     */
+    public long countAfter(Long topicId, long afterId) {
+        CompressedBitmap postIds = postIds(topicId);
+        synchronized (postIds) {
+            return postIds.countAbove(afterId);
+        }
+    }
+
+    /**
+     * Returns the ID of the first post of a topic above a given ID.
+     * 
+     * @param topicId the ID of the topic
+     * @param afterId the exclusive lower bound of the IDs
+     * @return the next post ID, or -1 if there is none
+     */
+    public long nextPostId(Long topicId, long afterId) {
+        CompressedBitmap postIds = postIds(topicId);
+        synchronized (postIds) {
+            return postIds.nextValue(afterId + 1);
+        }
+    }
+
+    /**
+     * Returns the ID of the latest post of a topic.
+     * 
+     * @param topicId the ID of the topic
+     * @return the highest post ID of the topic, or 0 if the topic has no post
+     */
+    public long lastPostId(Long topicId) {
+        CompressedBitmap postIds = postIds(topicId);
+        synchronized (postIds) {
+            return Math.max(0, postIds.last());
+        }
+    }
+
+    @Override
+    public String getCacheName() {
+        return NAME;
+    }
+
+    /**
+     * Marks a topic as stale, or drops every topic if the key is ALL_KEYS.
+     * 
+     * @param key the ID of the topic that received a new post, or ALL_KEYS
+     */
+    @Override
+    public void invalidate(String key) {
+        if (ALL_KEYS.equals(key)) {
+            postIdsByTopic.clear();
+            staleTopicIds.clear();
+        } else {
+            staleTopicIds.add(Long.valueOf(key));
+        }
+    }
+
+    /**
+     * Drops every topic, so they are reloaded from scratch on their next use.
+     */
+    @Scheduled(fixedDelayString = "${read-state.index-refresh-interval-ms:600000}",
+               initialDelayString = "${read-state.index-refresh-interval-ms:600000}")
+    public void reload() {
+        invalidate(ALL_KEYS);
+    }
+
+    private CompressedBitmap postIds(Long topicId) {
+        CompressedBitmap postIds = postIdsByTopic.get(topicId);
+        if (postIds == null) {
+            staleTopicIds.remove(topicId);
+            CompressedBitmap loaded = new CompressedBitmap();
+            postRepository.findIdsByTopicIdAfter(topicId, 0).forEach(loaded::add);
+            postIds = postIdsByTopic.putIfAbsent(topicId, loaded);
+            return postIds != null ? postIds : loaded;
+        }
+        if (staleTopicIds.remove(topicId)) {
+            long lastId;
+            synchronized (postIds) {
+                lastId = Math.max(0, postIds.last());
+            }
+            List<Long> newIds = postRepository.findIdsByTopicIdAfter(topicId, lastId);
+            synchronized (postIds) {
+                newIds.forEach(postIds::add);
+            }
+        }
+        return postIds;
+    }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.mddapi.services;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.models.OutboxEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Outbox handler refreshing the unread counts of a topic when a post is created.
+ * 
+ * On a PostCreated event, the topic of the post is marked stale in the
+ * TopicPostIndex of every node through the CacheInvalidationBus, so the new post
+ * is counted as unread. The unread counts therefore lag behind post creation by
+ * one relay poll, and the creation request does not pay for the invalidation.
+ * 
+ * Handling the same event twice only marks the topic stale twice, which is harmless.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Component
+@RequiredArgsConstructor
+public class TopicPostIndexOutboxHandler implements OutboxEventHandler {
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(String eventType) {
+        return OutboxEvent.POST_CREATED.equals(eventType);
+    }
+
+    /**
+     * Publishes the invalidation of the topic of the created post.
+     * 
+     * @param event the PostCreated event, whose payload holds the topic ID
+     * @throws IllegalArgumentException if the payload has no topic ID
+     */
+    @Override
+    public void handle(OutboxEvent event) {
+        JsonNode topicId;
+        try {
+            topicId = objectMapper.readTree(event.getPayload()).get("topicId");
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid PostCreated payload", e);
+        }
+        if (topicId == null || !topicId.canConvertToLong()) {
+            throw new IllegalArgumentException("PostCreated payload without topic ID");
+        }
+        cacheInvalidationBus.publish(TopicPostIndex.NAME, String.valueOf(topicId.asLong()));
+    }
+}
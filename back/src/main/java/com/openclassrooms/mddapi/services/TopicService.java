@@ -1,16 +1,21 @@
 package com.openclassrooms.mddapi.services;
 
+import com.openclassrooms.mddapi.dto.FieldSelection;
+import com.openclassrooms.mddapi.dto.SubscriptionChangesDTO;
 import com.openclassrooms.mddapi.dto.TopicWithSubscriptionDTO;
 import com.openclassrooms.mddapi.models.Topic;
-import com.openclassrooms.mddapi.models.User;
 import com.openclassrooms.mddapi.repository.TopicRepository;
-import com.openclassrooms.mddapi.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Service responsible for managing topic and subscription operations in the MDD API.
@@ -24,6 +29,7 @@ import java.util.List;
  * - Retrieve topics the current user is subscribed to
  * - Subscribe users to topics
  * - Unsubscribe users from topics
+ * - Apply several subscription changes at once
  * - Map topic entities to DTOs with subscription status
  * 
  * All operations automatically use the authenticated user from the security context
@@ -37,8 +43,11 @@ import java.util.List;
 public class TopicService {
 
     private final TopicRepository topicRepository;
-    private final UserRepository userRepository;
     private final UserService userService;
+    private final ReadStateService readStateService;
+
+    @Value("${batch.max-ids:100}")
+    private int maxIds;
 
     /**
      * Retrieves all available topics with subscription status for the current user.
@@ -46,18 +55,29 @@ public class TopicService {
      * This method fetches all topics in the system and includes a subscription flag
      * for each topic indicating whether the authenticated user is currently subscribed.
      * This allows the UI to display all topics with appropriate subscription indicators.
+     * Subscribed topics also carry their unread count. Only the columns backing the
+     * selected properties are read, and the subscriptions are only looked up when
+     * the subscription flag or the unread count is selected.
      * 
+     * @param fields the TopicWithSubscriptionDTO properties to select
      * @return List of TopicWithSubscriptionDTO objects with subscription status
      */
-    public List<TopicWithSubscriptionDTO> getAllTopicsWithSubscriptionFlag() {
-        User user = userService.getAuthenticatedUser();
-        List<Long> subscribedTopicIds = user.getTopics().stream()
-                                           .map(Topic::getId)
-                                           .toList();
-
-        return topicRepository.findAll().stream()
-                .map(topic -> mapToTopicWithSubscriptionDTO(topic, subscribedTopicIds.contains(topic.getId())))
-                .toList();
+    public List<TopicWithSubscriptionDTO> getAllTopicsWithSubscriptionFlag(FieldSelection fields) {
+        List<TopicWithSubscriptionDTO> topics = topicRepository.findAllProjected(fields);
+        if (!fields.includes("subscribed") && !fields.includes("unreadCount")) {
+            return topics;
+        }
+
+        Long userId = userService.getAuthenticatedUserId();
+        Set<Long> subscribedTopicIds = Set.copyOf(topicRepository.findSubscribedTopicIds(userId));
+        Map<Long, Long> unreadCounts = fields.includes("unreadCount")
+                ? readStateService.getUnreadCounts(userId, subscribedTopicIds)
+                : Map.of();
+        topics.forEach(topic -> {
+            topic.setSubscribed(subscribedTopicIds.contains(topic.getId()));
+            topic.setUnreadCount(unreadCounts.get(topic.getId()));
+        });
+        return topics;
     }
 
     /**
@@ -66,16 +86,38 @@ public class TopicService {
      * This method returns only the topics to which the authenticated user has an
      * active subscription. These subscribed topics determine which posts appear in
      * the user's personalized feed. All returned topics have their subscription
-     * flag set to true.
+     * flag set to true, along with their unread count, computed from the in-memory
+     * TopicPostIndex.
      * 
+     * @param fields the TopicWithSubscriptionDTO properties to select
      * @return List of TopicWithSubscriptionDTO objects for subscribed topics
      */
-    public List<TopicWithSubscriptionDTO> getUserSubscribedTopics() {
-        User user = userService.getAuthenticatedUser();
+    public List<TopicWithSubscriptionDTO> getUserSubscribedTopics(FieldSelection fields) {
+        Long userId = userService.getAuthenticatedUserId();
+        List<TopicWithSubscriptionDTO> topics = topicRepository.findSubscribedProjected(userId, fields);
+        Map<Long, Long> unreadCounts = fields.includes("unreadCount")
+                ? readStateService.getUnreadCounts(userId, topics.stream().map(TopicWithSubscriptionDTO::getId).toList())
+                : Map.of();
+        topics.forEach(topic -> {
+            topic.setSubscribed(true);
+            topic.setUnreadCount(unreadCounts.get(topic.getId()));
+        });
+        return topics;
+    }
 
-        return user.getTopics().stream()
-                .map(topic -> mapToTopicWithSubscriptionDTO(topic, true))
-                .toList();
+    /**
+     * Marks every current post of a topic as read by the current user.
+     * 
+     * The read state is written asynchronously, in a batch, by the ReadStateService.
+     * 
+     * @param topicId the unique identifier of the topic
+     * @throws ResponseStatusException with 404 status if topic is not found
+     */
+    public void markTopicRead(Long topicId) {
+        if (!topicRepository.existsById(topicId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Topic not found");
+        }
+        readStateService.markTopicRead(userService.getAuthenticatedUserId(), topicId);
     }
 
     /**
@@ -84,20 +126,24 @@ public class TopicService {
      * This method creates a subscription relationship between the authenticated user
      * and the specified topic. Once subscribed, posts from this topic will appear in
      * the user's feed. If the user is already subscribed, this operation is idempotent
-     * and will not create duplicate subscriptions.
+     * and will not create duplicate subscriptions. The current posts of the topic are
+     * marked as read, so the unread count only reflects the posts published afterwards.
+     * 
+     * The subscription is inserted directly in the join table, so neither the user
+     * nor its subscribed topics are loaded.
      * 
      * @param topicId the unique identifier of the topic to subscribe to
      * @return TopicWithSubscriptionDTO with subscription flag set to true
      * @throws ResponseStatusException with 404 status if topic is not found
      */
+    @Transactional
     public TopicWithSubscriptionDTO subscribeToTopic(Long topicId) {
-        User user = userService.getAuthenticatedUser();
+        Long userId = userService.getAuthenticatedUserId();
         Topic topic = topicRepository.findById(topicId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Topic not found"));
 
-        if (!user.getTopics().contains(topic)) {
-            user.getTopics().add(topic);
-            userRepository.save(user);
+        if (topicRepository.insertSubscription(userId, topicId) > 0) {
+            readStateService.markTopicRead(userId, topicId);
         }
 
         return mapToTopicWithSubscriptionDTO(topic, true);
@@ -111,23 +157,69 @@ public class TopicService {
      * appear in the user's feed. If the user is not subscribed, this operation is
      * idempotent and will not raise an error.
      * 
+     * The subscription is deleted directly from the join table.
+     * 
      * @param topicId the unique identifier of the topic to unsubscribe from
      * @return TopicWithSubscriptionDTO with subscription flag set to false
      * @throws ResponseStatusException with 404 status if topic is not found
      */
+    @Transactional
     public TopicWithSubscriptionDTO unsubscribeFromTopic(Long topicId) {
-        User user = userService.getAuthenticatedUser();
+        Long userId = userService.getAuthenticatedUserId();
         Topic topic = topicRepository.findById(topicId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Topic not found"));
 
-        boolean removed = user.getTopics().remove(topic);
-        if (removed) {
-            userRepository.save(user);
-        }
+        topicRepository.deleteSubscriptions(userId, List.of(topicId));
 
         return mapToTopicWithSubscriptionDTO(topic, false);
     }
 
+    /**
+     * Applies several subscription changes of the current user at once.
+     * 
+     * All subscriptions are inserted in a single statement, and all unsubscriptions
+     * deleted in another, in one transaction. Unknown topics, existing subscriptions
+     * and missing ones are skipped. The current posts of the newly subscribed topics
+     * are marked as read.
+     * 
+     * @param changes the IDs of the topics to subscribe to and unsubscribe from
+     * @return List of TopicWithSubscriptionDTO for the topics subscribed afterwards
+     * @throws ResponseStatusException with 400 status if too many IDs are given, if an ID is null,
+     *         or if a topic is both subscribed to and unsubscribed from
+     */
+    @Transactional
+    public List<TopicWithSubscriptionDTO> updateSubscriptions(SubscriptionChangesDTO changes) {
+        List<Long> subscribe = changes.getSubscribe() == null ? List.of() : changes.getSubscribe();
+        List<Long> unsubscribe = changes.getUnsubscribe() == null ? List.of() : changes.getUnsubscribe();
+        if (subscribe.size() + unsubscribe.size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxIds + " ids can be requested at once");
+        }
+        if (subscribe.stream().anyMatch(Objects::isNull) || unsubscribe.stream().anyMatch(Objects::isNull)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Topic IDs must not be null");
+        }
+        for (Long topicId : subscribe) {
+            if (unsubscribe.contains(topicId)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Topic " + topicId + " cannot be both subscribed to and unsubscribed from");
+            }
+        }
+
+        Long userId = userService.getAuthenticatedUserId();
+        if (!unsubscribe.isEmpty()) {
+            topicRepository.deleteSubscriptions(userId, Set.copyOf(unsubscribe));
+        }
+        if (!subscribe.isEmpty()) {
+            Set<Long> previous = Set.copyOf(topicRepository.findSubscribedTopicIds(userId));
+            if (topicRepository.insertSubscriptions(userId, Set.copyOf(subscribe)) > 0) {
+                topicRepository.findSubscribedTopicIds(userId).stream()
+                        .filter(topicId -> !previous.contains(topicId))
+                        .forEach(topicId -> readStateService.markTopicRead(userId, topicId));
+            }
+        }
+        return getUserSubscribedTopics(FieldSelection.fromParam(null, TopicWithSubscriptionDTO.FIELDS));
+    }
+
     /**
      * Maps a Topic entity to a TopicWithSubscriptionDTO with subscription status.
      * 
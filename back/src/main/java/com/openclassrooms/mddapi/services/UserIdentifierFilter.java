@@ -0,0 +1,253 @@
+package com.openclassrooms.mddapi.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.Utils.BloomFilter;
+import com.openclassrooms.mddapi.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory Bloom filter of the usernames and emails already taken.
+ * 
+ * Uniqueness checks during registration, profile updates and availability
+ * lookups first ask this filter. A negative answer means the value is definitely
+ * free and the database lookup is skipped; a positive answer may be a false
+ * positive (about 1%) and is confirmed by an indexed exists query. The unique
+ * constraints of the user table remain the final guard against races.
+ * 
+ * The filter is loaded once the application is ready, with a streaming scan of the
+ * two columns. Until then, every check goes to the database. Since a Bloom filter
+ * cannot forget values, it is rebuilt periodically to drop the identifiers released
+ * by profile updates and to resize it as the table grows.
+ * 
+ * The default MySQL collation ignores case and accents, so "Cécile" and "cecile"
+ * collide on the unique constraints. Values are folded before they are hashed:
+ * lower case, accents and compatibility forms removed, and the Latin letters the
+ * collation may expand or merge replaced by their base letters. Folding more than
+ * the collation only costs a database lookup, folding less would answer "free" for
+ * a taken value; values still outside ASCII once folded are therefore always
+ * checked in the database.
+ * 
+ * New identifiers are published through the CacheInvalidationBus under the
+ * "user-identifiers" name: "invalidating" a key removes the "definitely free"
+ * answer for it on every node, by adding it to their filter. Keys are SHA-256
+ * hashes of the folded values, so no email is written to the invalidation table.
+ * 
+ * @author Cécile UMECKER
+ 
+ */
+@Slf4j
+@Component
+public class UserIdentifierFilter implements InvalidatableCache {
+
+    public static final String NAME = "user-identifiers";
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final String[][] LETTER_FOLDS = {
+            { "ß", "ss" }, { "æ", "ae" }, { "œ", "oe" }, { "ø", "o" }, { "đ", "d" }, { "ð", "d" },
+            { "ł", "l" }, { "ħ", "h" }, { "ŧ", "t" }, { "ı", "i" }, { "þ", "th" } };
+
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter definitelyFree;
+    private final Counter maybeTaken;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter pending;
+    @Value("${user.identifier-filter.min-capacity:100000}")
+    private long minCapacity;
+
+    @Value("${user.identifier-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    public UserIdentifierFilter(UserRepository userRepository,
+                                @Lazy CacheInvalidationBus cacheInvalidationBus,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.definitelyFree = meterRegistry.counter("user.identifier.filter", "answer", "definitely-free");
+        this.maybeTaken = meterRegistry.counter("user.identifier.filter", "answer", "maybe-taken");
+    }
+
+    /**
+     * Tells whether a username may already be taken.
+     * 
+     * @param username the username to check
+     * @return false if the username is definitely free, true if it must be checked in the database
+     */
+    public boolean mightHaveUsername(String username) {
+        if (username == null) return false;
+        return mightContain(USERNAME_PREFIX, username);
+    }
+
+    /**
+     * Tells whether an email may already be taken.
+     * 
+     * @param email the email to check
+     * @return false if the email is definitely free, true if it must be checked in the database
+     */
+    public boolean mightHaveEmail(String email) {
+        if (email == null) return false;
+        return mightContain(EMAIL_PREFIX, email);
+    }
+
+    /**
+     * Records a username and an email that were just saved, on every node.
+     * 
+     * @param username the saved username, may be null if unchanged
+     * @param email the saved email, may be null if unchanged
+     */
+    public void add(String username, String email) {
+        if (username != null) {
+            cacheInvalidationBus.publish(NAME, key(USERNAME_PREFIX, fold(username)));
+        }
+        if (email != null) {
+            cacheInvalidationBus.publish(NAME, key(EMAIL_PREFIX, fold(email)));
+        }
+    }
+
+    @Override
+    public String getCacheName() {
+        return NAME;
+    }
+
+    /**
+     * Adds a hashed identifier to the local filter, or rebuilds the filter if the
+     * key is ALL_KEYS.
+     * 
+     * @param key the prefixed hash of an identifier, or ALL_KEYS
+     */
+    @Override
+    public void invalidate(String key) {
+        if (ALL_KEYS.equals(key)) {
+            rebuild();
+            return;
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        BloomFilter next = pending;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    /**
+     * Loads the filter once the application is ready.
+     * 
+     * A failed scan must not stop the application: the filter stays unloaded, so
+     * every check goes to the database until the next scheduled rebuild.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not load the identifier filter, uniqueness checks will use the database", e);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the database with a streaming scan.
+     * 
+     * The previous filter keeps answering during the scan. Identifiers added while
+     * the scan runs go to both filters, so none is lost when the new one is swapped in.
+     */
+    @Scheduled(fixedDelayString = "${user.identifier-filter.rebuild-interval-ms:21600000}",
+               initialDelayString = "${user.identifier-filter.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            // Room for the table to double until the next rebuild, with two keys per user.
+            long capacity = Math.max(minCapacity, userRepository.count() * 2);
+            BloomFilter next = new BloomFilter(capacity * 2, falsePositiveRate);
+            pending = next;
+            try {
+                Long loaded = transactionTemplate.execute(status -> {
+                    long count = 0;
+                    try (Stream<Object[]> rows = userRepository.streamAllIdentifiers()) {
+                        for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                            next.put(key(USERNAME_PREFIX, fold((String) row[0])));
+                            next.put(key(EMAIL_PREFIX, fold((String) row[1])));
+                            count++;
+                        }
+                    }
+                    return count;
+                });
+                filter = next;
+                log.info("Loaded {} users into the identifier filter ({} bits, {} hashes) in {} ms",
+                        loaded, next.bitSize(), next.hashCount(), System.currentTimeMillis() - start);
+            } finally {
+                pending = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean mightContain(String prefix, String value) {
+        String folded = fold(value);
+        BloomFilter current = filter;
+        boolean result = current == null || !isAscii(folded) || current.mightContain(key(prefix, folded));
+        (result ? maybeTaken : definitelyFree).increment();
+        return result;
+    }
+
+    /**
+     * Folds a value to a form at least as coarse as the accent and case insensitive
+     * collation of the user table.
+     * 
+     * @param value the username or email
+     * @return the folded value
+     */
+    private static String fold(String value) {
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String[] letterFold : LETTER_FOLDS) {
+            folded = folded.replace(letterFold[0], letterFold[1]);
+        }
+        return folded;
+    }
+
+    private static boolean isAscii(String value) {
+        return value.chars().allMatch(c -> c < 0x80);
+    }
+
+    private static String key(String prefix, String folded) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(folded.getBytes(StandardCharsets.UTF_8));
+            return prefix + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
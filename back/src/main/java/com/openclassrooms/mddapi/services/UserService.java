@@ -5,6 +5,13 @@ import com.openclassrooms.mddapi.models.*;
 import com.openclassrooms.mddapi.repository.*;
 import lombok.RequiredArgsConstructor;
 
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,7 +28,7 @@ import org.springframework.web.server.ResponseStatusException;
  * Key responsibilities:
  * - Retrieve authenticated user information
  * - Update user profile (username, email, password)
- * - Validate email uniqueness during updates
+ * - Validate username and email uniqueness during updates
  * - Extract authenticated user from security context
  * - Map user entities to response DTOs
  * 
@@ -37,6 +44,12 @@ public class UserService {
 
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
+  private final UserIdentifierFilter userIdentifierFilter;
+  private final CacheInvalidationBus cacheInvalidationBus;
+  private final BatchLookup batchLookup;
+
+  @Value("${admin.user-ids:}")
+  private Set<Long> adminUserIds;
 
   /**
    * Retrieves the profile information of the currently authenticated user.
@@ -52,45 +65,113 @@ public class UserService {
       return mapToUserResponseDTO(user);
   }
 
+  /**
+   * Retrieves the public information of several users.
+   * 
+   * All users are read in a single query, projecting only their ID and username.
+   * The results follow the order of the requested IDs.
+   * 
+   * @param ids the IDs of the users to retrieve
+   * @return one BatchItemDTO per requested ID, with found set to false for missing users
+   * @throws ResponseStatusException with 400 status if too many IDs are requested
+   */
+  public List<BatchItemDTO<UserSummaryDTO>> getUsersByIds(List<Long> ids) {
+    return batchLookup.resolve(ids, distinctIds -> userRepository.findSummariesByIdIn(distinctIds).stream()
+            .collect(Collectors.toMap(UserSummaryDTO::getId, Function.identity())));
+  }
+
   /**
    * Updates the profile information of the currently authenticated user.
    * 
    * This method allows users to update their username, email, and/or password.
-   * Only non-null and non-blank values are processed. Email updates are validated
-   * to ensure uniqueness. Passwords are encrypted using BCrypt before storage.
+   * Only non-null and non-blank values are processed. Username and email updates are
+   * validated to ensure uniqueness, going to the database only when the
+   * UserIdentifierFilter reports that the new value may be taken. Passwords are
+   * encrypted using BCrypt before storage. A username change evicts the cached
+   * post details and feed pages, which show the author name.
    * 
    * @param dto the update request containing new username, email, and/or password
    * @return UserResponseDTO containing the updated user profile information
-   * @throws ResponseStatusException with 409 status if email is already in use
+   * @throws ResponseStatusException with 409 status if username or email is already in use
    * @throws ResponseStatusException with 401 status if user is not found
    */
   public UserResponseDTO updateCurrentUser(UserUpdateRequestDTO dto) {
     User user = getAuthenticatedUser();
+    String newUsername = null;
+    String newEmail = null;
+
+    if (dto.getUsername() != null && !dto.getUsername().isBlank() &&
+        !dto.getUsername().equals(user.getUsername())) {
 
-    if (dto.getUsername() != null && !dto.getUsername().isBlank()) {
-        user.setUsername(dto.getUsername());
+        if (userIdentifierFilter.mightHaveUsername(dto.getUsername()) &&
+            userRepository.existsByUsername(dto.getUsername())) {
+            throw new ResponseStatusException(
+                HttpStatus.CONFLICT,
+                "The username is already used."
+            );
+        }
+        newUsername = dto.getUsername();
+        user.setUsername(newUsername);
     }
 
     if (dto.getEmail() != null && !dto.getEmail().isBlank() &&
         !dto.getEmail().equals(user.getEmail())) {
 
-        if (userRepository.existsByEmail(dto.getEmail())) {
+        if (userIdentifierFilter.mightHaveEmail(dto.getEmail()) &&
+            userRepository.existsByEmail(dto.getEmail())) {
             throw new ResponseStatusException(
                 HttpStatus.CONFLICT,
                 "The email is already used."
             );
         }
-        user.setEmail(dto.getEmail());
+        newEmail = dto.getEmail();
+        user.setEmail(newEmail);
     }
 
     if (dto.getPassword() != null && !dto.getPassword().isBlank()) {
         user.setPassword(passwordEncoder.encode(dto.getPassword()));
     }
 
-    User updatedUser = userRepository.save(user);
+    User updatedUser;
+    try {
+        updatedUser = userRepository.save(user);
+    } catch (DataIntegrityViolationException e) {
+        throw new ResponseStatusException(
+            HttpStatus.CONFLICT,
+            "The username or email is already used."
+        );
+    }
+    userIdentifierFilter.add(newUsername, newEmail);
+    if (newUsername != null) {
+        // The author name is part of the cached post detail responses and feed pages.
+        cacheInvalidationBus.publish(PostDetailCache.NAME, InvalidatableCache.ALL_KEYS);
+        cacheInvalidationBus.publish(FeedPageCache.NAME, InvalidatableCache.ALL_KEYS);
+    }
     return mapToUserResponseDTO(updatedUser);
   }
 
+  /**
+   * Tells whether a user exists.
+   * 
+   * @param userId the ID of the user
+   * @return true if the user exists
+   */
+  boolean existsById(Long userId) {
+    return userRepository.existsById(userId);
+  }
+
+  /**
+   * Retrieves the ID of the authenticated user from the Spring Security context.
+   * 
+   * Unlike getAuthenticatedUser, this method does not query the database, so it
+   * suits the read paths that only need the ID to scope their queries.
+   * 
+   * @return the ID of the authenticated user
+   */
+  Long getAuthenticatedUserId() {
+    return Long.valueOf(SecurityContextHolder.getContext().getAuthentication().getName());
+  }
+
   /**
    * Retrieves the authenticated user entity from the database.
    * 
@@ -102,16 +183,32 @@ public class UserService {
    * @throws ResponseStatusException with 401 status if user is not found
    */
   User getAuthenticatedUser() {
-    String userIdStr = SecurityContextHolder.getContext().getAuthentication().getName();
-    Long userId = Long.valueOf(userIdStr);
-
-    return userRepository.findById(userId)
+    return userRepository.findById(getAuthenticatedUserId())
             .orElseThrow(() -> new ResponseStatusException(
                 HttpStatus.UNAUTHORIZED,
                 "User not found"
             ));
   }
 
+  /**
+   * Ensures the authenticated user is an administrator.
+   * 
+   * Administrators are the users whose ID is listed in the "admin.user-ids"
+   * property. Unlike usernames, IDs are never reassigned, so registering or
+   * renaming to an administrator's name grants nothing. This check guards the
+   * maintenance endpoints of the admin controller.
+   * 
+   * @throws ResponseStatusException with 403 status if the user is not an administrator
+   */
+  public void requireAdmin() {
+    if (!adminUserIds.contains(getAuthenticatedUserId())) {
+        throw new ResponseStatusException(
+            HttpStatus.FORBIDDEN,
+            "Administrator access required"
+        );
+    }
+  }
+
   /**
    * Maps a User entity to a UserResponseDTO.
    * 
@@ -58,20 +58,126 @@ WHERE NOT EXISTS (
     SELECT 1 FROM user_topic WHERE user_id = 2 AND topic_id = 6
 );
 
--- Posts
-INSERT INTO post (id, title, content, user_id, topic_id, created_at)
-VALUES
-(1, 'Getting Started with Spring Boot 3', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 1, 6, DATE_SUB(NOW(), INTERVAL 30 DAY)),
-(2, 'Angular 17 New Features', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 2, 2, DATE_SUB(NOW(), INTERVAL 25 DAY)),
-(3, 'Java 21 Virtual Threads', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 1, 3, DATE_SUB(NOW(), INTERVAL 20 DAY)),
-(4, 'React Hooks Best Practices', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 2, 4, DATE_SUB(NOW(), INTERVAL 15 DAY)),
-(5, 'Maven vs Gradle in 2024', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 1, 7, DATE_SUB(NOW(), INTERVAL 12 DAY)),
-(6, 'Vue 3 Composition API Guide', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 1, 5, DATE_SUB(NOW(), INTERVAL 8 DAY)),
-(7, 'Linux Command Line Tips', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 2, 10, DATE_SUB(NOW(), INTERVAL 5 DAY)),
-(8, 'Kotlin Coroutines Explained', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 1, 9, DATE_SUB(NOW(), INTERVAL 3 DAY)),
-(9, 'Tech Trends 2025', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 2, 1, DATE_SUB(NOW(), INTERVAL 1 DAY)),
-(10, 'Spring Security with JWT', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.', 1, 6, NOW())
-ON DUPLICATE KEY UPDATE id=id;
+-- Posts (the body of each post is stored in post_body, the post keeps an excerpt)
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 1, 'Getting Started with Spring Boot 3', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 1, 6, DATE_SUB(NOW(), INTERVAL 30 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 1
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 1, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 1
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 2, 'Angular 17 New Features', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 2, 2, DATE_SUB(NOW(), INTERVAL 25 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 2
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 2, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 2
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 3, 'Java 21 Virtual Threads', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 1, 3, DATE_SUB(NOW(), INTERVAL 20 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 3
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 3, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 3
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 4, 'React Hooks Best Practices', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 2, 4, DATE_SUB(NOW(), INTERVAL 15 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 4
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 4, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 4
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 5, 'Maven vs Gradle in 2024', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 1, 7, DATE_SUB(NOW(), INTERVAL 12 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 5
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 5, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 5
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 6, 'Vue 3 Composition API Guide', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 1, 5, DATE_SUB(NOW(), INTERVAL 8 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 6
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 6, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 6
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 7, 'Linux Command Line Tips', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 2, 10, DATE_SUB(NOW(), INTERVAL 5 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 7
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 7, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 7
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 8, 'Kotlin Coroutines Explained', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 1, 9, DATE_SUB(NOW(), INTERVAL 3 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 8
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 8, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 8
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 9, 'Tech Trends 2025', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 2, 1, DATE_SUB(NOW(), INTERVAL 1 DAY)
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 9
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 9, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 9
+);
+
+INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at)
+SELECT 10, 'Spring Security with JWT', 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since...', 1, 6, NOW()
+WHERE NOT EXISTS (
+    SELECT 1 FROM post WHERE id = 10
+);
+
+INSERT INTO post_body (post_id, content)
+SELECT 10, 'Content: lorem ipsum is simply dummy text of the printing and typesetting industry. Lorem Ipsum has been the industry''s standard dummy text ever since the 1500s, when an unknown printer took a galley of type and scrambled it to make a type specimen book.'
+WHERE NOT EXISTS (
+    SELECT 1 FROM post_body WHERE post_id = 10
+);
 
 -- Comments
 INSERT INTO comment (id, content, post_id, user_id, created_at)
@@ -89,3 +195,8 @@ VALUES
 (11, 'Merci d''avoir pris le temps d''écrire cet article.', 9, 1, NOW()),
 (12, 'Super utile, je mets en favoris.', 10, 2, NOW())
 ON DUPLICATE KEY UPDATE id=id;
+
+-- Comment counts backing the "top" feed sort mode
+UPDATE post p
+SET comment_count = (SELECT COUNT(*) FROM comment c WHERE c.post_id = p.id)
+WHERE p.comment_count = 0;
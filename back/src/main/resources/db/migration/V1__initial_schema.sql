@@ -0,0 +1,156 @@
+-- Initial schema of the MDD API, matching the JPA entities.
+-- Tables are created only if missing, so that a database created by
+-- "spring.jpa.hibernate.ddl-auto=update" can be migrated as is.
+
+CREATE TABLE IF NOT EXISTS user (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username),
+    CONSTRAINT uk_user_email UNIQUE (email)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS topic (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    description TEXT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_topic_title UNIQUE (title)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS user_topic (
+    user_id BIGINT NOT NULL,
+    topic_id BIGINT NOT NULL,
+    CONSTRAINT uk_user_topic UNIQUE (user_id, topic_id),
+    CONSTRAINT fk_user_topic_user FOREIGN KEY (user_id) REFERENCES user (id),
+    CONSTRAINT fk_user_topic_topic FOREIGN KEY (topic_id) REFERENCES topic (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS post (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    excerpt VARCHAR(153) NOT NULL DEFAULT '',
+    user_id BIGINT NOT NULL,
+    topic_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    comment_count INT NOT NULL DEFAULT 0,
+    hot_score DOUBLE NOT NULL DEFAULT 0,
+    discussion_score DOUBLE NOT NULL DEFAULT 0,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    INDEX idx_post_topic_created (topic_id, created_at),
+    INDEX idx_post_topic_hot (topic_id, hot_score),
+    INDEX idx_post_topic_comments (topic_id, comment_count),
+    INDEX idx_post_topic_discussion (topic_id, discussion_score),
+    INDEX idx_post_topic_id (topic_id, id),
+    INDEX idx_post_user_id (user_id, id),
+    CONSTRAINT fk_post_user FOREIGN KEY (user_id) REFERENCES user (id),
+    CONSTRAINT fk_post_topic FOREIGN KEY (topic_id) REFERENCES topic (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS post_body (
+    post_id BIGINT NOT NULL,
+    content MEDIUMBLOB NOT NULL,
+    PRIMARY KEY (post_id),
+    CONSTRAINT fk_post_body_post FOREIGN KEY (post_id) REFERENCES post (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS comment (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    content TEXT NOT NULL,
+    post_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_comment_post FOREIGN KEY (post_id) REFERENCES post (id),
+    CONSTRAINT fk_comment_user FOREIGN KEY (user_id) REFERENCES user (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS post_archive (
+    id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    excerpt VARCHAR(153) NOT NULL,
+    content MEDIUMBLOB NOT NULL,
+    user_id BIGINT NOT NULL,
+    topic_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    comment_count INT NOT NULL,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_post_archive_user FOREIGN KEY (user_id) REFERENCES user (id),
+    CONSTRAINT fk_post_archive_topic FOREIGN KEY (topic_id) REFERENCES topic (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS comment_archive (
+    id BIGINT NOT NULL,
+    content TEXT NOT NULL,
+    post_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_comment_archive_post_created (post_id, created_at),
+    CONSTRAINT fk_comment_archive_user FOREIGN KEY (user_id) REFERENCES user (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    event_type VARCHAR(64) NOT NULL,
+    aggregate_type VARCHAR(64) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    locked_by VARCHAR(128),
+    locked_until DATETIME(6),
+    processed_at DATETIME(6),
+    failed_at DATETIME(6),
+    attempts INT NOT NULL,
+    last_error VARCHAR(1000),
+    PRIMARY KEY (id),
+    INDEX idx_outbox_event_pending (processed_at, id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS cache_invalidation (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    cache_name VARCHAR(64) NOT NULL,
+    cache_key VARCHAR(255) NOT NULL,
+    origin_node VARCHAR(128) NOT NULL,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (id),
+    INDEX idx_cache_invalidation_created_at (created_at)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS idempotency_record (
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(128) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response_status INT,
+    response_body MEDIUMBLOB,
+    locked_by VARCHAR(128),
+    locked_until DATETIME(6),
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key),
+    INDEX idx_idempotency_record_expires (expires_at)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS topic_read_state (
+    user_id BIGINT NOT NULL,
+    topic_id BIGINT NOT NULL,
+    last_read_post_id BIGINT NOT NULL,
+    read_post_ids MEDIUMBLOB,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id, topic_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS scheduled_job_run (
+    job_name VARCHAR(64) NOT NULL,
+    last_run_at DATETIME(6) NOT NULL,
+    last_run_by VARCHAR(128),
+    PRIMARY KEY (job_name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,78 @@
+-- Brings a database created by an earlier version, or by
+-- "spring.jpa.hibernate.ddl-auto=update", to the schema of V1.
+-- On such a database V1 only creates the missing tables: the columns, defaults,
+-- indexes and constraints added to existing tables are added here. Every change
+-- is skipped when already present, so this also runs on a database created by V1.
+
+DELIMITER //
+
+CREATE PROCEDURE mdd_add_column(IN p_table VARCHAR(64), IN p_column VARCHAR(64), IN p_definition VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND column_name = p_column) THEN
+        SET @ddl = CONCAT('ALTER TABLE `', p_table, '` ADD COLUMN `', p_column, '` ', p_definition);
+        PREPARE statement FROM @ddl;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+END //
+
+CREATE PROCEDURE mdd_add_index(IN p_table VARCHAR(64), IN p_index VARCHAR(64), IN p_definition VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND index_name = p_index) THEN
+        SET @ddl = CONCAT('ALTER TABLE `', p_table, '` ADD ', p_definition);
+        PREPARE statement FROM @ddl;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+END //
+
+DELIMITER ;
+
+-- Post listing, ranking and view count columns
+CALL mdd_add_column('post', 'excerpt', 'VARCHAR(153) NOT NULL DEFAULT ''''');
+CALL mdd_add_column('post', 'comment_count', 'INT NOT NULL DEFAULT 0');
+CALL mdd_add_column('post', 'hot_score', 'DOUBLE NOT NULL DEFAULT 0');
+CALL mdd_add_column('post', 'discussion_score', 'DOUBLE NOT NULL DEFAULT 0');
+CALL mdd_add_column('post', 'view_count', 'BIGINT NOT NULL DEFAULT 0');
+CALL mdd_add_column('post_archive', 'view_count', 'BIGINT NOT NULL DEFAULT 0');
+CALL mdd_add_column('outbox_event', 'failed_at', 'DATETIME(6)');
+
+-- Columns added by ddl-auto=update have no default
+ALTER TABLE post ALTER COLUMN excerpt SET DEFAULT '';
+ALTER TABLE post ALTER COLUMN comment_count SET DEFAULT 0;
+ALTER TABLE post ALTER COLUMN hot_score SET DEFAULT 0;
+ALTER TABLE post ALTER COLUMN discussion_score SET DEFAULT 0;
+ALTER TABLE post ALTER COLUMN view_count SET DEFAULT 0;
+ALTER TABLE post_archive ALTER COLUMN view_count SET DEFAULT 0;
+ALTER TABLE cache_invalidation MODIFY created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+-- Comment counts of the posts created before the column existed
+UPDATE post p SET comment_count = (SELECT COUNT(*) FROM comment c WHERE c.post_id = p.id)
+WHERE p.comment_count = 0;
+
+-- Feed, listing and archival indexes
+CALL mdd_add_index('post', 'idx_post_topic_created', 'INDEX idx_post_topic_created (topic_id, created_at)');
+CALL mdd_add_index('post', 'idx_post_topic_hot', 'INDEX idx_post_topic_hot (topic_id, hot_score)');
+CALL mdd_add_index('post', 'idx_post_topic_comments', 'INDEX idx_post_topic_comments (topic_id, comment_count)');
+CALL mdd_add_index('post', 'idx_post_topic_discussion', 'INDEX idx_post_topic_discussion (topic_id, discussion_score)');
+CALL mdd_add_index('post', 'idx_post_topic_id', 'INDEX idx_post_topic_id (topic_id, id)');
+CALL mdd_add_index('post', 'idx_post_user_id', 'INDEX idx_post_user_id (user_id, id)');
+CALL mdd_add_index('outbox_event', 'idx_outbox_event_pending', 'INDEX idx_outbox_event_pending (processed_at, id)');
+CALL mdd_add_index('cache_invalidation', 'idx_cache_invalidation_created_at',
+                   'INDEX idx_cache_invalidation_created_at (created_at)');
+CALL mdd_add_index('idempotency_record', 'idx_idempotency_record_expires',
+                   'INDEX idx_idempotency_record_expires (expires_at)');
+CALL mdd_add_index('comment_archive', 'idx_comment_archive_post_created',
+                   'INDEX idx_comment_archive_post_created (post_id, created_at)');
+
+-- Subscriptions: remove the duplicate rows before adding the unique constraint
+CREATE TABLE user_topic_distinct AS SELECT DISTINCT user_id, topic_id FROM user_topic;
+DELETE FROM user_topic;
+INSERT INTO user_topic (user_id, topic_id) SELECT user_id, topic_id FROM user_topic_distinct;
+DROP TABLE user_topic_distinct;
+CALL mdd_add_index('user_topic', 'uk_user_topic', 'CONSTRAINT uk_user_topic UNIQUE (user_id, topic_id)');
+
+DROP PROCEDURE mdd_add_column;
+DROP PROCEDURE mdd_add_index;
@@ -0,0 +1,12 @@
+-- Databases created before the post bodies moved to post_body hold them in a
+-- NOT NULL post.content column. Make it nullable so new posts can be written
+-- without it; PostBodyMigration then moves the existing bodies in batches.
+-- Nodes of the previous version keep writing the column meanwhile.
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns
+                      WHERE table_schema = DATABASE() AND table_name = 'post' AND column_name = 'content'),
+              'ALTER TABLE post MODIFY content TEXT NULL',
+              'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
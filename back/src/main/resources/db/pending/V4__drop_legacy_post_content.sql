@@ -0,0 +1,23 @@
+-- Drops the legacy post.content column once PostBodyMigration has moved every body.
+-- Not applied yet: this migration moves to db/migration in the release after the
+-- one shipping V3, when no node writes the column any more. It refuses to run
+-- while a body is still stored in the column.
+
+DELIMITER //
+
+CREATE PROCEDURE mdd_drop_legacy_post_content()
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'post' AND column_name = 'content') THEN
+        IF EXISTS (SELECT 1 FROM post WHERE content IS NOT NULL) THEN
+            SIGNAL SQLSTATE '45000'
+                SET MESSAGE_TEXT = 'post.content still holds bodies, wait for PostBodyMigration to move them';
+        END IF;
+        ALTER TABLE post DROP COLUMN content;
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL mdd_drop_legacy_post_content();
+DROP PROCEDURE mdd_drop_legacy_post_content;
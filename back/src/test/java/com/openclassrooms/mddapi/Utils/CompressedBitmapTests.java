@@ -0,0 +1,182 @@
+package com.openclassrooms.mddapi.Utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks CompressedBitmap against a TreeSet holding the same values, across
+ * several containers and around the switch between array and bitmap containers.
+ */
+class CompressedBitmapTests {
+
+	private static final int ARRAY_MAX_SIZE = 4096;
+	private static final long CONTAINER = 1L << 16;
+
+	@Test
+	void randomOperationsMatchTreeSet() {
+		Random random = new Random(42);
+		CompressedBitmap bitmap = new CompressedBitmap();
+		TreeSet<Long> expected = new TreeSet<>();
+
+		for (int round = 0; round < 20; round++) {
+			// Sparse values over a few containers, plus a dense run in one of them.
+			for (int i = 0; i < 2000; i++) {
+				long value = randomValue(random);
+				assertEquals(expected.add(value), bitmap.add(value));
+			}
+			long denseStart = random.nextInt(4) * CONTAINER + random.nextInt(1000);
+			for (long value = denseStart; value < denseStart + 6000; value++) {
+				assertEquals(expected.add(value), bitmap.add(value));
+			}
+			assertMatches(expected, bitmap, random);
+
+			long bound = round % 5 == 4 ? randomValue(random) : randomValue(random) / 4;
+			bitmap.removeUpTo(bound);
+			expected.headSet(bound, true).clear();
+			assertMatches(expected, bitmap, random);
+		}
+	}
+
+	@Test
+	void containerSwitchesBetweenArrayAndBitmap() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		TreeSet<Long> expected = new TreeSet<>();
+		for (int i = 0; i < ARRAY_MAX_SIZE; i++) {
+			long value = CONTAINER + 2L * i;
+			bitmap.add(value);
+			expected.add(value);
+		}
+		assertEquals(0, containerType(bitmap));
+		assertMatches(expected, bitmap, new Random(1));
+
+		bitmap.add(CONTAINER + 1);
+		expected.add(CONTAINER + 1);
+		assertEquals(1, containerType(bitmap));
+		assertMatches(expected, bitmap, new Random(2));
+
+		// Back to 4096 values: the container becomes an array again.
+		bitmap.removeUpTo(CONTAINER);
+		expected.headSet(CONTAINER, true).clear();
+		assertEquals(ARRAY_MAX_SIZE, bitmap.cardinality());
+		assertEquals(0, containerType(bitmap));
+		assertMatches(expected, bitmap, new Random(3));
+
+		bitmap.removeUpTo(2 * CONTAINER - 1);
+		assertTrue(bitmap.isEmpty());
+		assertEquals(-1, bitmap.last());
+		assertEquals(-1, bitmap.nextValue(0));
+	}
+
+	@Test
+	void bitmapContainerHandlesWordBoundaries() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		TreeSet<Long> expected = new TreeSet<>();
+		for (long value = 0; value < CONTAINER; value += 13) {
+			bitmap.add(value);
+			expected.add(value);
+		}
+		for (long value : new long[] { 63, 64, 127, 128, CONTAINER - 64, CONTAINER - 1 }) {
+			bitmap.add(value);
+			expected.add(value);
+		}
+		assertEquals(1, containerType(bitmap));
+
+		for (long bound : new long[] { 62, 63, 64, 127, 4095, CONTAINER - 65, CONTAINER - 2 }) {
+			bitmap.removeUpTo(bound);
+			expected.headSet(bound, true).clear();
+			assertMatches(expected, bitmap, new Random(bound));
+		}
+	}
+
+	@Test
+	void copyIsIndependent() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (long value = 0; value < 5000; value++) {
+			bitmap.add(value * 3);
+		}
+		CompressedBitmap copy = bitmap.copy();
+		copy.add(1);
+		copy.removeUpTo(6000);
+
+		assertFalse(bitmap.contains(1));
+		assertTrue(bitmap.contains(6000));
+		assertEquals(5000, bitmap.cardinality());
+		assertEquals(5000 - 2001, copy.cardinality());
+	}
+
+	@Test
+	void fromBytesHandlesEmptyAndInvalidData() {
+		assertTrue(CompressedBitmap.fromBytes(null).isEmpty());
+		assertTrue(CompressedBitmap.fromBytes(new byte[0]).isEmpty());
+		assertTrue(CompressedBitmap.fromBytes(new CompressedBitmap().toBytes()).isEmpty());
+
+		CompressedBitmap bitmap = new CompressedBitmap();
+		bitmap.add(CONTAINER * 3 + 7);
+		byte[] bytes = bitmap.toBytes();
+		assertThrows(IllegalArgumentException.class,
+				() -> CompressedBitmap.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+		bytes[12] = 5;
+		assertThrows(IllegalArgumentException.class, () -> CompressedBitmap.fromBytes(bytes));
+	}
+
+	@Test
+	void negativeValuesAreRejectedOrIgnored() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		bitmap.add(3);
+		assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+		assertFalse(bitmap.contains(-1));
+		assertEquals(0, bitmap.rank(-1));
+		assertEquals(3, bitmap.nextValue(-10));
+		bitmap.removeUpTo(-1);
+		assertEquals(1, bitmap.cardinality());
+	}
+
+	private static long randomValue(Random random) {
+		return random.nextInt(4) * CONTAINER + random.nextInt((int) CONTAINER);
+	}
+
+	private static void assertMatches(TreeSet<Long> expected, CompressedBitmap bitmap, Random random) {
+		assertEquals(expected.size(), bitmap.cardinality());
+		assertEquals(expected.isEmpty(), bitmap.isEmpty());
+		assertEquals(expected.isEmpty() ? -1 : expected.last(), bitmap.last());
+
+		CompressedBitmap restored = CompressedBitmap.fromBytes(bitmap.toBytes());
+		assertArrayEquals(bitmap.toBytes(), restored.toBytes());
+		assertEquals(expected.size(), restored.cardinality());
+
+		long[] probes = new long[200];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = randomValue(random);
+		}
+		long[] edges = { 0, 1, CONTAINER - 1, CONTAINER, 2 * CONTAINER - 1, 2 * CONTAINER, 4 * CONTAINER };
+		for (long[] values : new long[][] { probes, edges }) {
+			for (long value : values) {
+				Long ceiling = expected.ceiling(value);
+				long rank = expected.headSet(value, true).size();
+				assertEquals(expected.contains(value), bitmap.contains(value), "contains " + value);
+				assertEquals(rank, bitmap.rank(value), "rank " + value);
+				assertEquals(expected.size() - rank, bitmap.countAbove(value), "countAbove " + value);
+				assertEquals(ceiling == null ? -1 : ceiling, bitmap.nextValue(value), "nextValue " + value);
+				assertEquals(expected.contains(value), restored.contains(value), "restored contains " + value);
+				assertEquals(rank, restored.rank(value), "restored rank " + value);
+			}
+		}
+	}
+
+	/**
+	 * Reads the type of the first container from the serialized bitmap: after the
+	 * container count (4 bytes) and key (8 bytes), 0 is an array and 1 a bitmap.
+	 */
+	private static int containerType(CompressedBitmap bitmap) {
+		return bitmap.toBytes()[12];
+	}
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.mddapi.Utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the burst, the refill and the per-key isolation of KeyedRateLimiter.
+ */
+class KeyedRateLimiterTests {
+
+	@Test
+	void refusesBeyondTheBurstUntilATokenRefills() throws InterruptedException {
+		KeyedRateLimiter limiter = new KeyedRateLimiter(20, 3, 100);
+
+		assertTrue(limiter.tryAcquire("a"));
+		assertTrue(limiter.tryAcquire("a"));
+		assertTrue(limiter.tryAcquire("a"));
+		assertFalse(limiter.tryAcquire("a"));
+
+		// One token every 50 ms.
+		Thread.sleep(120);
+		assertTrue(limiter.tryAcquire("a"));
+	}
+
+	@Test
+	void keysHaveTheirOwnBucket() {
+		KeyedRateLimiter limiter = new KeyedRateLimiter(0.001, 1, 100);
+
+		assertTrue(limiter.tryAcquire("a"));
+		assertFalse(limiter.tryAcquire("a"));
+		assertTrue(limiter.tryAcquire("b"));
+	}
+
+	@Test
+	void dropsIdleBucketsOnceFull() {
+		KeyedRateLimiter limiter = new KeyedRateLimiter(0.001, 1, 2);
+
+		assertTrue(limiter.tryAcquire("a"));
+		assertTrue(limiter.tryAcquire("b"));
+		// No bucket has refilled, so all of them are dropped to track a new key.
+		assertTrue(limiter.tryAcquire("c"));
+		assertTrue(limiter.tryAcquire("a"));
+	}
+
+	@Test
+	void retryAfterCoversTheRefillOfOneToken() {
+		assertEquals(1, new KeyedRateLimiter(2, 1, 10).retryAfterSeconds());
+		assertEquals(4, new KeyedRateLimiter(0.25, 1, 10).retryAfterSeconds());
+	}
+}
@@ -0,0 +1,70 @@
+package com.openclassrooms.mddapi.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+
+/**
+ * Sends availability checks for two clients through the same proxy address and
+ * checks that each client forwarded by the proxy is rate limited on its own.
+ */
+class AvailabilityRateLimitTests {
+
+	private static final String DB_URL =
+			"jdbc:h2:mem:availability-rate-limit;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+
+	private static ConfigurableApplicationContext context;
+	private static HttpClient client;
+	private static int port;
+
+	@BeforeAll
+	static void startNode() {
+		System.setProperty("JWT_SECRET", "availability-test-secret-of-32-chars");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		context = new SpringApplicationBuilder(MddApiApplication.class).run(
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=never",
+				"--server.port=0",
+				"--server.forward-headers-strategy=native",
+				"--auth.availability.permits-per-second=0.001",
+				"--auth.availability.burst=1");
+		port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@AfterAll
+	static void stopNode() {
+		context.close();
+	}
+
+	@Test
+	void forwardedClientsHaveTheirOwnBucket() throws Exception {
+		assertEquals(200, checkAvailability("203.0.113.1"));
+		assertEquals(429, checkAvailability("203.0.113.1"));
+		assertEquals(200, checkAvailability("203.0.113.2"));
+	}
+
+	private static int checkAvailability(String clientAddress) throws Exception {
+		return client.send(HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + port + "/api/auth/availability?username=alice"))
+				.header("X-Forwarded-For", clientAddress)
+				.GET()
+				.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
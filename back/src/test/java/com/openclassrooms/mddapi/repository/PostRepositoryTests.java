@@ -0,0 +1,106 @@
+package com.openclassrooms.mddapi.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+import com.openclassrooms.mddapi.models.Post;
+
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Counts the statements run to read a feed page, which must not read the
+ * post_body table once per post.
+ * 
+ * The statements are counted per thread by a datasource-proxy, so the ones run
+ * meanwhile by the scheduled jobs of the application are left out.
+ */
+class PostRepositoryTests {
+
+	private static final String DB_URL =
+			"jdbc:h2:mem:post-repository;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+
+	private static ConfigurableApplicationContext context;
+
+	@BeforeAll
+	static void startNode() {
+		System.setProperty("JWT_SECRET", "post-repository-test-secret-of-32-chars");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		context = new SpringApplicationBuilder(MddApiApplication.class)
+				.initializers((ConfigurableApplicationContext ctx) ->
+						ctx.getBeanFactory().addBeanPostProcessor(countingDataSourceWrapper()))
+				.run(
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=never",
+				"--server.port=0");
+
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		jdbcTemplate.update("INSERT INTO user (id, username, password, email, created_at, updated_at) "
+				+ "VALUES (1, 'alice', 'password', 'alice@mail.com', NOW(), NOW())");
+		jdbcTemplate.update("INSERT INTO topic (id, title, description) VALUES (1, 'Java', 'Java')");
+		for (long id = 1; id <= 5; id++) {
+			jdbcTemplate.update("INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at) "
+					+ "VALUES (?, 'Post', 'Body', 1, 1, NOW())", id);
+			jdbcTemplate.update("INSERT INTO post_body (post_id, content) VALUES (?, ?)", id, "Body".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@AfterAll
+	static void stopNode() {
+		context.close();
+	}
+
+	@Test
+	void feedPageReadsPostsAndAuthorsWithoutBodies() {
+		PostRepository postRepository = context.getBean(PostRepository.class);
+		QueryCountHolder.clear();
+
+		Page<Post> page = postRepository.findByTopicIdIn(List.of(1L),
+				PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "id")));
+		page.forEach(post -> post.getUser().getUsername());
+
+		assertEquals(3, page.getNumberOfElements());
+		// The page query, with the authors joined, and the count query.
+		assertEquals(2, QueryCountHolder.getGrandTotal().getTotal());
+	}
+
+	/**
+	 * Wraps the DataSource bean in a proxy counting the statements of each thread.
+	 */
+	private static BeanPostProcessor countingDataSourceWrapper() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create(dataSource)
+							.name(beanName)
+							.countQuery()
+							.build();
+				}
+				return bean;
+			}
+		};
+	}
+}
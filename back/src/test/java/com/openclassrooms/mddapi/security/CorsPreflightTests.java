@@ -0,0 +1,77 @@
+package com.openclassrooms.mddapi.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+
+/**
+ * Sends a CORS preflight request without a token to an authenticated endpoint and
+ * checks that the security filter chain answers it instead of refusing it.
+ */
+class CorsPreflightTests {
+
+	private static final String DB_URL =
+			"jdbc:h2:mem:cors-preflight;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+
+	private static ConfigurableApplicationContext context;
+	private static HttpClient client;
+	private static int port;
+
+	@BeforeAll
+	static void startNode() {
+		System.setProperty("JWT_SECRET", "cors-preflight-test-secret-of-32-chars");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		context = new SpringApplicationBuilder(MddApiApplication.class).run(
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=never",
+				"--server.port=0");
+		port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@AfterAll
+	static void stopNode() {
+		context.close();
+	}
+
+	@Test
+	void preflightToAuthenticatedEndpointIsAnsweredWithoutToken() throws Exception {
+		HttpResponse<Void> response = client.send(HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + port + "/api/feed"))
+				.method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+				.header("Origin", "http://localhost:4200")
+				.header("Access-Control-Request-Method", "GET")
+				.build(), HttpResponse.BodyHandlers.discarding());
+
+		assertEquals(200, response.statusCode());
+		assertEquals("http://localhost:4200", response.headers().firstValue("Access-Control-Allow-Origin").orElse(null));
+		assertEquals("true", response.headers().firstValue("Access-Control-Allow-Credentials").orElse(null));
+	}
+
+	@Test
+	void requestWithoutTokenIsStillRefused() throws Exception {
+		HttpResponse<Void> response = client.send(HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + port + "/api/feed"))
+				.header("Origin", "http://localhost:4200")
+				.GET()
+				.build(), HttpResponse.BodyHandlers.discarding());
+
+		assertEquals(403, response.statusCode());
+	}
+}
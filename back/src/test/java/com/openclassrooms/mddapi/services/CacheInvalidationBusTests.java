@@ -0,0 +1,174 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+import com.openclassrooms.mddapi.dto.FeedPostDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs two application instances sharing one embedded database and checks that
+ * an invalidation published on one node evicts the matching entries on the other,
+ * including when it commits after an invalidation with a higher ID, and that
+ * skipping more IDs than can be tracked as gaps invalidates every cache.
+ */
+class CacheInvalidationBusTests {
+
+	private static final String DB_URL =
+			"jdbc:h2:mem:cache-bus;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+	private static final int MAX_GAPS = 5;
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startNodes() {
+		System.setProperty("JWT_SECRET", "cache-bus-test-secret-of-32-characters");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		nodeA = startNode("node-a");
+		nodeB = startNode("node-b");
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		nodeB.close();
+		nodeA.close();
+	}
+
+	@Test
+	void invalidationPublishedOnOneNodeEvictsOnTheOther() throws InterruptedException {
+		FeedPageCache cacheA = nodeA.getBean(FeedPageCache.class);
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<Page<FeedPostDTO>> loader = () -> {
+			loads.incrementAndGet();
+			return Page.empty();
+		};
+
+		cacheA.get(List.of(1L, 2L), "createdAt,desc", 0, 10, loader);
+		cacheA.get(List.of(2L, 1L), "createdAt,desc", 0, 10, loader);
+		assertEquals(1, loads.get());
+
+		nodeB.getBean(CacheInvalidationBus.class).publish(FeedPageCache.NAME, "3");
+		Thread.sleep(500);
+		cacheA.get(List.of(1L, 2L), "createdAt,desc", 0, 10, loader);
+		assertEquals(1, loads.get());
+
+		nodeB.getBean(CacheInvalidationBus.class).publish(FeedPageCache.NAME, "2");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (loads.get() == 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+			cacheA.get(List.of(1L, 2L), "createdAt,desc", 0, 10, loader);
+		}
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void invalidationCommittedBelowTheHighWaterMarkIsApplied() throws InterruptedException {
+		FeedPageCache cacheA = nodeA.getBean(FeedPageCache.class);
+		CacheInvalidationBus busB = nodeB.getBean(CacheInvalidationBus.class);
+		AtomicInteger loads7 = new AtomicInteger();
+		AtomicInteger loads8 = new AtomicInteger();
+		cacheA.get(List.of(7L), "createdAt,desc", 0, 10, () -> load(loads7));
+		cacheA.get(List.of(8L), "createdAt,desc", 0, 10, () -> load(loads8));
+
+		// The first invalidation gets the lower ID, but commits after the second one.
+		CountDownLatch inserted = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(nodeB.getBean(PlatformTransactionManager.class));
+		Thread publisher = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+			busB.publish(FeedPageCache.NAME, "7");
+			inserted.countDown();
+			try {
+				commit.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		publisher.start();
+		inserted.await(10, TimeUnit.SECONDS);
+		busB.publish(FeedPageCache.NAME, "8");
+
+		awaitReload(cacheA, 8L, loads8);
+		cacheA.get(List.of(7L), "createdAt,desc", 0, 10, () -> load(loads7));
+		assertEquals(1, loads7.get());
+
+		commit.countDown();
+		publisher.join();
+		awaitReload(cacheA, 7L, loads7);
+		assertEquals(2, loads7.get());
+	}
+
+	@Test
+	void gapOverflowInvalidatesEveryCache() throws InterruptedException {
+		FeedPageCache cacheA = nodeA.getBean(FeedPageCache.class);
+		AtomicInteger loads9 = new AtomicInteger();
+		cacheA.get(List.of(9L), "createdAt,desc", 0, 10, () -> load(loads9));
+
+		// A record of no registered cache, after more missing IDs than the nodes track.
+		JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+		long id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidation", Long.class)
+				+ MAX_GAPS + 10;
+		jdbcTemplate.update("INSERT INTO cache_invalidation (id, cache_name, cache_key, origin_node) "
+				+ "VALUES (?, 'unknown', 'key', 'node-c')", id);
+		jdbcTemplate.execute("ALTER TABLE cache_invalidation ALTER COLUMN id RESTART WITH " + (id + 1));
+
+		awaitReload(cacheA, 9L, loads9);
+		assertEquals(2, loads9.get());
+		assertTrue(nodeA.getBean(MeterRegistry.class).counter("cache.bus.gaps.dropped").count() > 0);
+
+		// Every cache is invalidated again once the dropped IDs have timed out.
+		long deadline = System.currentTimeMillis() + 20000;
+		while (loads9.get() == 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+			cacheA.get(List.of(9L), "createdAt,desc", 0, 10, () -> load(loads9));
+		}
+		assertEquals(3, loads9.get());
+	}
+
+	private static Page<FeedPostDTO> load(AtomicInteger loads) {
+		loads.incrementAndGet();
+		return Page.empty();
+	}
+
+	private static void awaitReload(FeedPageCache cache, Long topicId, AtomicInteger loads) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (loads.get() == 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+			cache.get(List.of(topicId), "createdAt,desc", 0, 10, () -> load(loads));
+		}
+	}
+
+	private static ConfigurableApplicationContext startNode(String nodeId) {
+		return new SpringApplicationBuilder(MddApiApplication.class).run(
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=never",
+				"--server.port=0",
+				"--app.node-id=" + nodeId,
+				"--cache.bus.poll-interval-ms=50",
+				"--cache.bus.gap-timeout-ms=10000",
+				"--cache.bus.max-gaps=" + MAX_GAPS);
+	}
+}
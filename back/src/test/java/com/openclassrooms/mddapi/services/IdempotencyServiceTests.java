@@ -0,0 +1,184 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+import com.openclassrooms.mddapi.services.IdempotencyService.IdempotentResponse;
+
+/**
+ * Runs two application instances sharing one embedded database and checks that
+ * a request sent several times with the same Idempotency-Key is executed once.
+ */
+class IdempotencyServiceTests {
+
+	private static final String DB_URL =
+			"jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startNodes() {
+		System.setProperty("JWT_SECRET", "idempotency-test-secret-of-32-characters");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		nodeA = startNode("node-a");
+		nodeB = startNode("node-b");
+		nodeA.getBean(JdbcTemplate.class).update("INSERT INTO user (id, username, password, email, created_at, updated_at) "
+				+ "VALUES (1, 'alice', 'password', 'alice@mail.com', NOW(), NOW())");
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		nodeB.close();
+		nodeA.close();
+	}
+
+	@Test
+	void concurrentDuplicatesOnBothNodesExecuteOnce() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		Supplier<Object> action = () -> {
+			int execution = executions.incrementAndGet();
+			sleep(100);
+			return Map.of("id", execution);
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<IdempotentResponse>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				IdempotencyService service = (i % 2 == 0 ? nodeA : nodeB).getBean(IdempotencyService.class);
+				futures.add(executor.submit(() -> asUser(() ->
+						service.execute("concurrent", "POST /post", Map.of("title", "a"), action))));
+			}
+
+			List<IdempotentResponse> responses = new ArrayList<>();
+			for (Future<IdempotentResponse> future : futures) {
+				responses.add(future.get());
+			}
+			assertEquals(1, executions.get());
+			assertEquals(1, responses.stream().filter(response -> !response.replayed()).count());
+			responses.forEach(response -> assertArrayEquals(responses.get(0).body(), response.body()));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void keyReusedForAnotherRequestIsRejected() {
+		IdempotencyService serviceA = nodeA.getBean(IdempotencyService.class);
+		IdempotencyService serviceB = nodeB.getBean(IdempotencyService.class);
+		asUser(() -> serviceA.execute("reused", "POST /post", Map.of("title", "a"), () -> Map.of("id", 1)));
+
+		ResponseStatusException local = assertThrows(ResponseStatusException.class, () -> asUser(() ->
+				serviceA.execute("reused", "POST /post", Map.of("title", "b"), () -> Map.of("id", 2))));
+		ResponseStatusException remote = assertThrows(ResponseStatusException.class, () -> asUser(() ->
+				serviceB.execute("reused", "POST /post", Map.of("title", "b"), () -> Map.of("id", 2))));
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, local.getStatusCode());
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, remote.getStatusCode());
+	}
+
+	@Test
+	void failedExecutionReleasesTheKey() {
+		IdempotencyService serviceA = nodeA.getBean(IdempotencyService.class);
+		IdempotencyService serviceB = nodeB.getBean(IdempotencyService.class);
+
+		assertThrows(IllegalStateException.class, () -> asUser(() ->
+				serviceA.execute("failed", "POST /post", Map.of("title", "a"), () -> {
+					throw new IllegalStateException("Database unavailable");
+				})));
+		assertEquals(0, nodeA.getBean(JdbcTemplate.class).queryForObject(
+				"SELECT COUNT(*) FROM idempotency_record WHERE idempotency_key = 'failed'", Integer.class));
+
+		IdempotentResponse retry = asUser(() ->
+				serviceB.execute("failed", "POST /post", Map.of("title", "a"), () -> Map.of("id", 3)));
+		assertFalse(retry.replayed());
+		assertTrue(asUser(() ->
+				serviceA.execute("failed", "POST /post", Map.of("title", "a"), () -> Map.of("id", 4))).replayed());
+	}
+
+	@Test
+	void executionWhoseLockWasTakenOverOnTheSameNodeIsUndone() throws Exception {
+		IdempotencyService serviceA = nodeA.getBean(IdempotencyService.class);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<IdempotentResponse> first = executor.submit(() -> asUser(() ->
+					serviceA.execute("taken-over", "POST /post", Map.of("title", "a"), () -> {
+						sleep(1500);
+						return Map.of("id", 5);
+					})));
+			sleep(800);
+			// Evicts the in-memory entry of the running execution, whose lock has expired.
+			asUser(() -> serviceA.execute("evicting", "POST /post", Map.of("title", "a"), () -> Map.of("id", 6)));
+
+			IdempotentResponse second = asUser(() ->
+					serviceA.execute("taken-over", "POST /post", Map.of("title", "a"), () -> Map.of("id", 7)));
+			assertFalse(second.replayed());
+
+			ExecutionException failure = assertThrows(ExecutionException.class, first::get);
+			assertEquals(HttpStatus.CONFLICT, ((ResponseStatusException) failure.getCause()).getStatusCode());
+			assertArrayEquals(second.body(), asUser(() ->
+					serviceA.execute("taken-over", "POST /post", Map.of("title", "a"), () -> Map.of("id", 8))).body());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static <T> T asUser(Supplier<T> call) {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("1", null, List.of()));
+		try {
+			return call.get();
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static ConfigurableApplicationContext startNode(String nodeId) {
+		return new SpringApplicationBuilder(MddApiApplication.class).run(
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=never",
+				"--server.port=0",
+				"--app.node-id=" + nodeId,
+				"--idempotency.max-entries=1",
+				"--idempotency.lock-timeout-ms=500",
+				"--idempotency.poll-interval-ms=20");
+	}
+}
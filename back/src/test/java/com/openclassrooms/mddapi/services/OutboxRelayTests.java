@@ -0,0 +1,158 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+import com.openclassrooms.mddapi.dto.CommentRequestDTO;
+import com.openclassrooms.mddapi.models.OutboxEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Checks that the relay marks a dispatched event processed only while it still
+ * holds the claim on it: once another node has claimed the event again, the
+ * outcome is left to that node. Also checks that adding a comment records its
+ * event, although no handler consumes it yet.
+ */
+class OutboxRelayTests {
+
+	private static final String DB_URL =
+			"jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+	private static final String HANDLED = "Handled";
+	private static final String RECLAIMED = "Reclaimed";
+
+	private static ConfigurableApplicationContext context;
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void startApplication() {
+		System.setProperty("JWT_SECRET", "outbox-relay-test-secret-of-32-characters");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		// Simulates a claim that expires during the dispatch and is taken by node-b.
+		OutboxEventHandler handler = new OutboxEventHandler() {
+			@Override
+			public boolean supports(String eventType) {
+				return HANDLED.equals(eventType) || RECLAIMED.equals(eventType);
+			}
+
+			@Override
+			public void handle(OutboxEvent event) {
+				if (RECLAIMED.equals(event.getEventType())) {
+					jdbcTemplate.update("UPDATE outbox_event SET locked_by = 'node-b' WHERE id = ?", event.getId());
+				}
+			}
+		};
+		context = new SpringApplicationBuilder(MddApiApplication.class)
+				.initializers((ConfigurableApplicationContext ctx) ->
+						ctx.getBeanFactory().registerSingleton("testOutboxEventHandler", handler))
+				.run(
+						"--spring.datasource.url=" + DB_URL,
+						"--spring.datasource.driver-class-name=org.h2.Driver",
+						"--spring.datasource.username=sa",
+						"--spring.datasource.password=",
+						"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+						"--spring.jpa.show-sql=false",
+						"--spring.sql.init.mode=never",
+						"--server.port=0",
+						"--app.node-id=node-a");
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+	}
+
+	@AfterAll
+	static void stopApplication() {
+		context.close();
+	}
+
+	@Test
+	void dispatchedEventIsMarkedProcessed() throws InterruptedException {
+		Long id = publish(HANDLED, 1L);
+
+		awaitProcessed(id);
+
+		Map<String, Object> event = event(id);
+		assertNotNull(event.get("processed_at"));
+		assertNull(event.get("locked_by"));
+	}
+
+	@Test
+	void outcomeIsDroppedOnceAnotherNodeClaimedTheEvent() throws InterruptedException {
+		Long id = publish(RECLAIMED, 2L);
+
+		awaitClaimLost();
+
+		Map<String, Object> event = event(id);
+		assertNull(event.get("processed_at"));
+		assertEquals("node-b", event.get("locked_by"));
+	}
+
+	@Test
+	void addingACommentRecordsOneEvent() {
+		jdbcTemplate.update("INSERT INTO user (id, username, password, email, created_at, updated_at) "
+				+ "VALUES (1, 'alice', 'password', 'alice@mail.com', NOW(), NOW())");
+		jdbcTemplate.update("INSERT INTO topic (id, title, description) VALUES (1, 'Java', 'Java')");
+		jdbcTemplate.update("INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at) "
+				+ "VALUES (1, 'Post', '', 1, 1, NOW())");
+		CommentRequestDTO comment = new CommentRequestDTO();
+		comment.setContent("Nice post");
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken("1", null, List.of()));
+		try {
+			context.getBean(PostService.class).addCommentToPost(1L, comment);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM outbox_event WHERE event_type = ? AND aggregate_id = 1",
+				Integer.class, OutboxEvent.COMMENT_ADDED));
+	}
+
+	private static Long publish(String eventType, Long aggregateId) {
+		OutboxService outboxService = context.getBean(OutboxService.class);
+		new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status ->
+				outboxService.publish(eventType, "Post", aggregateId, Map.of("postId", aggregateId)));
+		return jdbcTemplate.queryForObject(
+				"SELECT id FROM outbox_event WHERE event_type = ? AND aggregate_id = ?", Long.class, eventType, aggregateId);
+	}
+
+	private static Map<String, Object> event(Long id) {
+		return jdbcTemplate.queryForMap("SELECT processed_at, locked_by FROM outbox_event WHERE id = ?", id);
+	}
+
+	private static void awaitProcessed(Long id) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (event(id).get("processed_at") == null) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("The event was not dispatched");
+			}
+			Thread.sleep(20);
+		}
+	}
+
+	private static void awaitClaimLost() throws InterruptedException {
+		MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (meterRegistry.counter("outbox.events.claim-lost").count() < 1) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("The lost claim was not detected");
+			}
+			Thread.sleep(20);
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+
+/**
+ * Checks that PostViewCounter adds every recorded view exactly once: views
+ * recorded while a flush is running go to the next one, the views of a failed
+ * flush are put back, the views of an archived post are credited to
+ * post_archive, and views recorded from many threads while counters are flushed
+ * and dropped are neither lost nor counted twice.
+ */
+class PostViewCounterTests {
+
+	private static final String DB_URL = "jdbc:h2:mem:post-views;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;"
+			+ "MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+
+	private static ConfigurableApplicationContext context;
+	private static PostViewCounter counter;
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void startApplication() {
+		System.setProperty("JWT_SECRET", "post-views-test-secret-of-32-characters");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		context = new SpringApplicationBuilder(MddApiApplication.class).run(
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=never",
+				"--server.port=0",
+				"--app.node-id=post-views",
+				"--post.views.flush-interval-ms=3600000");
+		counter = context.getBean(PostViewCounter.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+		jdbcTemplate.update("INSERT INTO user (id, username, password, email, created_at, updated_at) "
+				+ "VALUES (1, 'alice', 'password', 'alice@mail.com', NOW(), NOW())");
+		jdbcTemplate.update("INSERT INTO topic (id, title, description) VALUES (1, 'Java', 'Java')");
+		for (long id = 1; id <= 4; id++) {
+			jdbcTemplate.update("INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at) "
+					+ "VALUES (?, 'Post', '', 1, 1, NOW())", id);
+		}
+		for (long id = 11; id <= 12; id++) {
+			jdbcTemplate.update("INSERT INTO post_archive (id, title, excerpt, content, user_id, topic_id, created_at, "
+					+ "comment_count, view_count, archived_at) VALUES (?, 'Post', '', X'78', 1, 1, NOW(), 0, 0, NOW())", id);
+		}
+	}
+
+	@AfterAll
+	static void stopApplication() {
+		context.close();
+	}
+
+	@Test
+	void viewsOfArchivedPostsAreCreditedToTheArchive() {
+		record(1L, 3);
+		record(11L, 2);
+
+		counter.flush();
+
+		assertEquals(3L, postViews(1L));
+		assertEquals(2L, archivedPostViews(11L));
+		assertEquals(0L, counter.pending(1L));
+		assertEquals(0L, counter.pending(11L));
+	}
+
+	@Test
+	void failedFlushPutsTheViewsBack() {
+		record(2L, 4);
+		record(12L, 1);
+
+		// The archived post makes the second batch of the transaction fail.
+		jdbcTemplate.execute("ALTER TABLE post_archive RENAME TO post_archive_hidden");
+		try {
+			assertThrows(DataAccessException.class, counter::flush);
+		} finally {
+			jdbcTemplate.execute("ALTER TABLE post_archive_hidden RENAME TO post_archive");
+		}
+		assertEquals(0L, postViews(2L));
+		assertEquals(4L, counter.pending(2L));
+		assertEquals(1L, counter.pending(12L));
+
+		counter.flush();
+
+		assertEquals(4L, postViews(2L));
+		assertEquals(1L, archivedPostViews(12L));
+		assertEquals(0L, counter.pending(2L));
+	}
+
+	@Test
+	void viewsRecordedDuringAFlushGoToTheNextOne() throws Exception {
+		record(3L, 2);
+
+		// Hold the row lock of the post, so that the flush waits in its batch.
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+				jdbcTemplate.update("UPDATE post SET view_count = view_count WHERE id = 3");
+				locked.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			locked.await(10, TimeUnit.SECONDS);
+			Future<?> flush = executor.submit(counter::flush);
+			awaitBlockedSession();
+
+			record(3L, 5);
+			assertEquals(7L, counter.pending(3L));
+
+			release.countDown();
+			holder.get(10, TimeUnit.SECONDS);
+			flush.get(10, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+
+		assertEquals(2L, postViews(3L));
+		assertEquals(5L, counter.pending(3L));
+
+		counter.flush();
+
+		assertEquals(7L, postViews(3L));
+		assertEquals(0L, counter.pending(3L));
+	}
+
+	@Test
+	void concurrentViewsAreCountedOnceWhileCountersAreDropped() throws Exception {
+		int threads = 4;
+		int viewsPerThread = 2000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> recorders = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				recorders.add(executor.submit(() -> {
+					for (int i = 1; i <= viewsPerThread; i++) {
+						counter.record(4L);
+						// Pauses leave the counter idle, so that flushes seal and drop it.
+						if (i % 50 == 0) {
+							Thread.sleep(1);
+						}
+					}
+					return null;
+				}));
+			}
+			while (!recorders.stream().allMatch(Future::isDone)) {
+				counter.flush();
+			}
+			for (Future<?> recorder : recorders) {
+				recorder.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		counter.flush();
+
+		assertEquals((long) threads * viewsPerThread, postViews(4L));
+		assertEquals(0L, counter.pending(4L));
+	}
+
+	private static void record(Long postId, int views) {
+		for (int i = 0; i < views; i++) {
+			counter.record(postId);
+		}
+	}
+
+	private static long postViews(Long postId) {
+		return jdbcTemplate.queryForObject("SELECT view_count FROM post WHERE id = ?", Long.class, postId);
+	}
+
+	private static long archivedPostViews(Long postId) {
+		return jdbcTemplate.queryForObject("SELECT view_count FROM post_archive WHERE id = ?", Long.class, postId);
+	}
+
+	private static void awaitBlockedSession() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM information_schema.sessions WHERE blocker_id IS NOT NULL", Integer.class) == 0) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("The flush did not wait for the row lock");
+			}
+			Thread.sleep(10);
+		}
+	}
+}
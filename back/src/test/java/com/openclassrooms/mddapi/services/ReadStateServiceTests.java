@@ -0,0 +1,89 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+
+/**
+ * Runs two application instances sharing one embedded database and checks that
+ * the read states flushed by both nodes are merged, rather than the last flush
+ * overwriting the posts read on the other node.
+ */
+class ReadStateServiceTests {
+
+	private static final String DB_URL =
+			"jdbc:h2:mem:read-state;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE";
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startNodes() {
+		System.setProperty("JWT_SECRET", "read-state-test-secret-of-32-characters");
+		System.setProperty("JWT_EXPIRATION", "3600000");
+		nodeA = startNode("node-a");
+		nodeB = startNode("node-b");
+
+		JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+		jdbcTemplate.update("INSERT INTO user (id, username, password, email, created_at, updated_at) "
+				+ "VALUES (1, 'alice', 'password', 'alice@mail.com', NOW(), NOW())");
+		jdbcTemplate.update("INSERT INTO topic (id, title, description) VALUES (1, 'Java', 'Java')");
+		for (long id = 1; id <= 4; id++) {
+			jdbcTemplate.update("INSERT INTO post (id, title, excerpt, user_id, topic_id, created_at) "
+					+ "VALUES (?, 'Post', '', 1, 1, NOW())", id);
+		}
+		nodeA.getBean(TopicPostIndex.class).reload();
+		nodeB.getBean(TopicPostIndex.class).reload();
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		nodeB.close();
+		nodeA.close();
+	}
+
+	@Test
+	void readsFlushedByBothNodesAreMerged() {
+		ReadStateService serviceA = nodeA.getBean(ReadStateService.class);
+		ReadStateService serviceB = nodeB.getBean(ReadStateService.class);
+
+		serviceA.markPostsRead(1L, List.of(2L));
+		serviceB.markPostsRead(1L, List.of(4L));
+		serviceA.flush();
+		serviceB.flush();
+		assertEquals(Map.of(1L, 2L), serviceA.getUnreadCounts(1L, List.of(1L)));
+		assertEquals(Map.of(1L, 2L), serviceB.getUnreadCounts(1L, List.of(1L)));
+
+		serviceA.markPostsRead(1L, List.of(1L));
+		serviceB.markPostsRead(1L, List.of(3L));
+		serviceA.flush();
+		serviceB.flush();
+		assertEquals(Map.of(1L, 0L), serviceA.getUnreadCounts(1L, List.of(1L)));
+		assertEquals(4L, nodeA.getBean(JdbcTemplate.class).queryForObject(
+				"SELECT last_read_post_id FROM topic_read_state WHERE user_id = 1 AND topic_id = 1", Long.class));
+	}
+
+	private static ConfigurableApplicationContext startNode(String nodeId) {
+		return new SpringApplicationBuilder(MddApiApplication.class).run(
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=never",
+				"--server.port=0",
+				"--app.node-id=" + nodeId,
+				"--read-state.flush-interval-ms=3600000");
+	}
+}
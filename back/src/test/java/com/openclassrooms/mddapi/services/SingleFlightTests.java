@@ -0,0 +1,175 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that SingleFlight runs one computation for concurrent callers of the same
+ * key, shares its result or its exception with them, and lets them give up with
+ * 503 when it takes too long.
+ */
+class SingleFlightTests {
+
+	private static final String GROUP = "test";
+	private static final int FOLLOWERS = 8;
+
+	private SimpleMeterRegistry meterRegistry;
+	private SingleFlight singleFlight;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		singleFlight = new SingleFlight(meterRegistry);
+		ReflectionTestUtils.setField(singleFlight, "timeoutMs", 5000L);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallersShareOneComputation() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute(GROUP, 1L, () -> {
+			runs.incrementAndGet();
+			await(release);
+			return "result";
+		}));
+		awaitCount("singleflight.executions", 1);
+		List<Future<String>> followers = startFollowers(1L, () -> {
+			runs.incrementAndGet();
+			return "other";
+		});
+		awaitCount("singleflight.shared", FOLLOWERS);
+		release.countDown();
+
+		assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+		for (Future<String> follower : followers) {
+			assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, runs.get());
+		assertEquals(1, count("singleflight.executions"));
+	}
+
+	@Test
+	void computationRunsAgainOnceCompleted() {
+		AtomicInteger runs = new AtomicInteger();
+
+		singleFlight.execute(GROUP, 1L, runs::incrementAndGet);
+		singleFlight.execute(GROUP, 1L, runs::incrementAndGet);
+		singleFlight.execute(GROUP, 2L, runs::incrementAndGet);
+
+		assertEquals(3, runs.get());
+		assertEquals(3, count("singleflight.executions"));
+		assertEquals(0, count("singleflight.shared"));
+	}
+
+	@Test
+	void waitingCallersReceiveTheExceptionOfTheComputation() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("database down");
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute(GROUP, 1L, () -> {
+			await(release);
+			throw failure;
+		}));
+		awaitCount("singleflight.executions", 1);
+		List<Future<String>> followers = startFollowers(1L, () -> "other");
+		awaitCount("singleflight.shared", FOLLOWERS);
+		release.countDown();
+
+		assertSame(failure, causeOf(leader));
+		for (Future<String> follower : followers) {
+			assertSame(failure, causeOf(follower));
+		}
+		// The failed computation is not kept either.
+		assertEquals("recovered", singleFlight.execute(GROUP, 1L, () -> "recovered"));
+	}
+
+	@Test
+	void waitingCallersGiveUpAfterTheTimeout() throws Exception {
+		ReflectionTestUtils.setField(singleFlight, "timeoutMs", 100L);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> singleFlight.execute(GROUP, 1L, () -> {
+			await(release);
+			return "late";
+		}));
+		awaitCount("singleflight.executions", 1);
+
+		long start = System.nanoTime();
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> singleFlight.execute(GROUP, 1L, () -> "other"));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+
+		// The computation itself is not cancelled.
+		release.countDown();
+		assertEquals("late", leader.get(5, TimeUnit.SECONDS));
+	}
+
+	private List<Future<String>> startFollowers(Object key, Supplier<String> computation) {
+		List<Future<String>> followers = new ArrayList<>();
+		for (int i = 0; i < FOLLOWERS; i++) {
+			followers.add(executor.submit(() -> singleFlight.execute(GROUP, key, computation)));
+		}
+		return followers;
+	}
+
+	private double count(String name) {
+		return meterRegistry.counter(name, "group", GROUP).count();
+	}
+
+	private void awaitCount(String name, int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (count(name) < expected) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError(name + " did not reach " + expected);
+			}
+			Thread.sleep(5);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new AssertionError("Latch not released");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AssertionError(e);
+		}
+	}
+
+	private static Throwable causeOf(Future<?> future) throws Exception {
+		ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		return e.getCause();
+	}
+}
@@ -94,6 +94,8 @@ export interface DetailedPost {
   topicTitle: string;
   /** Date and time when the post was created */
   createdAt: Date;
+  /** Number of views of the post */
+  viewCount: number;
 }
 
 /**